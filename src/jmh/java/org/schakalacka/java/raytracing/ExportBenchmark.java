@@ -0,0 +1,57 @@
+package org.schakalacka.java.raytracing;
+
+import org.openjdk.jmh.annotations.*;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Exports a random 1080p canvas in every format. The exporters log their throughput in MB/s as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExportBenchmark {
+
+    @Param({"P3", "P6", "P6_16", "PFM"})
+    public String format;
+
+    private Canvas canvas;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        var random = new Random(42);
+        canvas = new Canvas(1920, 1080);
+        for (int y = 0; y < 1080; y++) {
+            for (int x = 0; x < 1920; x++) {
+                canvas.write(x, y, new Color(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+            }
+        }
+        file = Files.createTempFile("export", ".img");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void export() {
+        switch (format) {
+            case "P3" -> PPMExporter.export(canvas, file.toString(), 255);
+            case "P6" -> BinaryExporter.exportP6(canvas, file.toString(), 255);
+            case "P6_16" -> BinaryExporter.exportP6(canvas, file.toString(), 65535);
+            case "PFM" -> BinaryExporter.exportPFM(canvas, file.toString());
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+}
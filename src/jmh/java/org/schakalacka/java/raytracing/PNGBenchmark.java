@@ -0,0 +1,62 @@
+package org.schakalacka.java.raytracing;
+
+import org.openjdk.jmh.annotations.*;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Encodes a 4K frame (gradients with a bit of noise, compresses roughly like a render) as PNG into nowhere:
+ * with {@link PNGExporter} on all cores, with {@link PNGExporter} on the calling thread only and with ImageIO.
+ * ImageIO gets a ready-made BufferedImage, so the conversion from the canvas isn't in its number.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PNGBenchmark {
+
+    private static final int WIDTH = 3840;
+    private static final int HEIGHT = 2160;
+
+    private Canvas canvas;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        canvas = new Canvas(WIDTH, HEIGHT);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                var color = new Color(x / (double) WIDTH, y / (double) HEIGHT, 0.5 + random.nextDouble() * 0.05);
+                canvas.write(x, y, color);
+                image.setRGB(x, y, color.rs(255) << 16 | color.gs(255) << 8 | color.bs(255));
+            }
+        }
+    }
+
+    @Benchmark
+    public void parallel() throws IOException {
+        PNGExporter.write(canvas, OutputStream.nullOutputStream(), ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public void singleThread() throws IOException {
+        PNGExporter.write(canvas, OutputStream.nullOutputStream(), Runnable::run);
+    }
+
+    @Benchmark
+    public void imageIO() throws IOException {
+        ImageIO.write(image, "png", OutputStream.nullOutputStream());
+    }
+}
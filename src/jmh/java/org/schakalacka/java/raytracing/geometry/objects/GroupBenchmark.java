@@ -0,0 +1,69 @@
+package org.schakalacka.java.raytracing.geometry.objects;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Intersects a bundle of rays with a group of randomly placed spheres, flat and divided into a BVH.
+ * Reported time is per bundle of {@link #RAYS} rays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GroupBenchmark {
+
+    private static final int RAYS = 64;
+
+    @Param({"10", "100", "1000"})
+    public int children;
+
+    @Param({"false", "true"})
+    public boolean divided;
+
+    private Group group;
+    private Ray[] rays;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        group = new Group();
+        for (int i = 0; i < children; i++) {
+            var sphere = new Sphere();
+            sphere.setTransformationMatrix(MatrixProvider.translation(
+                            random.nextDouble() * 20 - 10,
+                            random.nextDouble() * 20 - 10,
+                            random.nextDouble() * 20 - 10)
+                    .mulM(MatrixProvider.scaling(0.3, 0.3, 0.3)));
+            group.addChild(sphere);
+        }
+        if (divided) {
+            group.divide();
+        }
+
+        rays = new Ray[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            var target = Tuple.point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 0);
+            var origin = Tuple.point(0, 0, -30);
+            rays[i] = new Ray(origin, target.sub(origin).normalize());
+        }
+    }
+
+    @Benchmark
+    public void intersect(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            var intersections = IntersectionBuffer.forCurrentThread();
+            group.intersect(ray, intersections);
+            blackhole.consume(intersections.size());
+        }
+    }
+}
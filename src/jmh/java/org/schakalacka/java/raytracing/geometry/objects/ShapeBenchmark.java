@@ -0,0 +1,68 @@
+package org.schakalacka.java.raytracing.geometry.objects;
+
+import org.openjdk.jmh.annotations.*;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * localIntersect of every primitive, once with a ray that hits and once with one that misses.
+ * The rays are in object space already, so this is only the intersection math.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+
+    @Param({"sphere", "plane", "cube", "cylinder", "cone"})
+    public String shapeType;
+
+    private Shape shape;
+    private Ray hittingRay;
+    private Ray missingRay;
+
+    @Setup
+    public void setup() {
+        shape = switch (shapeType) {
+            case "sphere" -> new Sphere();
+            case "plane" -> new Plane();
+            case "cube" -> new Cube();
+            case "cylinder" -> closed(new Cylinder(-1, 1));
+            case "cone" -> closed(new Cone(-1, 1));
+            default -> throw new IllegalArgumentException("Unknown shape " + shapeType);
+        };
+        hittingRay = new Ray(Tuple.point(0.1, 5, -5), Tuple.vector(0, -0.6, 0.6).normalize());
+        missingRay = new Ray(Tuple.point(5, 5, -5), Tuple.vector(0, 0.6, 0.6).normalize());
+    }
+
+    private static Shape closed(Cylinder cylinder) {
+        cylinder.setClosed(true);
+        return cylinder;
+    }
+
+    @Benchmark
+    public int localIntersectHit() {
+        var intersections = IntersectionBuffer.forCurrentThread();
+        shape.localIntersect(hittingRay, intersections);
+        return intersections.size();
+    }
+
+    @Benchmark
+    public int localIntersectMiss() {
+        var intersections = IntersectionBuffer.forCurrentThread();
+        shape.localIntersect(missingRay, intersections);
+        return intersections.size();
+    }
+
+    @Benchmark
+    public int intersectTransformed() {
+        var intersections = IntersectionBuffer.forCurrentThread();
+        shape.intersect(hittingRay, intersections);
+        return intersections.size();
+    }
+}
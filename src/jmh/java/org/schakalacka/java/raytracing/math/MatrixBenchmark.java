@@ -0,0 +1,68 @@
+package org.schakalacka.java.raytracing.math;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * The matrix operations of the hot paths, for every {@link MATRIX_TYPE}.
+ * CUBLAS is left out, it needs a CUDA device and is meant for big matrices anyway.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+
+    @Param({"NAIVE", "EJML", "AFFINE"})
+    public MATRIX_TYPE type;
+
+    private Matrix transformation;
+    private Matrix other;
+    private Tuple point;
+    private Tuple vector;
+
+    @Setup
+    public void setup() {
+        var provider = type.provider;
+        transformation = provider.translation(1, -2, 3)
+                .mulM(provider.rotationY(0.7))
+                .mulM(provider.shearing(0.5, 0, 0, 0.2, 0, 0))
+                .mulM(provider.scaling(2, 0.5, 1.5));
+        other = provider.rotationX(0.3).mulM(provider.translation(4, 5, 6));
+        point = Tuple.point(1.5, -2, 0.25);
+        vector = Tuple.vector(-0.3, 0.8, 0.1);
+    }
+
+    @Benchmark
+    public Tuple mulTPoint() {
+        return transformation.mulT(point);
+    }
+
+    @Benchmark
+    public Tuple mulPoint() {
+        return transformation.mulPoint(point);
+    }
+
+    @Benchmark
+    public Tuple mulVector() {
+        return transformation.mulVector(vector);
+    }
+
+    @Benchmark
+    public Matrix mulM() {
+        return transformation.mulM(other);
+    }
+
+    @Benchmark
+    public Matrix inverse() {
+        return transformation.inverse();
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return transformation.transpose();
+    }
+}
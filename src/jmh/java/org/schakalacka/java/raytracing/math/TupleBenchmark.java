@@ -0,0 +1,60 @@
+package org.schakalacka.java.raytracing.math;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TupleBenchmark {
+
+    private Tuple point;
+    private Tuple vector;
+    private Tuple other;
+
+    @Setup
+    public void setup() {
+        point = Tuple.point(1.5, -2, 0.25);
+        vector = Tuple.vector(-0.3, 0.8, 0.1);
+        other = Tuple.vector(0.6, 0.2, -0.9);
+    }
+
+    @Benchmark
+    public Tuple add() {
+        return point.add(vector);
+    }
+
+    @Benchmark
+    public Tuple sub() {
+        return vector.sub(other);
+    }
+
+    @Benchmark
+    public Tuple mul() {
+        return vector.mul(2.5);
+    }
+
+    @Benchmark
+    public double dot() {
+        return vector.dot(other);
+    }
+
+    @Benchmark
+    public Tuple cross() {
+        return vector.cross(other);
+    }
+
+    @Benchmark
+    public Tuple normalize() {
+        return vector.normalize();
+    }
+
+    @Benchmark
+    public Tuple reflect() {
+        return vector.reflect(other);
+    }
+}
@@ -0,0 +1,43 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.openjdk.jmh.annotations.*;
+import org.schakalacka.java.raytracing.world.BenchmarkScenes;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * A full frame through {@link Camera#render(World, int)} at fixed resolutions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    @Param({"160x90", "320x180"})
+    public String resolution;
+
+    @Param({"default", "glass"})
+    public String scene;
+
+    @Param({"1", "4"})
+    public int parallelChunks;
+
+    private World world;
+    private Camera camera;
+
+    @Setup
+    public void setup() {
+        var size = resolution.split("x");
+        world = BenchmarkScenes.scene(scene);
+        camera = BenchmarkScenes.camera(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    @Benchmark
+    public Canvas render() {
+        return camera.render(world, parallelChunks);
+    }
+}
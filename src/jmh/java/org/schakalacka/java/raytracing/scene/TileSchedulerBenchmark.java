@@ -0,0 +1,57 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.openjdk.jmh.annotations.*;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
+import org.schakalacka.java.raytracing.world.BenchmarkScenes;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Renders the glass scene (refraction inside refraction, very uneven cost per pixel) with different tile sizes and orders.
+ * With 160 pixel tiles the 320x180 image is split into four big tiles, one per thread, like the old ChunkCalculator did.
+ * The per-worker utilisation of the last render of every iteration is printed, the closer all workers are to 100% the better.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TileSchedulerBenchmark {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 180;
+
+    @Param({"16", "32", "64", "160"})
+    public int tileSize;
+
+    @Param({"ROWS", "CENTER_OUT"})
+    public TileScheduler.Order order;
+
+    @Param({"4"})
+    public int threads;
+
+    private World world;
+    private Camera camera;
+    private TileScheduler lastTiles;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.glass();
+        camera = BenchmarkScenes.camera(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public Canvas render() {
+        lastTiles = new TileScheduler(WIDTH, HEIGHT, tileSize, order);
+        return camera.render(world, threads, lastTiles);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printUtilisation() {
+        if (lastTiles != null) {
+            System.out.println("utilisation per worker: " + lastTiles.utilisationSummary());
+        }
+    }
+}
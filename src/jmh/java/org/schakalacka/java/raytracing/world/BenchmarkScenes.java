@@ -0,0 +1,114 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.patterns.CheckerPattern;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.Material;
+import org.schakalacka.java.raytracing.scene.PointLight;
+
+import java.util.Random;
+
+/***
+ * Fixed scenes for the benchmarks, so numbers stay comparable between runs.
+ */
+public final class BenchmarkScenes {
+
+    private BenchmarkScenes() {
+    }
+
+    public static World scene(String name) {
+        return switch (name) {
+            case "default" -> World.getDefault();
+            case "glass" -> glass();
+            case "spheres" -> spheres(2_000).accelerate();
+            case "lights" -> lights(500);
+            default -> throw new IllegalArgumentException("Unknown scene " + name);
+        };
+    }
+
+    /***
+     * A checkered, slightly reflective floor with a glass sphere (with an air bubble) and two opaque spheres.
+     * Exercises shadows, reflection and refraction, roughly like the Chapter 11 renderers.
+     */
+    public static World glass() {
+        var floor = new Plane();
+        floor.setMaterial(Material.newMaterial().color(new Color(1, 0.9, 0.9)).reflectivity(0.2f).specular(0)
+                .pattern(new CheckerPattern(Color.BLACK, Color.WHITE)).create());
+
+        var glassSphere = Sphere.glassySphere();
+        glassSphere.setTransformationMatrix(MatrixProvider.translation(-0.5, 1, 0.5));
+        glassSphere.setMaterial(Material.newMaterial().refractiveIndex(1.52).transparency(1).reflectivity(0.9f).ambient(0)
+                .diffuse(0.4f).specular(0.9f).shininess(300).color(new Color(0.1, 0.2, 0.1)).create());
+
+        var bubble = Sphere.glassySphere();
+        bubble.setTransformationMatrix(MatrixProvider.translation(-0.5, 1, 0.5).mulM(MatrixProvider.scaling(0.3, 0.3, 0.3)));
+        bubble.setMaterial(Material.newMaterial().refractiveIndex(1.0).transparency(1).reflectivity(0.9f).ambient(0)
+                .diffuse(0).specular(0.9f).shininess(300).create());
+
+        var right = new Sphere();
+        right.setTransformationMatrix(MatrixProvider.translation(1.5, 0.5, -0.5).mulM(MatrixProvider.scaling(0.5, 0.5, 0.5)));
+        right.setMaterial(Material.newMaterial().color(new Color(0.5, 1, 0.1)).diffuse(0.7).specular(0.3).create());
+
+        var left = new Sphere();
+        left.setTransformationMatrix(MatrixProvider.translation(-1.5, 0.33, -0.75).mulM(MatrixProvider.scaling(0.33, 0.33, 0.33)));
+        left.setMaterial(Material.newMaterial().color(new Color(1, 0.2, 0.1)).diffuse(0.7).specular(0.3).create());
+
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 10, -10), new Color(1, 1, 1)));
+        world.addObjects(floor, glassSphere, bubble, right, left);
+        return world;
+    }
+
+    /***
+     * A floor with lots of small random spheres in front of the camera, like Chapter14_bvh_timing.
+     */
+    public static World spheres(int count) {
+        var random = new Random(42);
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 30, -20), new Color(1, 1, 1)));
+
+        var floor = new Plane();
+        floor.setMaterial(Material.newMaterial().color(new Color(0.8, 0.8, 0.8)).specular(0).create());
+        world.addObjects(floor);
+
+        for (int i = 0; i < count; i++) {
+            var sphere = new Sphere();
+            var radius = 0.1 + random.nextDouble() * 0.2;
+            sphere.setTransformationMatrix(MatrixProvider.translation(
+                            random.nextDouble() * 8 - 4,
+                            random.nextDouble() * 3 + radius,
+                            random.nextDouble() * 10)
+                    .mulM(MatrixProvider.scaling(radius, radius, radius)));
+            sphere.setMaterial(Material.newMaterial().color(new Color(random.nextDouble(), random.nextDouble(), random.nextDouble())).create());
+            world.addObjects(sphere);
+        }
+        return world;
+    }
+
+    /***
+     * The spheres scene (200 of them), lit by many small colored lights with falloff, hanging just above the floor and the spheres.
+     * Each light only reaches a few units, see {@link PointLight#influenceRadius(double)}.
+     */
+    public static World lights(int count) {
+        var random = new Random(7);
+        var world = spheres(200).accelerate();
+        world.setLightSource(null);
+        for (int i = 0; i < count; i++) {
+            world.addLights(new PointLight(
+                    Tuple.point(random.nextDouble() * 16 - 8, random.nextDouble() * 3 + 0.5, random.nextDouble() * 12 - 1),
+                    new Color(random.nextDouble(), random.nextDouble(), random.nextDouble()),
+                    0.1 + random.nextDouble() * 0.2));
+        }
+        return world;
+    }
+
+    public static Camera camera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 1.5, -5), Tuple.point(0, 1, 0), Tuple.vector(0, 1, 0)));
+        return camera;
+    }
+}
@@ -0,0 +1,58 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * color_at for the rays of a 32x18 camera in the scene with 500 lights ({@link BenchmarkScenes#lights(int)}).
+ * A cutoff of 0 shades every hit with all lights, the default cutoff only with the ones the {@link LightIndex} selects.
+ * select measures only the lookup, for the points where the rays hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LightCullingBenchmark {
+
+    @Param({"0", "0.001953125"})
+    public double cutoff;
+
+    private World world;
+    private Ray[] rays;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.lights(500);
+        world.setLightCutoff(cutoff);
+        var camera = BenchmarkScenes.camera(32, 18);
+        rays = new Ray[camera.getHSize() * camera.getVSize()];
+        for (int y = 0; y < camera.getVSize(); y++) {
+            for (int x = 0; x < camera.getHSize(); x++) {
+                rays[y * camera.getHSize() + x] = camera.rayForPixel(x, y);
+            }
+        }
+    }
+
+    @Benchmark
+    public void colorAt(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(world.color_at(ray));
+        }
+    }
+
+    @Benchmark
+    public void select(Blackhole blackhole) {
+        var index = world.getLightIndex();
+        for (Ray ray : rays) {
+            var hit = world.closestHit(ray);
+            if (hit != null) {
+                blackhole.consume(index.select(ray.position(hit.getDistance())).size());
+            }
+        }
+    }
+}
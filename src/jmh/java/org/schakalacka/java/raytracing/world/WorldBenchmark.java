@@ -0,0 +1,72 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * color_at for the rays of a tiny 16x9 camera, i.e. intersecting, shading and all the bounces, but no canvas.
+ * Reported time is per bundle of 144 rays. intersect collects all intersections in the per-thread buffer,
+ * closestHit only the nearest one (like color_at), intersectList uses the list API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldBenchmark {
+
+    @Param({"default", "glass", "spheres"})
+    public String scene;
+
+    private World world;
+    private Ray[] rays;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.scene(scene);
+        var camera = BenchmarkScenes.camera(16, 9);
+        rays = new Ray[camera.getHSize() * camera.getVSize()];
+        for (int y = 0; y < camera.getVSize(); y++) {
+            for (int x = 0; x < camera.getHSize(); x++) {
+                rays[y * camera.getHSize() + x] = camera.rayForPixel(x, y);
+            }
+        }
+    }
+
+    @Benchmark
+    public void colorAt(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            Color color = world.color_at(ray);
+            blackhole.consume(color);
+        }
+    }
+
+    @Benchmark
+    public void intersect(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            var intersections = IntersectionBuffer.forCurrentThread();
+            world.intersect(ray, intersections);
+            blackhole.consume(intersections.hitIndex());
+        }
+    }
+
+    @Benchmark
+    public void closestHit(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(world.closestHit(ray));
+        }
+    }
+
+    @Benchmark
+    public void intersectList(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(world.intersect(ray));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.schakalacka.java.raytracing;
+
+import org.schakalacka.java.raytracing.jfr.ExportEvent;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/***
+ * Binary siblings of {@link PPMExporter}: no number formatting, no line wrapping, the rows go from the canvas into a direct
+ * {@link ByteBuffer} and from there through a {@link FileChannel} into the file.
+ * <ul>
+ *     <li>P6: like P3, but every channel is one byte (maximum value up to 255) or two big-endian bytes (up to 65535)</li>
+ *     <li>PFM: the raw floats, nothing clamped or scaled. Values above 1 survive, good for HDR tools.
+ *     Rows are stored bottom to top, as the format wants</li>
+ * </ul>
+ * Every export logs its throughput in MB/s.
+ */
+public class BinaryExporter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Canvas c;
+    private final float[] row;
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private long bytesWritten = 0;
+
+    private BinaryExporter(Canvas c, Path exportFileName, ByteOrder order) throws IOException {
+        this.c = c;
+        this.row = new float[c.getWidth() * 3];
+        // at least one row of 16 bit or float pixels has to fit
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, c.getWidth() * 3 * Float.BYTES)).order(order);
+        this.channel = FileChannel.open(exportFileName, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /***
+     * @param numColors the maximum value of a channel, 1 to 65535. Up to 255 a channel is one byte, above two.
+     */
+    public static void exportP6(Canvas c, String exportFileName, int numColors) {
+        if (numColors < 1 || numColors > 65535) {
+            throw new IllegalArgumentException("P6 supports 1 to 65535 colors per channel, not " + numColors);
+        }
+        export(c, exportFileName, "P6", ByteOrder.BIG_ENDIAN, exporter -> exporter.writeP6(numColors));
+    }
+
+    public static void exportPFM(Canvas c, String exportFileName) {
+        // a negative scale in the header means little-endian
+        export(c, exportFileName, "PFM", ByteOrder.LITTLE_ENDIAN, BinaryExporter::writePFM);
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(BinaryExporter exporter) throws IOException;
+    }
+
+    private static void export(Canvas c, String exportFileName, String format, ByteOrder order, Body body) {
+        long start = System.nanoTime();
+        var event = new ExportEvent();
+        event.begin();
+        try {
+            BinaryExporter exporter = new BinaryExporter(c, Path.of(exportFileName), order);
+            try (exporter.channel) {
+                body.write(exporter);
+                exporter.flush();
+            }
+            event.record(format, exportFileName, c.getWidth(), c.getHeight(), exporter.bytesWritten);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            double megaBytes = exporter.bytesWritten / (1024.0 * 1024.0);
+            Logger.info("Exported {} {}x{} to {}: {}MB in {}ms, {} MB/s", format, c.getWidth(), c.getHeight(), exportFileName,
+                    "%.1f".formatted(megaBytes), nanos / 1_000_000, "%.1f".formatted(megaBytes / (nanos / 1e9)));
+        } catch (Exception e) {
+            System.err.println("Failed to export " + format);
+            e.printStackTrace();
+        }
+    }
+
+    private void writeP6(int numColors) throws IOException {
+        header(p6Header(c.getWidth(), c.getHeight(), numColors));
+        for (int y = 0; y < c.getHeight(); y++) {
+            c.readRow(y, row);
+            ensureRoom(row.length * p6BytesPerChannel(numColors));
+            putP6(buffer, row, row.length, numColors);
+        }
+    }
+
+    private void writePFM() throws IOException {
+        header(pfmHeader(c.getWidth(), c.getHeight()));
+        for (int y = c.getHeight() - 1; y >= 0; y--) {
+            c.readRow(y, row);
+            ensureRoom(row.length * Float.BYTES);
+            putPFM(buffer, row, row.length);
+        }
+    }
+
+    static String p6Header(int width, int height, int numColors) {
+        return "P6\n" + width + " " + height + "\n" + numColors + "\n";
+    }
+
+    static String pfmHeader(int width, int height) {
+        return "PF\n" + width + " " + height + "\n-1.0\n";
+    }
+
+    static int p6BytesPerChannel(int numColors) {
+        return numColors > 255 ? 2 : 1;
+    }
+
+    /***
+     * Scales the first count values of rgb like P3 does and puts them into the (big-endian) target, one or two bytes each.
+     */
+    static void putP6(ByteBuffer target, float[] rgb, int count, int numColors) {
+        final boolean twoBytes = p6BytesPerChannel(numColors) == 2;
+        for (int i = 0; i < count; i++) {
+            int scaled = Color.scaleValue(rgb[i], numColors);
+            if (twoBytes) {
+                target.putShort((short) scaled);
+            } else {
+                target.put((byte) scaled);
+            }
+        }
+    }
+
+    /***
+     * Puts the first count values of rgb into the (little-endian) target as they are.
+     */
+    static void putPFM(ByteBuffer target, float[] rgb, int count) {
+        target.asFloatBuffer().put(rgb, 0, count);
+        target.position(target.position() + count * Float.BYTES);
+    }
+
+    private void header(String header) {
+        buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,164 @@
+package org.schakalacka.java.raytracing;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/***
+ * Counters for the hot paths: rays by type, bounding box and shape tests, matrix operations.
+ * <p>
+ * Every thread counts into an array of its own, the totals are the sums over all threads. So counting from all render threads
+ * neither loses counts nor bounces a cache line between the cores, and longs don't overflow on big frames.
+ * {@link #threadCount(Event)} reads the counts of the current thread alone, e.g. to get the cost of a single pixel.
+ * The totals are exact once the counting threads are done (e.g. after the render job is joined), while they run they lag a little.
+ * <p>
+ * Counting is off unless the JVM runs with -Draytracer.metrics=true. {@link #ENABLED} is a static final, so with metrics off
+ * the JIT removes the calls to {@link #count(Event)} completely.
+ * <p>
+ * {@link #snapshot()} before and after a render, {@link Snapshot#minus(Snapshot)} gives the counts of the render alone
+ * (as long as nothing else renders at the same time). Camera.render logs such a report by itself.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("raytracer.metrics");
+
+    public enum Event {
+        PRIMARY_RAY, SHADOW_RAY, REFLECTION_RAY, REFRACTION_RAY,
+        BOX_TEST, BOX_MISS, SHAPE_TEST,
+        // shadow rays that had a cached occluder to try first, and those it blocked
+        SHADOW_CACHE_LOOKUP, SHADOW_CACHE_HIT,
+        MUL_M, MUL_T, TRANSPOSE, DETERMINANT, SUB_M, MINOR, COFACTOR, IS_INVERTIBLE, INVERSE,
+        TRANSLATE, SCALE, ROT_X, ROT_Y, ROT_Z, SHEAR
+    }
+
+    private static final int EVENTS = Event.values().length;
+    // the arrays of all threads that ever counted. Render threads are pooled, so this stays small
+    private static final List<long[]> ALL_THREADS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<long[]> THREAD_COUNTS = ThreadLocal.withInitial(() -> {
+        var counts = new long[EVENTS];
+        ALL_THREADS.add(counts);
+        return counts;
+    });
+
+    private Metrics() {
+    }
+
+    public static void count(Event event) {
+        if (ENABLED) {
+            THREAD_COUNTS.get()[event.ordinal()]++;
+        }
+    }
+
+    public static long get(Event event) {
+        long sum = 0;
+        for (long[] counts : ALL_THREADS) {
+            sum += counts[event.ordinal()];
+        }
+        return sum;
+    }
+
+    /***
+     * @return the count of the current thread only
+     */
+    public static long threadCount(Event event) {
+        return THREAD_COUNTS.get()[event.ordinal()];
+    }
+
+    /***
+     * @return the rays of all types the current thread counted
+     */
+    public static long threadRays() {
+        var counts = THREAD_COUNTS.get();
+        return counts[Event.PRIMARY_RAY.ordinal()] + counts[Event.SHADOW_RAY.ordinal()]
+                + counts[Event.REFLECTION_RAY.ordinal()] + counts[Event.REFRACTION_RAY.ordinal()];
+    }
+
+    /***
+     * Only while nothing counts, counts happening at the same time may get lost.
+     */
+    public static void reset() {
+        for (long[] counts : ALL_THREADS) {
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    public static Snapshot snapshot() {
+        var sums = new long[EVENTS];
+        for (long[] counts : ALL_THREADS) {
+            for (int i = 0; i < EVENTS; i++) {
+                sums[i] += counts[i];
+            }
+        }
+        return new Snapshot(sums);
+    }
+
+    /***
+     * The counts at one moment. Counts of events happening while the snapshot is taken may or may not be in it.
+     */
+    public record Snapshot(long[] counts) {
+
+        public long get(Event event) {
+            return counts[event.ordinal()];
+        }
+
+        public Snapshot minus(Snapshot before) {
+            var difference = new long[counts.length];
+            for (int i = 0; i < difference.length; i++) {
+                difference[i] = counts[i] - before.counts[i];
+            }
+            return new Snapshot(difference);
+        }
+
+        /***
+         * @return the share of shadow rays that were blocked by the cached occluder of their light, of all that had one to try.
+         * 0 if there were none.
+         */
+        public double shadowCacheHitRate() {
+            long lookups = get(Event.SHADOW_CACHE_LOOKUP);
+            return lookups == 0 ? 0 : get(Event.SHADOW_CACHE_HIT) / (double) lookups;
+        }
+
+        public long rays() {
+            return get(Event.PRIMARY_RAY) + get(Event.SHADOW_RAY) + get(Event.REFLECTION_RAY) + get(Event.REFRACTION_RAY);
+        }
+
+        /***
+         * @return all events that happened at least once
+         */
+        public Map<Event, Long> nonZero() {
+            var result = new EnumMap<Event, Long>(Event.class);
+            for (Event event : Event.values()) {
+                if (get(event) != 0) {
+                    result.put(event, get(event));
+                }
+            }
+            return result;
+        }
+
+        /***
+         * @param pixels the pixels of the frame, to put the rays per pixel next to the totals
+         */
+        public String report(long pixels) {
+            long rays = rays();
+            return ("rays: %d (%.2f per pixel) primary=%d shadow=%d reflection=%d refraction=%d; "
+                    + "shadow cache: %d of %d lookups hit (%.1f%%); "
+                    + "box tests: %d (%d missed); shape tests: %d (%.2f per ray); matrix ops: %s").formatted(
+                    rays, rays / (double) Math.max(1, pixels), get(Event.PRIMARY_RAY), get(Event.SHADOW_RAY), get(Event.REFLECTION_RAY),
+                    get(Event.REFRACTION_RAY), get(Event.SHADOW_CACHE_HIT), get(Event.SHADOW_CACHE_LOOKUP), shadowCacheHitRate() * 100,
+                    get(Event.BOX_TEST), get(Event.BOX_MISS), get(Event.SHAPE_TEST),
+                    get(Event.SHAPE_TEST) / (double) Math.max(1, rays), matrixOps());
+        }
+
+        private String matrixOps() {
+            var ops = new StringBuilder("{");
+            for (Event event : Event.values()) {
+                if (event.ordinal() >= Event.MUL_M.ordinal() && get(event) != 0) {
+                    ops.append(ops.length() > 1 ? ", " : "").append(event.name().toLowerCase()).append('=').append(get(event));
+                }
+            }
+            return ops.append('}').toString();
+        }
+    }
+}
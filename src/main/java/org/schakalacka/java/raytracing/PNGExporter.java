@@ -0,0 +1,306 @@
+package org.schakalacka.java.raytracing;
+
+import org.schakalacka.java.raytracing.jfr.ExportEvent;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.tinylog.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/***
+ * Writes the canvas as an 8 bit RGB PNG, compressing on all cores (like pigz does for gzip).
+ * <p>
+ * The scanlines are cut into blocks of ~128KB, which are filtered in parallel. Every block gets its own {@link Deflater}, primed with the last 32KB of the
+ * block before, so the compression is almost as good as with one stream. All blocks but the last end with a sync flush, which leaves
+ * them on a byte boundary without marking them final: glued together they are one valid deflate stream.
+ * Every block becomes one IDAT chunk, its CRC is computed by the same task. The Adler-32 of the whole image, which zlib wants
+ * at the end, is combined from the Adler-32s of the blocks.
+ */
+public class PNGExporter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int ADLER_BASE = 65521;
+    // the same as ImageIO's PNG writer. 6 (zlib's default) is only a few percent smaller, but takes 4-5 times as long
+    private static final int COMPRESSION_LEVEL = 4;
+
+    private record Block(byte[] compressed, int compressedLength, long adler, int rawLength, long crc) {
+    }
+
+    public static void export(Canvas c, String exportFileName) {
+        export(c, exportFileName, ForkJoinPool.commonPool());
+    }
+
+    public static void export(Canvas c, String exportFileName, Executor executor) {
+        // before the file is created, so there is no broken one left behind
+        checkNotEmpty(c);
+        long start = System.nanoTime();
+        var event = new ExportEvent();
+        event.begin();
+        var path = Path.of(exportFileName);
+        try (var out = new BufferedOutputStream(Files.newOutputStream(path), BLOCK_SIZE)) {
+            write(c, out, executor);
+        } catch (Exception e) {
+            System.err.println("Failed to export PNG");
+            e.printStackTrace();
+            return;
+        }
+        event.record("PNG", exportFileName, c.getWidth(), c.getHeight(), -1);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        Logger.info("Exported PNG {}x{} to {} in {}ms", c.getWidth(), c.getHeight(), exportFileName, nanos / 1_000_000);
+    }
+
+    /***
+     * Writes the complete PNG to the stream. The blocks are compressed by the executor, the calling thread only writes.
+     * @throws IllegalArgumentException if the canvas has no pixels: PNG needs a width and height of at least 1
+     */
+    public static void write(Canvas c, OutputStream stream, Executor executor) throws IOException {
+        checkNotEmpty(c);
+        final int rowLength = c.getWidth() * 3 + 1;
+        final int rowsPerBlock = Math.max(1, BLOCK_SIZE / rowLength);
+        final byte[] raw = new byte[rowLength * c.getHeight()];
+
+        // filtering a block only needs the canvas, compressing it also needs the block before as dictionary
+        List<CompletableFuture<Block>> blocks = new ArrayList<>();
+        CompletableFuture<Void> previousFiltered = CompletableFuture.completedFuture(null);
+        for (int yFrom = 0; yFrom < c.getHeight(); yFrom += rowsPerBlock) {
+            final int firstRow = yFrom;
+            final int lastRow = Math.min(yFrom + rowsPerBlock, c.getHeight()) - 1;
+            final boolean last = lastRow == c.getHeight() - 1;
+            var filtered = CompletableFuture.runAsync(() -> filterRows(c, raw, firstRow, lastRow), executor);
+            blocks.add(filtered.thenCombineAsync(previousFiltered,
+                    (ignored, alsoIgnored) -> compress(raw, firstRow * rowLength, (lastRow - firstRow + 1) * rowLength, last), executor));
+            previousFiltered = filtered;
+        }
+
+        var out = new DataOutputStream(stream);
+        out.write(SIGNATURE);
+
+        var ihdr = new byte[13];
+        writeInt(ihdr, 0, c.getWidth());
+        writeInt(ihdr, 4, c.getHeight());
+        ihdr[8] = 8; // bits per channel
+        ihdr[9] = 2; // RGB
+        // compression, filter and interlace method are all 0
+        chunk(out, "IHDR", ihdr, ihdr.length);
+
+        long adler = 1;
+        for (int i = 0; i < blocks.size(); i++) {
+            var block = blocks.get(i).join();
+            adler = combineAdler32(adler, block.adler(), block.rawLength());
+            byte[] data = block.compressed();
+            int length = block.compressedLength();
+            if (i == blocks.size() - 1) {
+                // the zlib trailer goes into the last IDAT, its CRC has to cover it
+                data = Arrays.copyOf(data, length + 4);
+                writeInt(data, length, (int) adler);
+                length += 4;
+                chunk(out, "IDAT", data, length);
+            } else {
+                chunkWithCrc(out, "IDAT", data, length, block.crc());
+            }
+        }
+        chunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private static void checkNotEmpty(Canvas c) {
+        if (c.getWidth() < 1 || c.getHeight() < 1) {
+            throw new IllegalArgumentException("PNG can't store an empty image, the canvas is " + c.getWidth() + "x" + c.getHeight());
+        }
+    }
+
+    /***
+     * Every row starts with its filter type, followed by the filtered bytes. The filter is chosen per row with the usual heuristic:
+     * the one with the smallest sum of absolute values (as signed bytes) wins.
+     * Filters look at the row above, so for the first row of the range, the row before is converted again.
+     */
+    static void filterRows(Canvas c, byte[] target, int yFrom, int yTo) {
+        final int rowBytes = c.getWidth() * 3;
+        final float[] rgb = new float[rowBytes];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        final byte[][] candidates = new byte[5][rowBytes];
+        if (yFrom > 0) {
+            toBytes(c, yFrom - 1, rgb, previous);
+        }
+
+        for (int y = yFrom; y <= yTo; y++) {
+            toBytes(c, y, rgb, current);
+
+            int bestFilter = 0;
+            long bestSum = Long.MAX_VALUE;
+            for (int filter = 0; filter < 5; filter++) {
+                long sum = filter(filter, current, previous, candidates[filter]);
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    bestFilter = filter;
+                }
+            }
+            int offset = y * (rowBytes + 1);
+            target[offset] = (byte) bestFilter;
+            System.arraycopy(candidates[bestFilter], 0, target, offset + 1, rowBytes);
+
+            var swap = previous;
+            previous = current;
+            current = swap;
+        }
+    }
+
+    private static void toBytes(Canvas c, int y, float[] rgb, byte[] target) {
+        c.readRow(y, rgb);
+        for (int i = 0; i < target.length; i++) {
+            target[i] = (byte) Color.scaleValue(rgb[i], 255);
+        }
+    }
+
+    /***
+     * One loop per filter type, a switch per byte is noticeably slower.
+     */
+    private static long filter(int type, byte[] row, byte[] previous, byte[] target) {
+        final int length = row.length;
+        switch (type) {
+            case 0 -> System.arraycopy(row, 0, target, 0, length);
+            case 1 -> {
+                System.arraycopy(row, 0, target, 0, 3);
+                for (int i = 3; i < length; i++) {
+                    target[i] = (byte) (row[i] - row[i - 3]);
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) {
+                    target[i] = (byte) (row[i] - previous[i]);
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < length; i++) {
+                    int a = i >= 3 ? row[i - 3] & 0xFF : 0;
+                    target[i] = (byte) (row[i] - ((a + (previous[i] & 0xFF)) >>> 1));
+                }
+            }
+            default -> {
+                for (int i = 0; i < 3; i++) {
+                    // without a left neighbour, Paeth predicts the byte above
+                    target[i] = (byte) (row[i] - previous[i]);
+                }
+                for (int i = 3; i < length; i++) {
+                    target[i] = (byte) (row[i] - paeth(row[i - 3] & 0xFF, previous[i] & 0xFF, previous[i - 3] & 0xFF));
+                }
+            }
+        }
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += Math.abs(target[i]);
+        }
+        return sum;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static Block compress(byte[] raw, int from, int length, boolean last) {
+        var deflater = new Deflater(COMPRESSION_LEVEL, true);
+        try {
+            if (from > 0) {
+                int dictionary = Math.min(DICTIONARY_SIZE, from);
+                deflater.setDictionary(raw, from - dictionary, dictionary);
+            }
+            deflater.setInput(raw, from, length);
+            if (last) {
+                deflater.finish();
+            }
+
+            byte[] out = new byte[length / 2 + 64];
+            int written = 0;
+            if (from == 0) {
+                // zlib header: deflate with a 32K window, "default" compression (only informative)
+                out[written++] = 0x78;
+                out[written++] = (byte) 0x9C;
+            }
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            while (true) {
+                if (written == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int space = out.length - written;
+                int count = deflater.deflate(out, written, space, flush);
+                written += count;
+                // a flush is complete once it doesn't fill the whole space anymore
+                if (last ? deflater.finished() : count < space) {
+                    break;
+                }
+            }
+
+            var adler = new Adler32();
+            adler.update(raw, from, length);
+            var crc = new CRC32();
+            crc.update(new byte[]{'I', 'D', 'A', 'T'});
+            crc.update(out, 0, written);
+            return new Block(out, written, adler.getValue(), length, crc.getValue());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /***
+     * Adler-32 of two pieces of data one after the other, from the Adler-32 of both and the length of the second.
+     * The same arithmetic as zlib's adler32_combine.
+     */
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= ((long) ADLER_BASE << 1)) sum2 -= ((long) ADLER_BASE << 1);
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum1 | (sum2 << 16);
+    }
+
+    private static void chunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+        var crc = new CRC32();
+        crc.update(type.getBytes(StandardCharsets.US_ASCII));
+        crc.update(data, 0, length);
+        chunkWithCrc(out, type, data, length, crc.getValue());
+    }
+
+    private static void chunkWithCrc(DataOutputStream out, String type, byte[] data, int length, long crc) throws IOException {
+        out.writeInt(length);
+        out.writeBytes(type);
+        out.write(data, 0, length);
+        out.writeInt((int) crc);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
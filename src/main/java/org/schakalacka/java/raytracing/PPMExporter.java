@@ -1,5 +1,6 @@
 package org.schakalacka.java.raytracing;
 
+import org.schakalacka.java.raytracing.jfr.ExportEvent;
 import org.schakalacka.java.raytracing.scene.Canvas;
 import org.schakalacka.java.raytracing.scene.Color;
 
@@ -27,9 +28,12 @@ public class PPMExporter {
     }
 
     public static void export(Canvas c, String exportFileName, int numColors) {
+        var event = new ExportEvent();
+        event.begin();
         try {
             PPMExporter ppmExporter = new PPMExporter(c, Path.of(exportFileName), numColors);
             ppmExporter.export();
+            event.record("P3", exportFileName, c.getWidth(), c.getHeight(), -1);
         } catch (Exception e) {
             System.err.println("Failed to export PPM");
             e.printStackTrace();
@@ -0,0 +1,132 @@
+package org.schakalacka.java.raytracing;
+
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.tools.Chunk;
+import org.schakalacka.java.raytracing.scene.tools.TileSink;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/***
+ * Writes tiles straight into a P6 or PFM file (see {@link BinaryExporter}) while the frame is still rendering.
+ * <p>
+ * The file gets its final size up front, so every row of every tile has a fixed offset. The render threads write their tiles there
+ * with positional {@link FileChannel#write(ByteBuffer, long)}, which may run concurrently. Nothing waits for the whole frame:
+ * the export overlaps with tracing and memory is a tile per thread, whatever the resolution.
+ * <p>
+ * Close it once the render is done, that's when it logs the throughput.
+ */
+public class TileFileWriter implements TileSink, AutoCloseable {
+
+    private final Path file;
+    private final String format;
+    private final int width;
+    private final int height;
+    private final int numColors;
+    private final int bytesPerChannel;
+    private final long headerLength;
+    private final ByteOrder order;
+    private final FileChannel channel;
+    private final ThreadLocal<float[]> rows = new ThreadLocal<>();
+    private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<>();
+    private final long start = System.nanoTime();
+
+    private TileFileWriter(Path file, String format, String header, int width, int height, int numColors, int bytesPerChannel, ByteOrder order) throws IOException {
+        this.file = file;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        this.numColors = numColors;
+        this.bytesPerChannel = bytesPerChannel;
+        this.order = order;
+
+        var headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+        this.headerLength = headerBytes.length;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        write(ByteBuffer.wrap(headerBytes), 0);
+        // the last byte gives the file its final size, whatever comes in between can be written in any order
+        write(ByteBuffer.wrap(new byte[1]), headerLength + (long) width * height * 3 * bytesPerChannel - 1);
+    }
+
+    public static TileFileWriter p6(Path file, int width, int height, int numColors) throws IOException {
+        if (numColors < 1 || numColors > 65535) {
+            throw new IllegalArgumentException("P6 supports 1 to 65535 colors per channel, not " + numColors);
+        }
+        return new TileFileWriter(file, "P6", BinaryExporter.p6Header(width, height, numColors), width, height, numColors,
+                BinaryExporter.p6BytesPerChannel(numColors), ByteOrder.BIG_ENDIAN);
+    }
+
+    public static TileFileWriter pfm(Path file, int width, int height) throws IOException {
+        return new TileFileWriter(file, "PFM", BinaryExporter.pfmHeader(width, height), width, height, 0, Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void write(Chunk tile, Canvas pixels) {
+        final int tileWidth = tile.xTo() - tile.xFrom() + 1;
+        final int values = tileWidth * 3;
+        final float[] row = row(pixels.getWidth() * 3);
+        final ByteBuffer buffer = buffer(values * bytesPerChannel);
+
+        for (int y = tile.yFrom(); y <= tile.yTo(); y++) {
+            pixels.readRow(y - tile.yFrom(), row);
+            buffer.clear();
+            if (numColors > 0) {
+                BinaryExporter.putP6(buffer, row, values, numColors);
+            } else {
+                BinaryExporter.putPFM(buffer, row, values);
+            }
+            buffer.flip();
+            write(buffer, offset(tile.xFrom(), y));
+        }
+    }
+
+    private long offset(int x, int y) {
+        // PFM stores the rows bottom to top
+        final long row = numColors > 0 ? y : height - 1 - y;
+        return headerLength + (row * width + x) * 3 * bytesPerChannel;
+    }
+
+    private float[] row(int length) {
+        var row = rows.get();
+        if (row == null || row.length < length) {
+            row = new float[length];
+            rows.set(row);
+        }
+        return row;
+    }
+
+    private ByteBuffer buffer(int capacity) {
+        var buffer = buffers.get();
+        if (buffer == null || buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity).order(order);
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    private void write(ByteBuffer buffer, long position) {
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write tile to " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        long nanos = Math.max(1, System.nanoTime() - start);
+        double megaBytes = (headerLength + (double) width * height * 3 * bytesPerChannel) / (1024.0 * 1024.0);
+        Logger.info("Streamed {} {}x{} to {}: {}MB in {}ms (including rendering), {} MB/s", format, width, height, file,
+                "%.1f".formatted(megaBytes), nanos / 1_000_000, "%.1f".formatted(megaBytes / (nanos / 1e9)));
+    }
+}
@@ -0,0 +1,309 @@
+package org.schakalacka.java.raytracing.geometry.objects;
+
+import org.schakalacka.java.raytracing.jfr.BVHBuildEvent;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * Builds a bounding volume hierarchy (BVH) over a list of shapes, using the surface area heuristic (SAH).
+ * <p>
+ * The idea: the chance of a ray hitting a box is proportional to the box' surface area.
+ * So for every possible split of a set of shapes into two halves we can estimate the cost of
+ * intersecting a ray with the result: cost = traversal + (area left * shapes left + area right * shapes right) / area parent.
+ * The split with the lowest estimated cost wins. Instead of trying every possible split,
+ * the shapes are sorted into a fixed number of buckets ("bins") along the longest axis and only the bucket borders are evaluated.
+ * <p>
+ * All bounds are taken in the coordinate system of the shapes' parent, i.e. {@link BoundingBox#getTransformedBounds} of the shape transformation.
+ * Shapes with infinite bounds can't be partitioned, see {@link #partition(List, int)}.
+ */
+public final class BVHBuilder {
+
+    public static final int DEFAULT_MAX_LEAF_SIZE = 4;
+
+    private static final int BIN_COUNT = 12;
+
+    // visiting a group costs about as much as intersecting a shape: both transform the ray and test something.
+    private static final double TRAVERSAL_COST = 1.0;
+
+    /***
+     * A node of the hierarchy. Interior nodes have a left and a right node and no shapes, leaves only have shapes.
+     */
+    public record Node(BoundingBox bounds, Node left, Node right, List<Shape> shapes) {
+        public boolean isLeaf() {
+            return shapes != null;
+        }
+    }
+
+    private final List<Shape> shapes;
+    private final int maxLeafSize;
+
+    // per shape: minX, minY, minZ, maxX, maxY, maxZ
+    private final double[] shapeBounds;
+    // per shape: x, y, z of the center of its bounds
+    private final double[] centroids;
+    // the builder only ever shuffles indices around, never the shapes themselves
+    private final int[] order;
+
+    private final int[] binCounts = new int[BIN_COUNT];
+    private final double[] binBounds = new double[BIN_COUNT * 6];
+    private final double[] rightAreas = new double[BIN_COUNT];
+    private final int[] rightCounts = new int[BIN_COUNT];
+
+    private BVHBuilder(List<Shape> shapes, List<BoundingBox> bounds, int maxLeafSize) {
+        this.shapes = shapes;
+        this.maxLeafSize = Math.max(1, maxLeafSize);
+        this.shapeBounds = new double[shapes.size() * 6];
+        this.centroids = new double[shapes.size() * 3];
+        this.order = new int[shapes.size()];
+
+        for (int i = 0; i < shapes.size(); i++) {
+            BoundingBox box = bounds.get(i);
+            shapeBounds[i * 6] = box.lower().x();
+            shapeBounds[i * 6 + 1] = box.lower().y();
+            shapeBounds[i * 6 + 2] = box.lower().z();
+            shapeBounds[i * 6 + 3] = box.upper().x();
+            shapeBounds[i * 6 + 4] = box.upper().y();
+            shapeBounds[i * 6 + 5] = box.upper().z();
+            centroids[i * 3] = (box.lower().x() + box.upper().x()) / 2;
+            centroids[i * 3 + 1] = (box.lower().y() + box.upper().y()) / 2;
+            centroids[i * 3 + 2] = (box.lower().z() + box.upper().z()) / 2;
+            order[i] = i;
+        }
+    }
+
+    /***
+     * Builds the hierarchy for the given shapes. All of them need finite bounds, see {@link BoundingBox#isInfinite()}.
+     *
+     * @param shapes      a non-null, non-empty list of shapes
+     * @param maxLeafSize the number of shapes a leaf may hold. Larger nodes are always split.
+     * @return the root node of the hierarchy. Never null
+     */
+    public static Node build(List<Shape> shapes, int maxLeafSize) {
+        return build(shapes, shapes.stream().map(shape -> shape.getBounds().getTransformedBounds(shape.getTransformationMatrix())).toList(), maxLeafSize);
+    }
+
+    /***
+     * Same as {@link #build(List, int)}, with the bounds of the shapes given instead of taken in their parent's coordinate system.
+     * E.g. world-space bounds of shapes deep down in transformed groups.
+     *
+     * @param bounds the bounds of each shape, in the same order
+     */
+    public static Node build(List<Shape> shapes, List<BoundingBox> bounds, int maxLeafSize) {
+        if (shapes.isEmpty()) {
+            throw new IllegalArgumentException("Can't build a hierarchy without shapes");
+        }
+        if (bounds.size() != shapes.size()) {
+            throw new IllegalArgumentException("Got " + bounds.size() + " bounds for " + shapes.size() + " shapes");
+        }
+        var event = new BVHBuildEvent();
+        event.begin();
+        var root = new BVHBuilder(shapes, bounds, maxLeafSize).build(0, shapes.size());
+        if (event.shouldCommit()) {
+            event.shapes = shapes.size();
+            event.maxLeafSize = maxLeafSize;
+            event.nodes = countNodes(root);
+            event.depth = depth(root);
+            event.commit();
+        }
+        return root;
+    }
+
+    private static int countNodes(Node node) {
+        return node.isLeaf() ? 1 : 1 + countNodes(node.left()) + countNodes(node.right());
+    }
+
+    private static int depth(Node node) {
+        return node.isLeaf() ? 1 : 1 + Math.max(depth(node.left()), depth(node.right()));
+    }
+
+    /***
+     * Partitions the given shapes into nested {@link Group}s. Shapes with infinite bounds are returned as-is,
+     * as they would blow up every box they are put into.
+     *
+     * @return the shapes that should replace the given ones. When there is nothing to partition, the given shapes
+     */
+    public static List<Shape> partition(List<Shape> shapes, int maxLeafSize) {
+        var infiniteShapes = new ArrayList<Shape>();
+        var finiteShapes = new ArrayList<Shape>();
+        for (Shape shape : shapes) {
+            if (shape.getBounds().getTransformedBounds(shape.getTransformationMatrix()).isInfinite()) {
+                infiniteShapes.add(shape);
+            } else {
+                finiteShapes.add(shape);
+            }
+        }
+
+        if (finiteShapes.size() <= Math.max(1, maxLeafSize)) {
+            return shapes;
+        }
+
+        var root = build(finiteShapes, maxLeafSize);
+        var result = new ArrayList<Shape>(infiniteShapes);
+        result.add(toShape(root.left()));
+        result.add(toShape(root.right()));
+        return result;
+    }
+
+    /***
+     * Turns a node into a shape that can be added to a group or a world:
+     * a leaf with a single shape becomes that shape, every other node becomes a {@link Group}.
+     */
+    public static Shape toShape(Node node) {
+        if (node.isLeaf()) {
+            if (node.shapes().size() == 1) {
+                return node.shapes().get(0);
+            }
+            var group = new Group();
+            node.shapes().forEach(group::addChild);
+            return group;
+        }
+        return new Group().addChild(toShape(node.left())).addChild(toShape(node.right()));
+    }
+
+    private Node build(int start, int end) {
+        double[] nodeBounds = emptyBounds();
+        double[] centroidBounds = emptyBounds();
+        for (int i = start; i < end; i++) {
+            int shape = order[i];
+            grow(nodeBounds, 0, shapeBounds, shape * 6);
+            growPoint(centroidBounds, centroids, shape * 3);
+        }
+
+        int count = end - start;
+        if (count <= maxLeafSize) {
+            return leaf(nodeBounds, start, end);
+        }
+
+        // split along the axis where the centers of the shapes are spread the most
+        int axis = 0;
+        double extent = centroidBounds[3] - centroidBounds[0];
+        for (int a = 1; a < 3; a++) {
+            if (centroidBounds[3 + a] - centroidBounds[a] > extent) {
+                axis = a;
+                extent = centroidBounds[3 + a] - centroidBounds[a];
+            }
+        }
+
+        int mid;
+        if (extent <= 0) {
+            // all centers on top of each other, no heuristic can separate them. Split in half to stay logarithmic
+            mid = (start + end) / 2;
+        } else {
+            mid = splitBySurfaceArea(start, end, axis, centroidBounds[axis], extent, surfaceArea(nodeBounds, 0));
+        }
+
+        return new Node(toBox(nodeBounds, 0), build(start, mid), build(mid, end), null);
+    }
+
+    private int splitBySurfaceArea(int start, int end, int axis, double axisMin, double extent, double nodeArea) {
+        Arrays.fill(binCounts, 0);
+        for (int b = 0; b < BIN_COUNT; b++) {
+            resetBounds(binBounds, b * 6);
+        }
+
+        for (int i = start; i < end; i++) {
+            int shape = order[i];
+            int bin = binIndex(centroids[shape * 3 + axis], axisMin, extent);
+            binCounts[bin]++;
+            grow(binBounds, bin * 6, shapeBounds, shape * 6);
+        }
+
+        // sweep from the right to know area and count of everything right of a bin border...
+        double[] sweep = emptyBounds();
+        int count = 0;
+        for (int b = BIN_COUNT - 1; b > 0; b--) {
+            grow(sweep, 0, binBounds, b * 6);
+            count += binCounts[b];
+            rightAreas[b] = surfaceArea(sweep, 0);
+            rightCounts[b] = count;
+        }
+
+        // ... then from the left to evaluate each border
+        resetBounds(sweep, 0);
+        count = 0;
+        int bestBorder = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        double area = nodeArea > 0 ? nodeArea : 1;
+        for (int b = 1; b < BIN_COUNT; b++) {
+            grow(sweep, 0, binBounds, (b - 1) * 6);
+            count += binCounts[b - 1];
+            if (count == 0 || rightCounts[b] == 0) {
+                continue;
+            }
+            double cost = TRAVERSAL_COST + (surfaceArea(sweep, 0) * count + rightAreas[b] * rightCounts[b]) / area;
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestBorder = b;
+            }
+        }
+
+        if (bestBorder < 0) {
+            return (start + end) / 2;
+        }
+
+        // partition the index range in place: everything left of the border to the front
+        int mid = start;
+        for (int i = start; i < end; i++) {
+            int shape = order[i];
+            if (binIndex(centroids[shape * 3 + axis], axisMin, extent) < bestBorder) {
+                order[i] = order[mid];
+                order[mid] = shape;
+                mid++;
+            }
+        }
+        return mid;
+    }
+
+    private static int binIndex(double centroid, double axisMin, double extent) {
+        int bin = (int) (BIN_COUNT * ((centroid - axisMin) / extent));
+        return Math.min(BIN_COUNT - 1, Math.max(0, bin));
+    }
+
+    private Node leaf(double[] nodeBounds, int start, int end) {
+        var leafShapes = new ArrayList<Shape>(end - start);
+        for (int i = start; i < end; i++) {
+            leafShapes.add(shapes.get(order[i]));
+        }
+        return new Node(toBox(nodeBounds, 0), null, null, leafShapes);
+    }
+
+    private static double[] emptyBounds() {
+        double[] bounds = new double[6];
+        resetBounds(bounds, 0);
+        return bounds;
+    }
+
+    private static void resetBounds(double[] bounds, int offset) {
+        Arrays.fill(bounds, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(bounds, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    private static void grow(double[] bounds, int offset, double[] other, int otherOffset) {
+        for (int a = 0; a < 3; a++) {
+            bounds[offset + a] = Math.min(bounds[offset + a], other[otherOffset + a]);
+            bounds[offset + 3 + a] = Math.max(bounds[offset + 3 + a], other[otherOffset + 3 + a]);
+        }
+    }
+
+    private static void growPoint(double[] bounds, double[] points, int pointOffset) {
+        for (int a = 0; a < 3; a++) {
+            bounds[a] = Math.min(bounds[a], points[pointOffset + a]);
+            bounds[3 + a] = Math.max(bounds[3 + a], points[pointOffset + a]);
+        }
+    }
+
+    private static double surfaceArea(double[] bounds, int offset) {
+        double dx = bounds[offset + 3] - bounds[offset];
+        double dy = bounds[offset + 4] - bounds[offset + 1];
+        double dz = bounds[offset + 5] - bounds[offset + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private static BoundingBox toBox(double[] bounds, int offset) {
+        return new BoundingBox(Tuple.point(bounds[offset], bounds[offset + 1], bounds[offset + 2]),
+                Tuple.point(bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]));
+    }
+}
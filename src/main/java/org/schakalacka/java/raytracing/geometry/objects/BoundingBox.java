@@ -1,19 +1,17 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
 import org.schakalacka.java.raytracing.Constants;
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Matrix;
 import org.schakalacka.java.raytracing.math.RTPoint;
 import org.schakalacka.java.raytracing.math.Tuple;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class BoundingBox {
 
-    private final Map<Matrix, List<Tuple>> transformedCorners = new HashMap<>();
     private final List<Tuple> corners;
 
     private final RTPoint lower;
@@ -55,8 +53,10 @@ public class BoundingBox {
 
     public BoundingBox getTransformedBounds(Matrix scaleMatrix) {
         var transformedCorners = getTransformedCorners(scaleMatrix);
+        // start with an inverted box, otherwise the origin would always end up inside the transformed bounds
         double minX, minY, minZ, maxX, maxY, maxZ;
-        minX = minY = minZ = maxX = maxY = maxZ = 0;
+        minX = minY = minZ = Double.POSITIVE_INFINITY;
+        maxX = maxY = maxZ = Double.NEGATIVE_INFINITY;
 
         for (Tuple corner : transformedCorners) {
             minX = Math.min(minX, corner.x());
@@ -79,16 +79,14 @@ public class BoundingBox {
         return corners;
     }
 
+    // not cached: boxes are shared between threads, and a map per box keyed by matrix only ever grew.
+    // Transforming 8 corners is cheap, and it only happens while building groups and hierarchies
     public List<Tuple> getTransformedCorners(Matrix matrix) {
-        return transformedCorners.computeIfAbsent(matrix, k -> {
-            var originalCornerList = getCorners();
-            var transformedCorners = new ArrayList<Tuple>();
-
-            for (Tuple corner : originalCornerList) {
-                transformedCorners.add(matrix.mulT(corner));
-            }
-            return transformedCorners;
-        });
+        var transformedCorners = new ArrayList<Tuple>(corners.size());
+        for (Tuple corner : corners) {
+            transformedCorners.add(matrix.mulT(corner));
+        }
+        return transformedCorners;
     }
 
     public boolean contains(RTPoint point) {
@@ -109,39 +107,81 @@ public class BoundingBox {
     }
 
     public boolean intersects(Ray ray) {
-        double[] xminMax = checkAxis(lower.x(), upper.x(), ray.origin().x(), ray.direction().x());
-        double[] yminMax = checkAxis(lower.y(), upper.y(), ray.origin().y(), ray.direction().y());
-        double[] zminMax = checkAxis(lower.z(), upper.z(), ray.origin().z(), ray.direction().z());
-
-        double tmin = Math.max(xminMax[0], Math.max(yminMax[0], zminMax[0]));
-        double tmax = Math.min(xminMax[1], Math.min(yminMax[1], zminMax[1]));
-
-        return !(tmin > tmax);
+        return intersects(ray, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
 
+    /***
+     * @return true, if the ray passes through this box somewhere between the two distances
+     */
+    public boolean intersects(Ray ray, double minDistance, double maxDistance) {
+        final Tuple origin = ray.origin();
+        final Tuple direction = ray.direction();
+
+        double tmin = Math.max(near(lower.x(), upper.x(), origin.x(), direction.x()),
+                Math.max(near(lower.y(), upper.y(), origin.y(), direction.y()), near(lower.z(), upper.z(), origin.z(), direction.z())));
+        double tmax = Math.min(far(lower.x(), upper.x(), origin.x(), direction.x()),
+                Math.min(far(lower.y(), upper.y(), origin.y(), direction.y()), far(lower.z(), upper.z(), origin.z(), direction.z())));
+
+        // written as negations, so NaN (origin on a slab of a parallel ray) counts as hit
+        boolean hit = !(tmin > tmax) && !(tmax < minDistance) && !(tmin > maxDistance);
+        Metrics.count(Metrics.Event.BOX_TEST);
+        if (!hit) {
+            Metrics.count(Metrics.Event.BOX_MISS);
+        }
+        return hit;
     }
 
-    // TODO this and the intersect thing is a copy of the Cube implementation. Can we refactor/deduplicate?
-    // sadly, a bounding box isn't a cube, but a cube might be a AABB?
-    private double[] checkAxis(double min, double max, double origin, double direction) {
-        var tminNumerator = min - origin;
-        var tmaxNumerator = max - origin;
+    // the slab test per axis, shared with Cube (a box from -1 to 1).
+    // near and far are separate methods, the array that used to hold both was garbage for every ray and box
+    static double near(double min, double max, double origin, double direction) {
+        return Math.min(slab(min, origin, direction), slab(max, origin, direction));
+    }
 
-        double tmin;
-        double tmax;
+    static double far(double min, double max, double origin, double direction) {
+        return Math.max(slab(min, origin, direction), slab(max, origin, direction));
+    }
 
+    private static double slab(double side, double origin, double direction) {
+        var numerator = side - origin;
         if (Math.abs(direction) >= Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            tmin = tminNumerator / direction;
-            tmax = tmaxNumerator / direction;
+            return numerator / direction;
         } else {
-            tmin = tminNumerator * Constants.POSITIVE_INFINITY;
-            tmax = tmaxNumerator * Constants.POSITIVE_INFINITY;
+            return numerator * Constants.POSITIVE_INFINITY;
         }
+    }
 
-        if (tmin > tmax) {
-            return new double[]{tmax, tmin};
-        } else {
-            return new double[]{tmin, tmax};
-        }
+    /***
+     * Creates a new box that encloses this box and the given one. Neither box is modified.
+     * @param that another box. Not null
+     * @return a new box, never null
+     */
+    public BoundingBox merge(BoundingBox that) {
+        return new BoundingBox(
+                Tuple.point(Math.min(lower.x(), that.lower.x()), Math.min(lower.y(), that.lower.y()), Math.min(lower.z(), that.lower.z())),
+                Tuple.point(Math.max(upper.x(), that.upper.x()), Math.max(upper.y(), that.upper.y()), Math.max(upper.z(), that.upper.z())));
+    }
+
+    /***
+     * A box is considered infinite as soon as one of its sides reaches out to (roughly) one of our infinity constants.
+     * Rotated infinite shapes (planes, open cylinders) don't end up exactly on the constants, hence the generous threshold.
+     * Empty (inverted) boxes count as infinite as well, they can't take part in any spatial partitioning.
+     */
+    public boolean isInfinite() {
+        final double limit = Constants.POSITIVE_INFINITY / 2;
+        return lower.x() > upper.x() || lower.y() > upper.y() || lower.z() > upper.z()
+                || Math.abs(lower.x()) >= limit || Math.abs(lower.y()) >= limit || Math.abs(lower.z()) >= limit
+                || Math.abs(upper.x()) >= limit || Math.abs(upper.y()) >= limit || Math.abs(upper.z()) >= limit;
+    }
+
+    /***
+     * The surface area is what the surface area heuristic of the {@link BVHBuilder} is built upon:
+     * the probability of a random ray hitting a box is proportional to its surface area.
+     */
+    public double surfaceArea() {
+        double dx = upper.x() - lower.x();
+        double dy = upper.y() - lower.y();
+        double dz = upper.z() - lower.z();
+        return 2 * (dx * dy + dy * dz + dz * dx);
     }
 
     public void addPoint(RTPoint point) {
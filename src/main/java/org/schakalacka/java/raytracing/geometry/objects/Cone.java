@@ -1,13 +1,10 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class Cone extends Cylinder {
 
 
@@ -20,9 +17,7 @@ public class Cone extends Cylinder {
     }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
-        var intersections = new ArrayList<Intersection>();
-
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
         final Tuple direction = ray.direction();
         final Tuple origin = ray.origin();
 
@@ -31,16 +26,16 @@ public class Cone extends Cylinder {
         var c = Math.pow(origin.x(),2) - Math.pow(origin.y(), 2) + Math.pow(origin.z(),2);
 
         if (Math.abs(a) <= Constants.SHAPE_POINT_OFFSET_EPSILON && Math.abs(b) <= Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            return List.of();
+            return;
         } else if (Math.abs(a) <= Constants.SHAPE_POINT_OFFSET_EPSILON && Math.abs(b) > Constants.SHAPE_POINT_OFFSET_EPSILON) {
             var t = -c / (2 * b);
-            intersections.add(new Intersection(this, t));
+            intersections.add(this, t);
         } else {
 
             var discriminant = Math.pow(b, 2) - 4 * a * c;
 
             if (discriminant < 0) {
-                return List.of();
+                return;
             }
 
             double t0 = (-b - Math.sqrt(discriminant)) / (2 * a);
@@ -55,39 +50,34 @@ public class Cone extends Cylinder {
 
             var y0 = origin.y() + t0 * direction.y();
             if (this.minimum < y0 && y0 < this.maximum) {
-                intersections.add(new Intersection(this, t0));
+                intersections.add(this, t0);
             }
             var y1 = origin.y() + t1 * direction.y();
             if (this.minimum < y1 && y1 < this.maximum) {
-                intersections.add(new Intersection(this, t1));
+                intersections.add(this, t1);
             }
         }
-        intersections.addAll(this.intersectCaps(ray));
-        return intersections;
+        this.intersectCaps(ray, intersections);
     }
 
-    private List<Intersection> intersectCaps(Ray ray) {
-        var intersections = new ArrayList<Intersection>();
-
+    private void intersectCaps(Ray ray, IntersectionBuffer intersections) {
         if (!this.isClosed || Math.abs(ray.direction().y()) < Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            return intersections;
+            return;
         }
 
         // Check for an intersection with the lower end cap by intersecting
         // the ray with the plane at y=cylinder.minimum
         var t = (this.minimum - ray.origin().y()) / ray.direction().y();
         if (this.checkCaps(ray, t, this.minimum)) {
-            intersections.add(new Intersection(this, t));
+            intersections.add(this, t);
         }
 
         // Check for an intersection with the upper end cap by intersecting
         // the ray with the plane at y=cylinder.maximum
         t = (this.maximum - ray.origin().y()) / ray.direction().y();
         if (this.checkCaps(ray, t, this.maximum)) {
-            intersections.add(new Intersection(this, t));
+            intersections.add(this, t);
         }
-
-        return intersections;
     }
 
     boolean checkCaps(Ray ray, double distance, double y) {
@@ -1,12 +1,9 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
-import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 
-import java.util.List;
-
 public class Cube extends Shape {
     @Override
     public BoundingBox getBounds() {
@@ -14,40 +11,18 @@ public class Cube extends Shape {
     }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
-        double[] xminMax = checkAxis(ray.origin().x(), ray.direction().x());
-        double[] yminMax = checkAxis(ray.origin().y(), ray.direction().y());
-        double[] zminMax = checkAxis(ray.origin().z(), ray.direction().z());
-
-        double tmin = Math.max(xminMax[0], Math.max(yminMax[0], zminMax[0]));
-        double tmax = Math.min(xminMax[1], Math.min(yminMax[1], zminMax[1]));
-
-        if (tmin > tmax) {
-            return List.of();
-        } else {
-            return List.of(new Intersection(this,  tmin), new Intersection(this,  tmax));
-        }
-    }
-
-    private double[] checkAxis(double origin, double direction) {
-        var tminNumerator = -1 - origin;
-        var tmaxNumerator = 1 - origin;
-
-        double tmin;
-        double tmax;
-
-        if (Math.abs(direction) >= Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            tmin = tminNumerator / direction;
-            tmax = tmaxNumerator / direction;
-        } else {
-            tmin = tminNumerator * Constants.POSITIVE_INFINITY;
-            tmax = tmaxNumerator * Constants.POSITIVE_INFINITY;
-        }
-
-        if (tmin > tmax) {
-            return new double[]{tmax, tmin};
-        } else {
-            return new double[]{tmin, tmax};
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
+        final Tuple origin = ray.origin();
+        final Tuple direction = ray.direction();
+
+        double tmin = Math.max(BoundingBox.near(-1, 1, origin.x(), direction.x()),
+                Math.max(BoundingBox.near(-1, 1, origin.y(), direction.y()), BoundingBox.near(-1, 1, origin.z(), direction.z())));
+        double tmax = Math.min(BoundingBox.far(-1, 1, origin.x(), direction.x()),
+                Math.min(BoundingBox.far(-1, 1, origin.y(), direction.y()), BoundingBox.far(-1, 1, origin.z(), direction.z())));
+
+        if (tmin <= tmax) {
+            intersections.add(this, tmin);
+            intersections.add(this, tmax);
         }
     }
 
@@ -1,13 +1,10 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class Cylinder extends Shape {
 
     final double minimum;
@@ -30,11 +27,11 @@ public class Cylinder extends Shape {
     }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
         var a = Math.pow(ray.direction().x(),2) + Math.pow(ray.direction().z(), 2);
 
         if (!isClosed && a < Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            return List.of();
+            return;
         }
 
         var b = 2 * (ray.origin().x() * ray.direction().x()) + 2 * (ray.origin().z() * ray.direction().z());
@@ -42,7 +39,7 @@ public class Cylinder extends Shape {
         var discriminant = Math.pow(b,2) - 4 * a * c;
 
         if (discriminant < 0) {
-            return List.of();
+            return;
         }
 
         double t0 = (-b - Math.sqrt(discriminant)) / (2 * a);
@@ -54,19 +51,16 @@ public class Cylinder extends Shape {
             t1 = temp;
         }
 
-        var intersections = new ArrayList<Intersection>();
-
         var y0 = ray.origin().y() + t0 * ray.direction().y();
         if (this.minimum < y0 && y0 < this.maximum) {
-            intersections.add(new Intersection(this, t0));
+            intersections.add(this, t0);
         }
         var y1 = ray.origin().y() + t1 * ray.direction().y();
         if (this.minimum < y1 && y1 < this.maximum) {
-            intersections.add(new Intersection(this, t1));
+            intersections.add(this, t1);
         }
 
-        intersections.addAll(this.intersectCaps(ray));
-        return intersections;
+        this.intersectCaps(ray, intersections);
     }
 
     private boolean checkCaps(Ray ray, double distance) {
@@ -74,28 +68,24 @@ public class Cylinder extends Shape {
         var z = ray.origin().z() + distance * ray.direction().z();
         return (x * x + z * z) <= 1;
     }
-    private List<Intersection> intersectCaps(Ray ray) {
-        var intersections = new ArrayList<Intersection>();
-
+    private void intersectCaps(Ray ray, IntersectionBuffer intersections) {
         if (!this.isClosed || Math.abs(ray.direction().y()) < Constants.SHAPE_POINT_OFFSET_EPSILON) {
-            return intersections;
+            return;
         }
 
         // Check for an intersection with the lower end cap by intersecting
         // the ray with the plane at y=cylinder.minimum
         var t = (this.minimum - ray.origin().y()) / ray.direction().y();
         if (this.checkCaps(ray, t)) {
-            intersections.add(new Intersection(this, t));
+            intersections.add(this, t);
         }
 
         // Check for an intersection with the upper end cap by intersecting
         // the ray with the plane at y=cylinder.maximum
         t = (this.maximum - ray.origin().y()) / ray.direction().y();
         if (this.checkCaps(ray, t)) {
-            intersections.add(new Intersection(this, t));
+            intersections.add(this, t);
         }
-
-        return intersections;
     }
 
     @Override
@@ -1,12 +1,12 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 
 public class Group extends Shape {
@@ -26,41 +26,48 @@ public class Group extends Shape {
                     Tuple.point(Constants.POSITIVE_INFINITY, Constants.POSITIVE_INFINITY, Constants.POSITIVE_INFINITY),
                     Tuple.point(Constants.NEGATIVE_INFINITY, Constants.NEGATIVE_INFINITY, Constants.NEGATIVE_INFINITY));
         } else {
-            double minX, minY, minZ, maxX, maxY, maxZ;
-            minX = minY = minZ = maxX = maxY = maxZ = 0;
-
             for (Shape child : children) {
-                BoundingBox childBoundingBox = child.getBounds().getTransformedBounds(child.getTransformationMatrix());
-                minX = Math.min(minX, childBoundingBox.lower().x());
-                minY = Math.min(minY, childBoundingBox.lower().y());
-                minZ = Math.min(minZ, childBoundingBox.lower().z());
-                maxX = Math.max(maxX, childBoundingBox.upper().x());
-                maxY = Math.max(maxY, childBoundingBox.upper().y());
-                maxZ = Math.max(maxZ, childBoundingBox.upper().z());
+                includeInBounds(child);
             }
-
-            this.boundingBox = new BoundingBox(Tuple.point(minX, minY, minZ), Tuple.point(maxX, maxY, maxZ));
-
         }
     }
 
-    public int groupMissCount = 0;
-    public int totalRaysSeen = 0;
+    // growing the box child by child keeps addChild at O(1). Recalculating everything on every add made
+    // building groups with thousands of children quadratic.
+    private void includeInBounds(Shape child) {
+        BoundingBox childBoundingBox = child.getBounds().getTransformedBounds(child.getTransformationMatrix());
+        this.boundingBox = this.boundingBox.merge(childBoundingBox);
+    }
 
+    @Override
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
+        // in closest-hit mode, a box starting beyond the current hit can't contain anything closer
+        if (!boundingBox.intersects(ray, intersections.minDistance(), intersections.maxDistance())) {
+            return;
+        }
+        // the buffer keeps itself sorted, the children simply add to it
+        for (Shape child : children) {
+            child.intersect(ray, intersections);
+            if (intersections.isComplete()) {
+                return;
+            }
+        }
+    }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
-           totalRaysSeen++;
-        if (!boundingBox.intersects(ray)) {
-            groupMissCount++;
-            return new ArrayList<>();
+    protected void updateWorldMatrices() {
+        super.updateWorldMatrices();
+        for (Shape child : children) {
+            child.updateWorldMatrices();
         }
-        var intersections = new ArrayList<Intersection>();
+    }
+
+    @Override
+    public void freeze() {
+        super.freeze();
         for (Shape child : children) {
-            intersections.addAll(child.intersect(ray));
+            child.freeze();
         }
-        intersections.sort(Comparator.comparingDouble(Intersection::getDistance));
-        return intersections;
     }
 
     @Override
@@ -69,13 +76,38 @@ public class Group extends Shape {
     }
 
     public List<Shape> getChildren() {
-        return children;
+        return isFrozen() ? Collections.unmodifiableList(children) : children;
     }
 
     public Group addChild(Shape s) {
+        checkNotFrozen();
         children.add(s);
         s.setParent(this);
+        includeInBounds(s);
+        return this;
+    }
+
+    /***
+     * Re-arranges the children of this group into a bounding volume hierarchy, see {@link BVHBuilder}.
+     * Children with infinite bounds (planes, open cylinders...) stay direct children of this group.
+     * The transformation of this group is left untouched, so the group renders exactly as before.
+     *
+     * @param maxLeafSize the number of shapes a leaf-group may hold before the builder tries to split it
+     * @return this group
+     */
+    public Group divide(int maxLeafSize) {
+        checkNotFrozen();
+        var previousChildren = new ArrayList<>(children);
+        children.clear();
         calculateBounds();
+
+        for (Shape child : BVHBuilder.partition(previousChildren, maxLeafSize)) {
+            addChild(child);
+        }
         return this;
     }
+
+    public Group divide() {
+        return divide(BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
+    }
 }
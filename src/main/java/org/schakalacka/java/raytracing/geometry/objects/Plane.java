@@ -1,13 +1,10 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 
-import java.util.Collections;
-import java.util.List;
-
 import static org.schakalacka.java.raytracing.Constants.SHAPE_POINT_OFFSET_EPSILON;
 
 /***
@@ -21,13 +18,13 @@ public class Plane extends Shape {
     }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
         if (Math.abs(ray.direction().y()) < SHAPE_POINT_OFFSET_EPSILON) {
-            return Collections.emptyList();
+            return;
         }
 
         double distance = -ray.origin().y() / ray.direction().y();
-        return Collections.singletonList(new Intersection(this, distance));
+        intersections.add(this, distance);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Matrix;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
@@ -9,12 +11,28 @@ import org.schakalacka.java.raytracing.scene.Material;
 
 import java.util.List;
 
+/***
+ * Everything a shape needs per ray is derived from its transformation (and the one of its parents) once, when it changes:
+ * <ul>
+ *     <li>the inverse, to transform rays into object space</li>
+ *     <li>the normal matrix: the transposed inverse of the upper 3x3 part, to transform normals back into world space</li>
+ *     <li>the same two for the whole chain of parent groups, so converting points and normals doesn't need to walk up the groups</li>
+ * </ul>
+ * The hot path only multiplies. Transformation matrices are treated as immutable: changing a matrix after setting it isn't noticed.
+ * <p>
+ * {@link #freeze()} makes the shape read-only, see {@link org.schakalacka.java.raytracing.world.World#compile()}.
+ */
 public abstract class Shape {
 
     protected Matrix transformationMatrix = MatrixProvider.get(4, true);
-    protected Matrix subMatrix3 = transformationMatrix.subM(3, 3);
     protected Material material = Material.newMaterial().create();
     private Group parent = null;
+    private boolean frozen = false;
+
+    private Matrix inverseTransformationMatrix = MatrixProvider.get(4, true);
+    private Matrix normalMatrix = MatrixProvider.get(3, true);
+    private Matrix worldToObjectMatrix = inverseTransformationMatrix;
+    private Matrix normalToWorldMatrix = normalMatrix;
 
     /***
      * Returns the bounds of the shape in its local coordinate system.
@@ -22,10 +40,29 @@ public abstract class Shape {
      */
     public abstract BoundingBox getBounds();
 
-    public abstract List<Intersection> localIntersect(Ray ray);
+    /***
+     * Adds all intersections of the given object-space ray with this shape to the buffer.
+     */
+    public abstract void localIntersect(Ray ray, IntersectionBuffer intersections);
+
+    public List<Intersection> localIntersect(Ray ray) {
+        var intersections = new IntersectionBuffer();
+        this.localIntersect(ray, intersections);
+        return intersections.toList();
+    }
+
+    public void intersect(Ray ray, IntersectionBuffer intersections) {
+        // a group only tests its bounding box, which counts as box test
+        if (Metrics.ENABLED && !(this instanceof Group)) {
+            Metrics.count(Metrics.Event.SHAPE_TEST);
+        }
+        this.localIntersect(ray.transform(inverseTransformationMatrix), intersections);
+    }
 
     public List<Intersection> intersect(Ray ray) {
-        return this.localIntersect(ray.transform(transformationMatrix.inverse()));
+        var intersections = new IntersectionBuffer();
+        this.intersect(ray, intersections);
+        return intersections.toList();
     }
 
     public abstract Tuple localNormalVectorAt(Tuple point);
@@ -42,11 +79,46 @@ public abstract class Shape {
     }
 
     public void setTransformationMatrix(Matrix matrix) {
+        checkNotFrozen();
         this.transformationMatrix = matrix;
-        this.subMatrix3 = transformationMatrix.subM(3, 3);
+        this.inverseTransformationMatrix = matrix.inverse();
+        this.normalMatrix = matrix.subM(3, 3).inverse().transpose();
+        updateWorldMatrices();
+    }
+
+    public Matrix getInverseTransformationMatrix() {
+        return inverseTransformationMatrix;
+    }
+
+    /***
+     * @return the matrix converting a world-space point into object space, including all parent groups
+     */
+    public Matrix getWorldToObjectMatrix() {
+        return worldToObjectMatrix;
+    }
+
+    /***
+     * @return the 3x3 matrix converting an object-space normal into world space, including all parent groups. The result needs normalizing.
+     */
+    public Matrix getNormalToWorldMatrix() {
+        return normalToWorldMatrix;
+    }
+
+    /***
+     * Combines the own matrices with the ones of the parent. Groups pass the update on to their children.
+     */
+    protected void updateWorldMatrices() {
+        if (parent == null) {
+            this.worldToObjectMatrix = inverseTransformationMatrix;
+            this.normalToWorldMatrix = normalMatrix;
+        } else {
+            this.worldToObjectMatrix = inverseTransformationMatrix.mulM(parent.getWorldToObjectMatrix());
+            this.normalToWorldMatrix = parent.getNormalToWorldMatrix().mulM(normalMatrix);
+        }
     }
 
     public void setMaterial(Material material) {
+        checkNotFrozen();
         this.material = material;
     }
 
@@ -59,25 +131,41 @@ public abstract class Shape {
     }
 
     protected void setParent(Group group) {
+        checkNotFrozen();
         this.parent = group;
+        updateWorldMatrices();
     }
 
-    public Tuple worldToObject(Tuple point) {
-        if (parent != null) {
-            point = parent.worldToObject(point);
+    /***
+     * Makes this shape read-only: changing its transformation, material or parent throws an IllegalStateException from now on.
+     * The pattern of the material is frozen as well. There is no way back.
+     */
+    public void freeze() {
+        this.frozen = true;
+        if (material.pattern() != null) {
+            material.pattern().freeze();
         }
-        return this.transformationMatrix.inverse().mulT(point);
     }
 
-    public Tuple normalToWorld(Tuple vector) {
-        var normal = this.subMatrix3.inverse().transpose().mulT(vector);
-        assert normal.w() == 0;
-        normal = normal.normalize();
-        if (parent != null) {
-            normal = parent.normalToWorld(normal);
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Shape is frozen, it is part of a compiled scene: " + this);
         }
+    }
 
-        return normal;
+    public Tuple worldToObject(Tuple point) {
+        return this.worldToObjectMatrix.mulT(point);
+    }
+
+    public Tuple normalToWorld(Tuple vector) {
+        // normalizing once at the end gives the same direction as normalizing after every parent
+        var normal = this.normalToWorldMatrix.mulT(vector);
+        assert normal.w() == 0;
+        return normal.normalize();
     }
 
 
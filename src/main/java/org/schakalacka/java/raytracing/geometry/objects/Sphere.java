@@ -1,13 +1,10 @@
 package org.schakalacka.java.raytracing.geometry.objects;
 
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.math.Tuple;
 import org.schakalacka.java.raytracing.scene.Material;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
 import java.util.Objects;
 
 public class Sphere extends Shape {
@@ -41,12 +38,10 @@ public class Sphere extends Shape {
     }
 
     @Override
-    public List<Intersection> localIntersect(Ray ray) {
+    public void localIntersect(Ray ray, IntersectionBuffer intersections) {
         // yes, magical. This seems to be about World Space vs Object Space conversion? Maybe not?
         // at least I understand the following analogy:
         //      transform sphere relative to ray ==== inverse-transform ray relative to sphere
-        List<Intersection> result = new ArrayList<>();
-
         var vectorSphereToRay = ray.origin().sub(Tuple.point(0, 0, 0));
         var a = ray.direction().dot(ray.direction());
         var b = 2 * ray.direction().dot(vectorSphereToRay);
@@ -55,12 +50,9 @@ public class Sphere extends Shape {
         var discriminant = b * b - 4 * a * c;
 
         if (discriminant >= 0) {
-            result.add(new Intersection(this, (-b - Math.sqrt(discriminant)) / (2 * a)));
-            result.add(new Intersection(this, (-b + Math.sqrt(discriminant)) / (2 * a)));
-            result.sort(Comparator.comparingDouble(Intersection::getDistance));
+            intersections.add(this, (-b - Math.sqrt(discriminant)) / (2 * a));
+            intersections.add(this, (-b + Math.sqrt(discriminant)) / (2 * a));
         }
-
-        return result;
     }
 
     @Override
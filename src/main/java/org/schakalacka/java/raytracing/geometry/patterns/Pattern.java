@@ -9,12 +9,15 @@ import org.schakalacka.java.raytracing.scene.Color;
 public abstract class Pattern {
 
     private Matrix transformationMatrix = MatrixProvider.get(4,true);
+    // computed once per transformation, patterns are evaluated for every shaded point
+    private Matrix inverseTransformationMatrix = MatrixProvider.get(4,true);
+    private boolean frozen = false;
 
     public abstract Color patternAt(Tuple point);
 
     public final Color patternAtShape(Shape shape, Tuple worldPoint) {
         Tuple objectPoint = shape.worldToObject(worldPoint);
-        Tuple patternPoint = this.getTransformationMatrix().inverse().mulT(objectPoint);
+        Tuple patternPoint = this.inverseTransformationMatrix.mulT(objectPoint);
         return patternAt(patternPoint);
     }
 
@@ -23,7 +26,22 @@ public abstract class Pattern {
     }
 
     public void setTransformationMatrix(Matrix transformationMatrix) {
+        if (frozen) {
+            throw new IllegalStateException("Pattern is frozen, it is part of a compiled scene: " + this);
+        }
         this.transformationMatrix = transformationMatrix;
+        this.inverseTransformationMatrix = transformationMatrix.inverse();
+    }
+
+    /***
+     * Makes the transformation read-only, see {@link Shape#freeze()}.
+     */
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package org.schakalacka.java.raytracing.geometry.tracing;
+
+import org.schakalacka.java.raytracing.geometry.objects.Shape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * A reusable, always sorted collection of intersections along one ray.
+ * <p>
+ * Instead of a list of {@link Intersection} objects, the distances and the intersected shapes are kept in two parallel arrays.
+ * New intersections are inserted at their sorted position (after equal distances, so the order is the one a stable sort would give).
+ * A ray rarely hits more than a handful of surfaces, so the insertion is cheaper than sorting afterwards.
+ * The arrays only grow, once they are big enough for a scene, collecting intersections doesn't create garbage anymore.
+ * <p>
+ * {@link #forCurrentThread()} hands out one buffer per thread. The buffer is cleared every time it's handed out,
+ * so read everything you need from it before tracing the next ray (shadow rays, reflections...).
+ * <p>
+ * In closest-hit mode ({@link #closestHitForCurrentThread()}) the buffer only keeps the nearest intersection in front of the ray origin.
+ * Its distance is the running {@link #maxDistance()}: groups and bounding volume hierarchies skip everything that starts beyond it.
+ * <p>
+ * In occlusion mode ({@link #occlusionForCurrentThread(double)}) the buffer waits for the first shadow casting surface between the
+ * ray origin and a maximum distance. Once it has one, it is {@link #isComplete()} and whoever fills it can stop.
+ */
+public final class IntersectionBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final ThreadLocal<IntersectionBuffer> PER_THREAD = ThreadLocal.withInitial(IntersectionBuffer::new);
+
+    private double[] distances = new double[INITIAL_CAPACITY];
+    private Shape[] shapes = new Shape[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private enum Mode {ALL, CLOSEST_HIT, ANY_OCCLUDER}
+
+    private Mode mode = Mode.ALL;
+    private double maxDistance = Double.POSITIVE_INFINITY;
+
+    /***
+     * @return the cleared buffer of the calling thread
+     */
+    public static IntersectionBuffer forCurrentThread() {
+        var buffer = PER_THREAD.get();
+        buffer.clear();
+        buffer.mode = Mode.ALL;
+        return buffer;
+    }
+
+    /***
+     * @return the cleared buffer of the calling thread, only collecting the closest hit
+     */
+    public static IntersectionBuffer closestHitForCurrentThread() {
+        var buffer = PER_THREAD.get();
+        buffer.clear();
+        buffer.mode = Mode.CLOSEST_HIT;
+        return buffer;
+    }
+
+    /***
+     * @param maxDistance surfaces at or beyond this distance don't occlude anything, e.g. because they are behind the light
+     * @return the cleared buffer of the calling thread, looking for any shadow casting surface closer than maxDistance
+     */
+    public static IntersectionBuffer occlusionForCurrentThread(double maxDistance) {
+        var buffer = PER_THREAD.get();
+        buffer.clear();
+        buffer.mode = Mode.ANY_OCCLUDER;
+        buffer.maxDistance = maxDistance;
+        return buffer;
+    }
+
+    public void add(Shape shape, double distance) {
+        if (mode == Mode.CLOSEST_HIT) {
+            // same rule as a hit: in front of the ray origin
+            if (distance > 0 && distance < maxDistance) {
+                keepOnly(shape, distance);
+            }
+            return;
+        }
+        if (mode == Mode.ANY_OCCLUDER) {
+            if (size == 0 && distance > 0 && distance < maxDistance && shape.material().createsShadow()) {
+                keepOnly(shape, distance);
+            }
+            return;
+        }
+
+        if (size == distances.length) {
+            distances = Arrays.copyOf(distances, size * 2);
+            shapes = Arrays.copyOf(shapes, size * 2);
+        }
+
+        int index = size;
+        while (index > 0 && distances[index - 1] > distance) {
+            distances[index] = distances[index - 1];
+            shapes[index] = shapes[index - 1];
+            index--;
+        }
+        distances[index] = distance;
+        shapes[index] = shape;
+        size++;
+    }
+
+    private void keepOnly(Shape shape, double distance) {
+        distances[0] = distance;
+        shapes[0] = shape;
+        size = 1;
+        maxDistance = distance;
+    }
+
+    /***
+     * @return true, if adding more intersections can't change the result anymore: an occluder has been found
+     */
+    public boolean isComplete() {
+        return mode == Mode.ANY_OCCLUDER && size > 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /***
+     * @return intersections closer than this don't matter. Negative infinity, unless only the closest hit or an occluder is searched.
+     */
+    public double minDistance() {
+        return mode == Mode.ALL ? Double.NEGATIVE_INFINITY : 0;
+    }
+
+    /***
+     * @return intersections beyond this don't matter. Infinity when collecting all intersections,
+     * the distance of the current closest hit in closest-hit mode and the given maximum (or the occluder) in occlusion mode.
+     */
+    public double maxDistance() {
+        return maxDistance;
+    }
+
+    public double distance(int index) {
+        return distances[index];
+    }
+
+    public Shape shape(int index) {
+        return shapes[index];
+    }
+
+    /***
+     * @return the index of the first intersection in front of the ray origin, or -1 if there is none
+     */
+    public int hitIndex() {
+        for (int i = 0; i < size; i++) {
+            if (distances[i] > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Intersection get(int index) {
+        return new Intersection(shapes[index], distances[index]);
+    }
+
+    public void clear() {
+        // drop the references, a buffer of a long-living thread shouldn't keep old scenes alive
+        Arrays.fill(shapes, 0, size, null);
+        size = 0;
+        maxDistance = Double.POSITIVE_INFINITY;
+    }
+
+    public List<Intersection> toList() {
+        var result = new ArrayList<Intersection>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+}
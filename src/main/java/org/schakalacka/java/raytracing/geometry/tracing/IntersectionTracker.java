@@ -2,36 +2,155 @@ package org.schakalacka.java.raytracing.geometry.tracing;
 
 import org.schakalacka.java.raytracing.geometry.objects.Shape;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/***
+ * Remembers the intersections registered per shape, sorted by distance. Meant for debugging and tests.
+ * <p>
+ * A tracker is a plain object without any locking, used by one thread at a time. The static methods work on the tracker
+ * of the current thread (see {@link #current()}), so threads rendering in parallel never share one.
+ * <p>
+ * Memory is bounded: a tracker holds at most maxShapes shapes (dropping the least recently used)
+ * and at most maxPerShape intersections per shape (dropping the farthest ones, the hit is always among the closest).
+ * Inserting is a binary search plus a copy within those bounds.
+ */
 public class IntersectionTracker {
 
-    private static final Map<Shape, List<Intersection>> intersections = new HashMap<>();
+    public static final int DEFAULT_MAX_SHAPES = 1024;
+    public static final int DEFAULT_MAX_PER_SHAPE = 64;
+
+    private static final ThreadLocal<IntersectionTracker> CURRENT = ThreadLocal.withInitial(IntersectionTracker::new);
+
+    private final int maxPerShape;
+    private final Map<Shape, Tracked> intersections;
+
+    /***
+     * The intersections of one shape, sorted by distance in the first size slots.
+     */
+    private static final class Tracked {
+        private Intersection[] sorted;
+        private int size = 0;
+
+        private Tracked(int capacity) {
+            this.sorted = new Intersection[capacity];
+        }
+    }
+
+    public IntersectionTracker() {
+        this(DEFAULT_MAX_SHAPES, DEFAULT_MAX_PER_SHAPE);
+    }
+
+    public IntersectionTracker(int maxShapes, int maxPerShape) {
+        if (maxShapes < 1 || maxPerShape < 1) {
+            throw new IllegalArgumentException("A tracker needs room for at least one intersection, not " + maxShapes + "x" + maxPerShape);
+        }
+        this.maxPerShape = maxPerShape;
+        // access order: the eldest entry is the least recently used shape
+        this.intersections = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Shape, Tracked> eldest) {
+                return size() > maxShapes;
+            }
+        };
+    }
+
+    /***
+     * @return the tracker of the current thread
+     */
+    public static IntersectionTracker current() {
+        return CURRENT.get();
+    }
 
     public static void reset() {
-        intersections.clear();
+        current().clear();
     }
 
     public static void register(Intersection intersection) {
+        current().add(intersection);
+    }
+
+    public static List<Intersection> get(Shape object) {
+        return current().intersectionsOf(object);
+    }
+
+    public void clear() {
+        intersections.clear();
+    }
+
+    public void add(Intersection intersection) {
         final var intersectedObject = intersection.getIntersectedObject();
-        final List<Intersection> registeredIntersections = intersections.computeIfAbsent(intersectedObject, (o) -> new ArrayList<>());
-        registeredIntersections.add(new Intersection(intersectedObject, intersection.getDistance()));
-        registeredIntersections.sort(Comparator.comparingDouble(Intersection::getDistance));
+        final var tracked = intersections.computeIfAbsent(intersectedObject, o -> new Tracked(Math.min(4, maxPerShape)));
+        final double distance = intersection.getDistance();
+
+        int index = insertionPoint(tracked, distance);
+        if (index >= maxPerShape) {
+            // farther than everything kept, and there is no room left
+            return;
+        }
+        if (tracked.size == tracked.sorted.length && tracked.size < maxPerShape) {
+            tracked.sorted = Arrays.copyOf(tracked.sorted, Math.min(maxPerShape, tracked.size * 2));
+        }
+        int moved = Math.min(tracked.size, tracked.sorted.length - 1) - index;
+        System.arraycopy(tracked.sorted, index, tracked.sorted, index + 1, moved);
+        tracked.sorted[index] = new Intersection(intersectedObject, distance);
+        tracked.size = Math.min(tracked.size + 1, tracked.sorted.length);
     }
 
+    // after all intersections with the same distance, so equal ones keep the order they were registered in
+    private static int insertionPoint(Tracked tracked, double distance) {
+        int low = 0;
+        int high = tracked.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tracked.sorted[middle].getDistance() <= distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
 
-    public static List<Intersection> get(Shape object) {
-        return Collections.unmodifiableList(intersections.get(object));
+    /***
+     * @return the intersections of the shape sorted by distance, empty if there are none
+     */
+    public List<Intersection> intersectionsOf(Shape object) {
+        var tracked = intersections.get(object);
+        if (tracked == null) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(Arrays.asList(tracked.sorted).subList(0, tracked.size));
+    }
+
+    public int trackedShapes() {
+        return intersections.size();
     }
 
     /***
-     *
-     * @param intersections a non-null list of Intersections to check for a hit
+     * @param intersections a non-null list of Intersections to check for a hit, in any order
      * @return exactly one intersection, representing a hit or null, if there was no hit
      */
     public static Intersection getHit(List<Intersection> intersections) {
-        Optional<Intersection> firstPositive = intersections.stream().filter(intersection -> intersection.getDistance() > 0).findFirst();
+        Intersection hit = null;
+        for (int i = 0, size = intersections.size(); i < size; i++) {
+            var intersection = intersections.get(i);
+            if (intersection.getDistance() > 0 && (hit == null || intersection.getDistance() < hit.getDistance())) {
+                hit = intersection;
+            }
+        }
+        return hit;
+    }
 
-        return firstPositive.orElse(null);
+    /***
+     * Same as {@link #getHit(List)}, reading the sorted buffer directly.
+     * @return exactly one intersection, representing a hit or null, if there was no hit
+     */
+    public static Intersection getHit(IntersectionBuffer intersections) {
+        int hitIndex = intersections.hitIndex();
+        return hitIndex < 0 ? null : intersections.get(hitIndex);
     }
 }
@@ -43,12 +43,13 @@ public class Precalc {
         this.encounteredIntersections = intersections;
         this.hit = intersection;
 
-        if (object.normalVectorAt(point).dot(eyeVector) < 0) {
+        var surfaceNormal = object.normalVectorAt(point);
+        if (surfaceNormal.dot(eyeVector) < 0) {
             this.inside = true;
-            this.normalVector = object.normalVectorAt(point).negate();
+            this.normalVector = surfaceNormal.negate();
         } else {
             this.inside = false;
-            this.normalVector = object.normalVectorAt(point);
+            this.normalVector = surfaceNormal;
         }
 
         this.reflectVector = ray.direction().reflect(normalVector);
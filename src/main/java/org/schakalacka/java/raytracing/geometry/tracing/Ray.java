@@ -10,8 +10,8 @@ public record Ray(Tuple origin, Tuple direction) {
     }
 
     public Ray transform(Matrix translation) {
-        var newOrigin = translation.mulT(origin);
-        var newDirection = translation.mulT(direction);
+        var newOrigin = translation.mulPoint(origin);
+        var newDirection = translation.mulVector(direction);
         return new Ray(newOrigin, newDirection);
     }
 }
@@ -0,0 +1,29 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/***
+ * Building a bounding volume hierarchy with the BVHBuilder, for a FlatBVH or the groups of World.divide and Group.divide.
+ */
+@Name("raytracer.BVHBuild")
+@Label("BVH Build")
+@Category("Raytracer")
+@StackTrace(false)
+public final class BVHBuildEvent extends Event {
+
+    @Label("Shapes")
+    public int shapes;
+
+    @Label("Max Leaf Size")
+    public int maxLeafSize;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Depth")
+    public int depth;
+}
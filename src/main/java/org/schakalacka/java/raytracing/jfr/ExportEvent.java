@@ -0,0 +1,63 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/***
+ * Writing a canvas to a file.
+ */
+@Name("raytracer.Export")
+@Label("Export")
+@Category("Raytracer")
+@StackTrace(false)
+public final class ExportEvent extends Event {
+
+    @Label("Format")
+    public String format;
+
+    @Label("File")
+    public String file;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /***
+     * Fills in the fields and commits the event, if it's recorded at all.
+     *
+     * @param bytes the size of the file, or a negative value to look it up
+     */
+    public void record(String format, String file, int width, int height, long bytes) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.format = format;
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.bytes = bytes >= 0 ? bytes : fileSize(file);
+        commit();
+    }
+
+    private static long fileSize(String file) {
+        try {
+            return Files.size(Path.of(file));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/***
+ * One ray traced by World.color_at, including everything it spawned (shadows, reflection, refraction).
+ * <p>
+ * A frame has millions of rays, so only one in {@link #SAMPLE_INTERVAL} is recorded, see {@link #sample()}.
+ * The recorded ones still show how deep the recursion goes and where the time of a bounce goes.
+ */
+@Name("raytracer.RayBounce")
+@Label("Ray Bounce")
+@Category("Raytracer")
+@Description("A sampled ray with its recursion depth")
+@StackTrace(false)
+public final class RayBounceEvent extends Event {
+
+    public static final int SAMPLE_INTERVAL = 1024;
+
+    public static final String PRIMARY = "primary";
+    public static final String REFLECTION = "reflection";
+    public static final String REFRACTION = "refraction";
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Remaining Bounces")
+    public int remainingBounces;
+
+    @Label("Hit")
+    public boolean hit;
+
+    /***
+     * @return a started event for roughly every {@link #SAMPLE_INTERVAL}th ray while the event is enabled in a recording, null otherwise
+     */
+    public static RayBounceEvent sample() {
+        // without a recording the JIT reduces this to a flag check, the event is never really allocated
+        var event = new RayBounceEvent();
+        if (!event.isEnabled() || ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) != 0) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
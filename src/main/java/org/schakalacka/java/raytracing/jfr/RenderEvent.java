@@ -0,0 +1,38 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/***
+ * One frame of Camera.render, from the first tile handed out to the last one done.
+ */
+@Name("raytracer.Render")
+@Label("Render")
+@Category("Raytracer")
+@Description("A frame rendered by a camera")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Threads")
+    public int threads;
+
+    @Label("Tiles")
+    public int tiles;
+
+    @Label("Matrix Type")
+    public String matrixType;
+
+    @Label("Rays")
+    @Description("All rays of the frame, 0 without -Draytracer.metrics=true")
+    public long rays;
+}
@@ -0,0 +1,38 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/***
+ * One tile rendered by a worker of a RenderJob. Tiles stopped by a deadline or cancellation are recorded as not completed.
+ */
+@Name("raytracer.Tile")
+@Label("Tile")
+@Category("Raytracer")
+@Description("A tile rendered by one worker thread")
+@StackTrace(false)
+public final class TileEvent extends Event {
+
+    @Label("X From")
+    public int xFrom;
+
+    @Label("Y From")
+    public int yFrom;
+
+    @Label("X To")
+    public int xTo;
+
+    @Label("Y To")
+    public int yTo;
+
+    @Label("Completed")
+    public boolean completed;
+
+    @Label("Rays")
+    @Description("Rays traced by the worker for this tile, 0 without -Draytracer.metrics=true")
+    public long rays;
+}
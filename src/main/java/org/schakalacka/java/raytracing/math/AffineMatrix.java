@@ -0,0 +1,299 @@
+package org.schakalacka.java.raytracing.math;
+
+import org.schakalacka.java.raytracing.Constants;
+import org.schakalacka.java.raytracing.Metrics;
+
+/***
+ * A 4x4 matrix that is known to be affine, i.e. its last row is always 0, 0, 0, 1.
+ * Every transformation we build (translation, scaling, rotation, shearing and products of those) is affine.
+ * <p>
+ * Instead of an array, the 12 interesting values are plain fields: no bounds checks, no indirection.
+ * Knowing the last row also allows shortcuts:
+ * <ul>
+ *     <li>multiplying a tuple never needs to compute w, it stays what it was</li>
+ *     <li>the inverse is the inverse of the 3x3 part plus a rotated, negated translation. Closed form, no cofactor recursion</li>
+ *     <li>the determinant is the one of the 3x3 part</li>
+ * </ul>
+ * Operations whose result would not be affine anymore (transposing a translation) return a {@link NaiveMatrix} instead.
+ * The matrix itself can't change its type though: {@link #set(int, int, double)} can't change the last row, see there.
+ */
+public final class AffineMatrix implements Matrix {
+
+    double m00, m01, m02, m03;
+    double m10, m11, m12, m13;
+    double m20, m21, m22, m23;
+
+    AffineMatrix(double m00, double m01, double m02, double m03,
+                 double m10, double m11, double m12, double m13,
+                 double m20, double m21, double m22, double m23) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m03 = m03;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m13 = m13;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+        this.m23 = m23;
+    }
+
+    static AffineMatrix identity() {
+        return new AffineMatrix(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0);
+    }
+
+    /***
+     * @return true, if the given values are a 4x4 matrix with 0, 0, 0, 1 as last row
+     */
+    static boolean isAffine(double[][] values) {
+        return values.length == 4 && values[3].length == 4
+                && values[3][0] == 0 && values[3][1] == 0 && values[3][2] == 0 && values[3][3] == 1;
+    }
+
+    static AffineMatrix of(double[][] values) {
+        return new AffineMatrix(values[0][0], values[0][1], values[0][2], values[0][3],
+                values[1][0], values[1][1], values[1][2], values[1][3],
+                values[2][0], values[2][1], values[2][2], values[2][3]);
+    }
+
+    @Override
+    public double get(int row, int col) {
+        return switch (row * 4 + col) {
+            case 0 -> m00;
+            case 1 -> m01;
+            case 2 -> m02;
+            case 3 -> m03;
+            case 4 -> m10;
+            case 5 -> m11;
+            case 6 -> m12;
+            case 7 -> m13;
+            case 8 -> m20;
+            case 9 -> m21;
+            case 10 -> m22;
+            case 11 -> m23;
+            case 12, 13, 14 -> 0;
+            case 15 -> 1;
+            default -> throw new IndexOutOfBoundsException("No element at " + row + "," + col + " in a 4x4 matrix");
+        };
+    }
+
+    /***
+     * Sets one of the upper three rows. The last row can only be "set" to what it already is (0, 0, 0, 1),
+     * anything else throws an UnsupportedOperationException. Start from {@link MatrixProvider#get(int)} (all zeros, not affine)
+     * to fill in a matrix with an arbitrary last row.
+     */
+    @Override
+    public void set(int row, int col, double val) {
+        switch (row * 4 + col) {
+            case 0 -> m00 = val;
+            case 1 -> m01 = val;
+            case 2 -> m02 = val;
+            case 3 -> m03 = val;
+            case 4 -> m10 = val;
+            case 5 -> m11 = val;
+            case 6 -> m12 = val;
+            case 7 -> m13 = val;
+            case 8 -> m20 = val;
+            case 9 -> m21 = val;
+            case 10 -> m22 = val;
+            case 11 -> m23 = val;
+            default -> {
+                if (get(row, col) != val) {
+                    throw new UnsupportedOperationException("The last row of an AffineMatrix is fixed to 0, 0, 0, 1");
+                }
+            }
+        }
+    }
+
+    @Override
+    public Matrix mulM(Matrix that) {
+        if (that instanceof AffineMatrix b) {
+            Metrics.count(Metrics.Event.MUL_M);
+            return new AffineMatrix(
+                    m00 * b.m00 + m01 * b.m10 + m02 * b.m20,
+                    m00 * b.m01 + m01 * b.m11 + m02 * b.m21,
+                    m00 * b.m02 + m01 * b.m12 + m02 * b.m22,
+                    m00 * b.m03 + m01 * b.m13 + m02 * b.m23 + m03,
+                    m10 * b.m00 + m11 * b.m10 + m12 * b.m20,
+                    m10 * b.m01 + m11 * b.m11 + m12 * b.m21,
+                    m10 * b.m02 + m11 * b.m12 + m12 * b.m22,
+                    m10 * b.m03 + m11 * b.m13 + m12 * b.m23 + m13,
+                    m20 * b.m00 + m21 * b.m10 + m22 * b.m20,
+                    m20 * b.m01 + m21 * b.m11 + m22 * b.m21,
+                    m20 * b.m02 + m21 * b.m12 + m22 * b.m22,
+                    m20 * b.m03 + m21 * b.m13 + m22 * b.m23 + m23);
+        }
+        return toNaive().mulM(that);
+    }
+
+    /***
+     * The last row is 0, 0, 0, 1, so w of the result is w of the given tuple.
+     */
+    @Override
+    public Tuple mulT(Tuple that) {
+        Metrics.count(Metrics.Event.MUL_T);
+        final double x = that.x();
+        final double y = that.y();
+        final double z = that.z();
+        final double w = that.w();
+        return Tuple.tuple(
+                m00 * x + m01 * y + m02 * z + m03 * w,
+                m10 * x + m11 * y + m12 * z + m13 * w,
+                m20 * x + m21 * y + m22 * z + m23 * w,
+                w);
+    }
+
+    @Override
+    public RTPoint mulPoint(Tuple point) {
+        Metrics.count(Metrics.Event.MUL_T);
+        final double x = point.x();
+        final double y = point.y();
+        final double z = point.z();
+        return new RTPoint(
+                m00 * x + m01 * y + m02 * z + m03,
+                m10 * x + m11 * y + m12 * z + m13,
+                m20 * x + m21 * y + m22 * z + m23);
+    }
+
+    @Override
+    public RTVector mulVector(Tuple vector) {
+        Metrics.count(Metrics.Event.MUL_T);
+        final double x = vector.x();
+        final double y = vector.y();
+        final double z = vector.z();
+        return new RTVector(
+                m00 * x + m01 * y + m02 * z,
+                m10 * x + m11 * y + m12 * z,
+                m20 * x + m21 * y + m22 * z);
+    }
+
+    @Override
+    public Matrix transpose() {
+        if (m03 == 0 && m13 == 0 && m23 == 0) {
+            Metrics.count(Metrics.Event.TRANSPOSE);
+            return new AffineMatrix(m00, m10, m20, 0, m01, m11, m21, 0, m02, m12, m22, 0);
+        }
+        // the translation would end up in the last row
+        return toNaive().transpose();
+    }
+
+    @Override
+    public double determinant() {
+        Metrics.count(Metrics.Event.DETERMINANT);
+        return m00 * (m11 * m22 - m12 * m21)
+                - m01 * (m10 * m22 - m12 * m20)
+                + m02 * (m10 * m21 - m11 * m20);
+    }
+
+    @Override
+    public Matrix subM(int r, int c) {
+        return toNaive().subM(r, c);
+    }
+
+    @Override
+    public double minor(int r, int c) {
+        return toNaive().minor(r, c);
+    }
+
+    @Override
+    public double cofactor(int r, int c) {
+        return toNaive().cofactor(r, c);
+    }
+
+    @Override
+    public boolean isInvertible() {
+        Metrics.count(Metrics.Event.IS_INVERTIBLE);
+        return determinant() != 0;
+    }
+
+    /***
+     * inverse(A t; 0 1) = (inverse(A) -inverse(A)*t; 0 1), with inverse(A) being the adjugate of A divided by its determinant
+     */
+    @Override
+    public AffineMatrix inverse() {
+        Metrics.count(Metrics.Event.INVERSE);
+        final double c00 = m11 * m22 - m12 * m21;
+        final double c01 = m12 * m20 - m10 * m22;
+        final double c02 = m10 * m21 - m11 * m20;
+        final double determinant = m00 * c00 + m01 * c01 + m02 * c02;
+        if (determinant == 0) {
+            throw new ArithmeticException("Matrix not invertible");
+        }
+        final double f = 1 / determinant;
+
+        final double i00 = c00 * f;
+        final double i01 = (m02 * m21 - m01 * m22) * f;
+        final double i02 = (m01 * m12 - m02 * m11) * f;
+        final double i10 = c01 * f;
+        final double i11 = (m00 * m22 - m02 * m20) * f;
+        final double i12 = (m02 * m10 - m00 * m12) * f;
+        final double i20 = c02 * f;
+        final double i21 = (m01 * m20 - m00 * m21) * f;
+        final double i22 = (m00 * m11 - m01 * m10) * f;
+
+        return new AffineMatrix(
+                i00, i01, i02, -(i00 * m03 + i01 * m13 + i02 * m23),
+                i10, i11, i12, -(i10 * m03 + i11 * m13 + i12 * m23),
+                i20, i21, i22, -(i20 * m03 + i21 * m13 + i22 * m23));
+    }
+
+    NaiveMatrix toNaive() {
+        NaiveMatrix naive = new NaiveMatrix(4);
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                naive.set(row, col, get(row, col));
+            }
+        }
+        return naive;
+    }
+
+    /***
+     * Equal to any other 4x4 matrix with (almost) the same values, whatever its implementation.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AffineMatrix) && !(o instanceof NaiveMatrix naive && naive.matrix.length == 16)) return false;
+        Matrix that = (Matrix) o;
+
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                double e1 = this.get(row, col);
+                double e2 = that.get(row, col);
+
+                if (e1 == e2)
+                    continue;
+
+                if (Math.abs(e1 - e2) >= Constants.EQUALS_EPSILON)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /***
+     * Same as Arrays.hashCode over all 16 values, like {@link NaiveMatrix#hashCode()}
+     */
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                result = 31 * result + Double.hashCode(get(row, col));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AffineMatrix{" +
+                "[" + m00 + ", " + m01 + ", " + m02 + ", " + m03 + "], " +
+                "[" + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "], " +
+                "[" + m20 + ", " + m21 + ", " + m22 + ", " + m23 + "], " +
+                "[0.0, 0.0, 0.0, 1.0]" +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package org.schakalacka.java.raytracing.math;
+
+import org.schakalacka.java.raytracing.Metrics;
+
+/***
+ * Hands out {@link AffineMatrix} whenever the requested matrix is a 4x4 affine one, and {@link NaiveMatrix} for everything else
+ * (3x3 and 2x2 matrices, an empty 4x4 matrix, ...).
+ */
+class AffineMatrixProvider implements IMatrixProvider {
+
+    private final NaiveMatrixProvider fallback = new NaiveMatrixProvider();
+
+    public Matrix get(double[][] ref) {
+        if (AffineMatrix.isAffine(ref)) {
+            return AffineMatrix.of(ref);
+        }
+        return fallback.get(ref);
+    }
+
+    public Matrix get(int size) {
+        return this.get(size, false);
+    }
+
+    public Matrix get(int size, boolean isIdentity) {
+        if (size == 4 && isIdentity) {
+            return AffineMatrix.identity();
+        }
+        return fallback.get(size, isIdentity);
+    }
+
+    public AffineMatrix translation(double x, double y, double z) {
+        Metrics.count(Metrics.Event.TRANSLATE);
+        return new AffineMatrix(
+                1, 0, 0, x,
+                0, 1, 0, y,
+                0, 0, 1, z);
+    }
+
+    public AffineMatrix scaling(double x, double y, double z) {
+        Metrics.count(Metrics.Event.SCALE);
+        return new AffineMatrix(
+                x, 0, 0, 0,
+                0, y, 0, 0,
+                0, 0, z, 0);
+    }
+
+    /***
+     *
+     * @return a left-handed rotation matrix along the X axis
+     */
+    public AffineMatrix rotationX(double radians) {
+        Metrics.count(Metrics.Event.ROT_X);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        return new AffineMatrix(
+                1, 0, 0, 0,
+                0, cos, -sin, 0,
+                0, sin, cos, 0);
+    }
+
+    /***
+     *
+     * @return a left-handed rotation matrix along the Y axis
+     */
+    public AffineMatrix rotationY(double radians) {
+        Metrics.count(Metrics.Event.ROT_Y);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        return new AffineMatrix(
+                cos, 0, sin, 0,
+                0, 1, 0, 0,
+                -sin, 0, cos, 0);
+    }
+
+    public AffineMatrix rotationZ(double radians) {
+        Metrics.count(Metrics.Event.ROT_Z);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        return new AffineMatrix(
+                cos, -sin, 0, 0,
+                sin, cos, 0, 0,
+                0, 0, 1, 0);
+    }
+
+    public AffineMatrix shearing(double xy, double xz, double yx, double yz, double zx, double zy) {
+        Metrics.count(Metrics.Event.SHEAR);
+        return new AffineMatrix(
+                1, xy, xz, 0,
+                yx, 1, yz, 0,
+                zx, zy, 1, 0);
+    }
+
+}
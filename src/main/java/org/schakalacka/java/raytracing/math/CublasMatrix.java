@@ -1,7 +1,7 @@
 package org.schakalacka.java.raytracing.math;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.math.cublas.RayTracingCublas;
 
 import java.util.Arrays;
@@ -44,7 +44,7 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public Matrix mulM(Matrix that) {
-        Counter.mulM++;
+        Metrics.count(Metrics.Event.MUL_M);
 
         return RayTracingCublas.mulM(convertToFloatArray(this.matrix), convertToFloatArray(((CublasMatrix) that).matrix), size);
     }
@@ -67,13 +67,13 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public Tuple mulT(Tuple that) {
-        Counter.mulT++;
+        Metrics.count(Metrics.Event.MUL_T);
         return RayTracingCublas.mulT(convertToFloatArray(this.matrix), that, size);
     }
 
     @Override
     public CublasMatrix transpose() {
-        Counter.transpose++;
+        Metrics.count(Metrics.Event.TRANSPOSE);
         final CublasMatrix m = new CublasMatrix(this.size);
 
         for (int i = 0; i < this.size; i++) {
@@ -87,7 +87,7 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public double determinant() {
-        Counter.determinant++;
+        Metrics.count(Metrics.Event.DETERMINANT);
         double determinant = 0;
         if (this.size == 2) {
             determinant = this.get(0, 0) * this.get(1, 1) - this.get(0, 1) * this.get(1, 0);
@@ -101,7 +101,7 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public CublasMatrix subM(int r, int c) {
-        Counter.subM++;
+        Metrics.count(Metrics.Event.SUB_M);
         final CublasMatrix m = new CublasMatrix(this.size - 1);
 
         int targetRow = 0;
@@ -123,13 +123,13 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public double minor(int r, int c) {
-        Counter.minor++;
+        Metrics.count(Metrics.Event.MINOR);
         return this.subM(r, c).determinant();
     }
 
     @Override
     public double cofactor(int r, int c) {
-        Counter.cofactor++;
+        Metrics.count(Metrics.Event.COFACTOR);
         int factor = (r + c) % 2 == 0 ? 1 : -1;
         return minor(r, c) * factor;
     }
@@ -141,7 +141,7 @@ public class CublasMatrix implements Matrix {
 
     @Override
     public CublasMatrix inverse() {
-        Counter.inverse++;
+        Metrics.count(Metrics.Event.INVERSE);
         if (!isInvertible()) {
             throw new ArithmeticException("Matrix not invertible");
         }
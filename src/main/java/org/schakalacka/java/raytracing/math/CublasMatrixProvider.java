@@ -1,6 +1,6 @@
 package org.schakalacka.java.raytracing.math;
 
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 
 class CublasMatrixProvider implements IMatrixProvider {
 
@@ -36,7 +36,7 @@ class CublasMatrixProvider implements IMatrixProvider {
      * create a translation matrix. It is a 4x4 identity matrix, where the last colum is populated with the 3 values.
      */
     public CublasMatrix translation(double x, double y, double z) {
-        Counter.translate++;
+        Metrics.count(Metrics.Event.TRANSLATE);
         CublasMatrix result = this.get(4, true);
         result.set(0, 3, x);
         result.set(1, 3, y);
@@ -50,7 +50,7 @@ class CublasMatrixProvider implements IMatrixProvider {
     }
 
     public CublasMatrix scaling(double x, double y, double z) {
-        Counter.scale++;
+        Metrics.count(Metrics.Event.SCALE);
         CublasMatrix result = this.get(4, false);
         result.set(0, 0, x);
         result.set(1, 1, y);
@@ -69,7 +69,7 @@ class CublasMatrixProvider implements IMatrixProvider {
      * @return a left-handed rotation matrix along the X axis
      */
     public CublasMatrix rotationX(double radians) {
-        Counter.rotX++;
+        Metrics.count(Metrics.Event.ROT_X);
         CublasMatrix result = this.get(4, true);
         result.set(1, 1,  Math.cos(radians));
         result.set(1, 2,  -Math.sin(radians));
@@ -89,7 +89,7 @@ class CublasMatrixProvider implements IMatrixProvider {
      * @return a left-handed rotation matrix along the Y axis
      */
     public CublasMatrix rotationY(double radians) {
-        Counter.rotY++;
+        Metrics.count(Metrics.Event.ROT_Y);
         CublasMatrix result = this.get(4, true);
         result.set(0, 0,  Math.cos(radians));
         result.set(0, 1, 0);
@@ -117,7 +117,7 @@ class CublasMatrixProvider implements IMatrixProvider {
     }
 
     public CublasMatrix rotationZ(double radians) {
-        Counter.rotZ++;
+        Metrics.count(Metrics.Event.ROT_Z);
         CublasMatrix result = this.get(4, true);
         result.set(0, 0,  Math.cos(radians));
         result.set(0, 1,  -Math.sin(radians));
@@ -134,7 +134,7 @@ class CublasMatrixProvider implements IMatrixProvider {
     }
 
     public CublasMatrix shearing(double xy, double xz, double yx, double yz, double zx, double zy) {
-        Counter.shear++;
+        Metrics.count(Metrics.Event.SHEAR);
         CublasMatrix result = this.get(4, true);
         result.set(0, 1, xy);
         result.set(0, 2, xz);
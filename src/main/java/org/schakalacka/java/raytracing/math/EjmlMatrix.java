@@ -4,7 +4,7 @@ import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.dense.row.mult.MatrixVectorMult_DDRM;
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 
 import java.util.Arrays;
 
@@ -28,7 +28,7 @@ public class EjmlMatrix implements Matrix {
 
     @Override
     public EjmlMatrix mulM(Matrix that) {
-        Counter.mulM++;
+        Metrics.count(Metrics.Event.MUL_M);
 
         if (that instanceof EjmlMatrix) {
             DMatrixRMaj result = new DMatrixRMaj();
@@ -41,7 +41,7 @@ public class EjmlMatrix implements Matrix {
 
     @Override
     public Tuple mulT(Tuple vector) {
-        Counter.mulT++;
+        Metrics.count(Metrics.Event.MUL_T);
         DMatrixRMaj resultVector = new DMatrixRMaj(this.wrappedMatrix.numCols);
 
         // ejml requires the vector and matrix to have the same size, i.e. if the vector has length N, the matrix also needs to be of size NxN
@@ -68,32 +68,32 @@ public class EjmlMatrix implements Matrix {
 
     @Override
     public EjmlMatrix transpose() {
-        Counter.transpose++;
+        Metrics.count(Metrics.Event.TRANSPOSE);
         DMatrixRMaj transpose = CommonOps_DDRM.transpose(this.wrappedMatrix, null);
         return new EjmlMatrix(transpose);
     }
 
     @Override
     public double determinant() {
-        Counter.determinant++; return CommonOps_DDRM.det(this.wrappedMatrix);
+        Metrics.count(Metrics.Event.DETERMINANT); return CommonOps_DDRM.det(this.wrappedMatrix);
     }
 
     @Override
     public EjmlMatrix subM(int r, int c) {
-        Counter.subM++;
+        Metrics.count(Metrics.Event.SUB_M);
         DMatrixRMaj extract = CommonOps_DDRM.extract(this.wrappedMatrix, 0, c, 0, r);
         return new EjmlMatrix(extract);
     }
 
     @Override
     public double minor(int r, int c) {
-        Counter.minor++;
+        Metrics.count(Metrics.Event.MINOR);
         throw new UnsupportedOperationException("EjmlMatrix doesn't directly support minor calculation");
     }
 
     @Override
     public double cofactor(int r, int c) {
-        Counter.cofactor++;
+        Metrics.count(Metrics.Event.COFACTOR);
         throw new UnsupportedOperationException("EjmlMatrix doesn't directly support cofactor calculation");
     }
 
@@ -104,7 +104,7 @@ public class EjmlMatrix implements Matrix {
 
     @Override
     public EjmlMatrix inverse() {
-        Counter.inverse++;
+        Metrics.count(Metrics.Event.INVERSE);
         if (!isInvertible()) {
             throw new ArithmeticException("Matrix not invertible");
         }
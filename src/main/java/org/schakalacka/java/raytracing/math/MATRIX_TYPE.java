@@ -3,7 +3,8 @@ package org.schakalacka.java.raytracing.math;
 public enum MATRIX_TYPE {
     NAIVE(new NaiveMatrixProvider()),
     EJML(new EjmlMatrixProvider()),
-    CUBLAS(new CublasMatrixProvider());
+    CUBLAS(new CublasMatrixProvider()),
+    AFFINE(new AffineMatrixProvider());
 
     final IMatrixProvider provider;
 
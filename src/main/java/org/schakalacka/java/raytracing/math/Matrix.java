@@ -10,6 +10,20 @@ public interface Matrix {
 
     Tuple mulT(Tuple that);
 
+    /***
+     * Multiplies a point (w=1). Implementations that know their last row may skip computing w.
+     */
+    default Tuple mulPoint(Tuple point) {
+        return mulT(point);
+    }
+
+    /***
+     * Multiplies a vector (w=0). Implementations that know their last row may skip computing w and the translation.
+     */
+    default Tuple mulVector(Tuple vector) {
+        return mulT(vector);
+    }
+
     Matrix transpose();
 
     double determinant();
@@ -1,10 +1,10 @@
 package org.schakalacka.java.raytracing.math;
 
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 
 public class MatrixProvider {
 
-    public static MATRIX_TYPE MT = MATRIX_TYPE.EJML;
+    public static MATRIX_TYPE MT = MATRIX_TYPE.AFFINE;
 
     public static Matrix get(double[][] ref) {
         return MT.provider.get(ref);
@@ -14,6 +14,9 @@ public class MatrixProvider {
         return MT.provider.get(size);
     }
 
+    /***
+     * With the AFFINE type, the 4x4 identity is an {@link AffineMatrix}: its last row can't be changed with set.
+     */
     public static Matrix get(int size, boolean isIdentity) {
         return MT.provider.get(size, isIdentity);
     }
@@ -22,12 +25,12 @@ public class MatrixProvider {
      * create a translation matrix. It is a 4x4 identity matrix, where the last colum is populated with the 3 values.
      */
     public static Matrix translation(double x, double y, double z) {
-        Counter.translate++;
+        Metrics.count(Metrics.Event.TRANSLATE);
         return MT.provider.translation(x, y, z);
     }
 
     public static Matrix scaling(double x, double y, double z) {
-        Counter.scale++;
+        Metrics.count(Metrics.Event.SCALE);
         return MT.provider.scaling(x, y, z);
     }
 
@@ -36,7 +39,7 @@ public class MatrixProvider {
      * @return a left-handed rotation matrix along the X axis
      */
     public static Matrix rotationX(double radians) {
-        Counter.rotX++;
+        Metrics.count(Metrics.Event.ROT_X);
         return MT.provider.rotationX(radians);
     }
 
@@ -45,17 +48,17 @@ public class MatrixProvider {
      * @return a left-handed rotation matrix along the Y axis
      */
     public static Matrix rotationY(double radians) {
-        Counter.rotY++;
+        Metrics.count(Metrics.Event.ROT_Y);
         return MT.provider.rotationY(radians);
     }
 
     public static Matrix rotationZ(double radians) {
-        Counter.rotZ++;
+        Metrics.count(Metrics.Event.ROT_Z);
         return MT.provider.rotationZ(radians);
     }
 
     public static Matrix shearing(double xy, double xz, double yx, double yz, double zx, double zy) {
-        Counter.shear++;
+        Metrics.count(Metrics.Event.SHEAR);
         return MT.provider.shearing(xy, xz, yx, yz, zx, zy);
     }
 
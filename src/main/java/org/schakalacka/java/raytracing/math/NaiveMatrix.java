@@ -1,7 +1,7 @@
 package org.schakalacka.java.raytracing.math;
 
 import org.schakalacka.java.raytracing.Constants;
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 
 import java.util.Arrays;
 
@@ -32,6 +32,7 @@ public class NaiveMatrix implements Matrix {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
+        if (o instanceof AffineMatrix affine) return affine.equals(this);
         if (o == null || getClass() != o.getClass()) return false;
         NaiveMatrix that = (NaiveMatrix) o;
 
@@ -70,7 +71,7 @@ public class NaiveMatrix implements Matrix {
      */
     @Override
     public NaiveMatrix mulM(Matrix that) {
-        Counter.mulM++;
+        Metrics.count(Metrics.Event.MUL_M);
         NaiveMatrix result = new NaiveMatrix(this.size);
 
         for (int r = 0; r < this.size; r++) {
@@ -89,7 +90,7 @@ public class NaiveMatrix implements Matrix {
 
     @Override
     public Tuple mulT(Tuple that) {
-        Counter.mulT++;
+        Metrics.count(Metrics.Event.MUL_T);
         double x = 0;
         for (int i = 0; i < this.size; i++) {
             x += this.get(0, i) * that.get(i);
@@ -116,7 +117,7 @@ public class NaiveMatrix implements Matrix {
 
     @Override
     public NaiveMatrix transpose() {
-        Counter.transpose++;
+        Metrics.count(Metrics.Event.TRANSPOSE);
         final NaiveMatrix m = new NaiveMatrix(this.size);
 
         for (int i = 0; i < this.size; i++) {
@@ -130,7 +131,7 @@ public class NaiveMatrix implements Matrix {
 
     @Override
     public double determinant() {
-        Counter.determinant++;
+        Metrics.count(Metrics.Event.DETERMINANT);
         double determinant = 0;
         if (this.size == 2) {
             determinant = this.get(0, 0) * this.get(1, 1) - this.get(0, 1) * this.get(1, 0);
@@ -144,7 +145,7 @@ public class NaiveMatrix implements Matrix {
 
     @Override
     public NaiveMatrix subM(int r, int c) {
-        Counter.subM++;
+        Metrics.count(Metrics.Event.SUB_M);
         final NaiveMatrix m = new NaiveMatrix(this.size - 1);
 
         int targetRow = 0;
@@ -166,7 +167,7 @@ public class NaiveMatrix implements Matrix {
 
     @Override
     public double minor(int r, int c) {
-        Counter.minor++;
+        Metrics.count(Metrics.Event.MINOR);
         return this.subM(r, c).determinant();
     }
 
@@ -175,20 +176,20 @@ public class NaiveMatrix implements Matrix {
      */
     @Override
     public double cofactor(int r, int c) {
-        Counter.cofactor++;
+        Metrics.count(Metrics.Event.COFACTOR);
         int factor = (r + c) % 2 == 0 ? 1 : -1;
         return minor(r, c) * factor;
     }
 
     @Override
     public boolean isInvertible() {
-        Counter.isInvertible++;
+        Metrics.count(Metrics.Event.IS_INVERTIBLE);
         return determinant() != 0;
     }
 
     @Override
     public NaiveMatrix inverse() {
-        Counter.inverse++;
+        Metrics.count(Metrics.Event.INVERSE);
         if (!isInvertible()) {
             throw new ArithmeticException("Matrix not invertible");
         }
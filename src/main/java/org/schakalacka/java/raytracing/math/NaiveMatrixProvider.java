@@ -1,6 +1,6 @@
 package org.schakalacka.java.raytracing.math;
 
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 
 class NaiveMatrixProvider implements IMatrixProvider {
 
@@ -36,7 +36,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
      * create a translation matrix. It is a 4x4 identity matrix, where the last colum is populated with the 3 values.
      */
     public NaiveMatrix translation(double x, double y, double z) {
-        Counter.translate++;
+        Metrics.count(Metrics.Event.TRANSLATE);
         NaiveMatrix result = this.get(4, true);
         result.set(0, 3, x);
         result.set(1, 3, y);
@@ -50,7 +50,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
     }
 
     public NaiveMatrix scaling(double x, double y, double z) {
-        Counter.scale++;
+        Metrics.count(Metrics.Event.SCALE);
         NaiveMatrix result = this.get(4, false);
         result.set(0, 0, x);
         result.set(1, 1, y);
@@ -69,7 +69,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
      * @return a left-handed rotation matrix along the X axis
      */
     public NaiveMatrix rotationX(double radians) {
-        Counter.rotX++;
+        Metrics.count(Metrics.Event.ROT_X);
         NaiveMatrix result = this.get(4, true);
         result.set(1, 1,  Math.cos(radians));
         result.set(1, 2,  -Math.sin(radians));
@@ -89,7 +89,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
      * @return a left-handed rotation matrix along the Y axis
      */
     public NaiveMatrix rotationY(double radians) {
-        Counter.rotY++;
+        Metrics.count(Metrics.Event.ROT_Y);
         NaiveMatrix result = this.get(4, true);
         result.set(0, 0,  Math.cos(radians));
         result.set(0, 1, 0);
@@ -117,7 +117,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
     }
 
     public NaiveMatrix rotationZ(double radians) {
-        Counter.rotZ++;
+        Metrics.count(Metrics.Event.ROT_Z);
         NaiveMatrix result = this.get(4, true);
         result.set(0, 0,  Math.cos(radians));
         result.set(0, 1,  -Math.sin(radians));
@@ -134,7 +134,7 @@ class NaiveMatrixProvider implements IMatrixProvider {
     }
 
     public NaiveMatrix shearing(double xy, double xz, double yx, double yz, double zx, double zy) {
-        Counter.shear++;
+        Metrics.count(Metrics.Event.SHEAR);
         NaiveMatrix result = this.get(4, true);
         result.set(0, 1, xy);
         result.set(0, 2, xz);
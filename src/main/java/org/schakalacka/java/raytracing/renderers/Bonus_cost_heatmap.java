@@ -0,0 +1,65 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.Material;
+import org.schakalacka.java.raytracing.scene.PointLight;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+/***
+ * Where does the time go? A glass sphere, a mirror and a flat group of 400 small spheres, rendered with a cost map.
+ * Writes bonus_cost_heatmap_WxH.ppm and the heatmaps next to it (_time, _rays, _tests). The glass lights up in the rays,
+ * the group in the shape tests. Run with -Draytracer.metrics=true, otherwise only the time map has something in it.
+ * Args: width height (default 400x250)
+ */
+public class Bonus_cost_heatmap {
+
+    public static void main(String[] args) {
+        int width = args.length > 1 ? Integer.parseInt(args[0]) : 400;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 2.5, -7), Tuple.point(0, 0.5, 0), Tuple.vector(0, 1, 0)));
+
+        var world = scene();
+        // once to warm up the JIT, the times of the first frame are mostly compiler
+        camera.render(world, Runtime.getRuntime().availableProcessors());
+        var costs = camera.renderCostMap(world, Runtime.getRuntime().availableProcessors());
+        costs.export("bonus_cost_heatmap_%dx%d.ppm".formatted(width, height));
+    }
+
+    private static World scene() {
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-5, 8, -8), Color.WHITE));
+
+        var floor = new Plane();
+        floor.setMaterial(Material.newMaterial().color(new Color(0.8, 0.8, 0.7)).specular(0).reflectivity(0.1f).create());
+
+        var glass = new Sphere();
+        glass.setTransformationMatrix(MatrixProvider.translation(-1.8, 1, 0));
+        glass.setMaterial(Material.newMaterial().color(new Color(0.1, 0.1, 0.1)).diffuse(0.1).reflectivity(0.9f).transparency(0.9).refractiveIndex(1.5).create());
+
+        var mirror = new Sphere();
+        mirror.setTransformationMatrix(MatrixProvider.translation(0.6, 0.7, 1.5).mulM(MatrixProvider.scaling(0.7, 0.7, 0.7)));
+        mirror.setMaterial(Material.newMaterial().color(new Color(0.2, 0.2, 0.3)).reflectivity(0.8f).create());
+
+        // not divided: every ray hitting its box tests all 400 spheres
+        var crowd = new Group();
+        for (int i = 0; i < 400; i++) {
+            var sphere = new Sphere();
+            sphere.setTransformationMatrix(MatrixProvider.translation(1.5 + (i % 20) * 0.12, 0.06 + (i / 20) * 0.12, -0.5)
+                    .mulM(MatrixProvider.scaling(0.05, 0.05, 0.05)));
+            sphere.setMaterial(Material.newMaterial().color(new Color(0.2 + (i % 7) * 0.1, 0.5, 0.9 - (i % 5) * 0.1)).create());
+            crowd.addChild(sphere);
+        }
+
+        world.addObjects(floor, glass, mirror, crowd);
+        return world;
+    }
+}
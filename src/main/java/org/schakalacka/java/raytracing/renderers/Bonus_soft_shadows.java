@@ -0,0 +1,65 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.BinaryExporter;
+import org.schakalacka.java.raytracing.geometry.objects.Cube;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.AreaLight;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.Material;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+/***
+ * The soft shadows scene of the book's bonus chapter: a 2x2 area light, a cube and two spheres. Rendered twice, once tracing the full
+ * 8x8 grid for every point, once adaptive. The log shows the shadow rays per pixel of both.
+ * Args: width height (default 400x160)
+ */
+public class Bonus_soft_shadows {
+
+    public static void main(String[] args) {
+        int width = args.length > 1 ? Integer.parseInt(args[0]) : 400;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 160;
+
+        var camera = new Camera(width, height, 0.7854);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(-3, 1, 2.5), Tuple.point(0, 0.5, 0), Tuple.vector(0, 1, 0)));
+
+        for (boolean adaptive : new boolean[]{false, true}) {
+            var world = scene(adaptive);
+            long renderStart = System.currentTimeMillis();
+            Canvas canvas = camera.render(world, Runtime.getRuntime().availableProcessors());
+            Logger.info("{}: render-time {}ms", adaptive ? "adaptive" : "full grid", System.currentTimeMillis() - renderStart);
+            BinaryExporter.exportP6(canvas, "bonus_soft_shadows_%dx%d_%s.ppm".formatted(width, height, adaptive ? "adaptive" : "full"), 255);
+        }
+    }
+
+    private static World scene(boolean adaptive) {
+        var world = new World();
+        var light = new AreaLight(Tuple.point(-1, 2, 4), Tuple.vector(2, 0, 0), 8, Tuple.vector(0, 2, 0), 8, new Color(1.5, 1.5, 1.5), true, adaptive);
+        world.addAreaLights(light);
+
+        // a visible, but shadowless stand-in for the light
+        var lamp = new Cube();
+        lamp.setTransformationMatrix(MatrixProvider.translation(0, 3, 4).mulM(MatrixProvider.scaling(1, 1, 0.01)));
+        lamp.setMaterial(Material.newMaterial().color(new Color(1.5, 1.5, 1.5)).ambient(1).diffuse(0).specular(0).createsShadow(false).create());
+
+        var floor = new Plane();
+        floor.setMaterial(Material.newMaterial().color(Color.WHITE).ambient(0.025).diffuse(0.67).specular(0).create());
+
+        var red = new Sphere();
+        red.setTransformationMatrix(MatrixProvider.translation(0.5, 0.5, 0).mulM(MatrixProvider.scaling(0.5, 0.5, 0.5)));
+        red.setMaterial(Material.newMaterial().color(new Color(1, 0, 0)).ambient(0.1).specular(0).diffuse(0.6).reflectivity(0.3f).create());
+
+        var blue = new Sphere();
+        blue.setTransformationMatrix(MatrixProvider.translation(-0.25, 0.33, 0).mulM(MatrixProvider.scaling(0.33, 0.33, 0.33)));
+        blue.setMaterial(Material.newMaterial().color(new Color(0.5, 0.5, 1)).ambient(0.1).specular(0).diffuse(0.6).reflectivity(0.3f).create());
+
+        world.addObjects(lamp, floor, red, blue);
+        return world;
+    }
+}
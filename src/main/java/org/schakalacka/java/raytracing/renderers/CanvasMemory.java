@@ -0,0 +1,54 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.tinylog.Logger;
+
+import java.lang.ref.Reference;
+
+/***
+ * Not a renderer, but a comparison of the heap a 4K frame needs: the packed {@link Canvas} against the old Color[width][height] layout.
+ * Every pixel gets its own color, like after a render. Run with enough heap, e.g. -Xmx2g.
+ */
+public class CanvasMemory {
+
+    private static final int WIDTH = 3840;
+    private static final int HEIGHT = 2160;
+
+    public static void main(String[] args) {
+        // the logger allocates quite a bit when it's used the first time, that shouldn't end up in the numbers
+        Logger.info("measuring a {}x{} frame", WIDTH, HEIGHT);
+
+        long before = usedHeap();
+        var canvas = new Canvas(WIDTH, HEIGHT);
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                canvas.write(x, y, new Color(x / (double) WIDTH, y / (double) HEIGHT, 0.5));
+            }
+        }
+        long packed = usedHeap() - before;
+        // otherwise the JIT knows the canvas is dead and the GC collects it before it's measured
+        Reference.reachabilityFence(canvas);
+        Logger.info("Canvas: {}MB", packed / 1024 / 1024);
+        canvas = null;
+
+        before = usedHeap();
+        var colors = new Color[WIDTH][HEIGHT];
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                colors[x][y] = new Color(x / (double) WIDTH, y / (double) HEIGHT, 0.5);
+            }
+        }
+        long colorArray = usedHeap() - before;
+        Reference.reachabilityFence(colors);
+        Logger.info("Color[][]: {}MB", colorArray / 1024 / 1024);
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
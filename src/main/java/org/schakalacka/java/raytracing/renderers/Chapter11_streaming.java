@@ -0,0 +1,55 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.TileFileWriter;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.patterns.CheckerPattern;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.*;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/***
+ * Renders a huge frame (8K unless width and height are given as arguments) straight into a P6 file, tile by tile.
+ * The whole frame is never in memory, it runs fine with a small heap, e.g. -Xmx64m.
+ */
+public class Chapter11_streaming {
+
+    public static void main(String[] args) throws IOException {
+        var width = args.length > 1 ? Integer.parseInt(args[0]) : 7680;
+        var height = args.length > 1 ? Integer.parseInt(args[1]) : 4320;
+        var threads = Runtime.getRuntime().availableProcessors();
+
+        var floor = new Plane();
+        CheckerPattern floorPattern = new CheckerPattern(Color.BLACK, Color.WHITE);
+        floorPattern.setTransformationMatrix(MatrixProvider.scaling(0.4f, 0.4f, 0.4f));
+        floor.setMaterial(Material.newMaterial().color(new Color(1, 0.9, 0.9)).ambient(0.5).pattern(floorPattern).specular(0).create());
+
+        var glassSphere = Sphere.glassySphere();
+        glassSphere.setTransformationMatrix(MatrixProvider.translation(-0.5f, 1.1f, 0.5f));
+        glassSphere.setMaterial(Material.newMaterial().refractiveIndex(1.52).transparency(1).reflectivity(0.9f).ambient(0)
+                .diffuse(0.4f).specular(0.9f).shininess(300).color(new Color(0.1, 0.2, 0.1)).create());
+
+        var rightSphere = new Sphere();
+        rightSphere.setTransformationMatrix(MatrixProvider.translation(1.5f, 0.5f, -0.5f).mulM(MatrixProvider.scaling(0.5f, 0.5f, 0.5f)));
+        rightSphere.setMaterial(Material.newMaterial().color(new Color(0.5, 1, 0.1)).diffuse(0.7).specular(0.3).reflectivity(0.3f).create());
+
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 20, -10), new Color(1, 1, 1)));
+        world.addObjects(floor, glassSphere, rightSphere);
+
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 1.5f, -5), Tuple.point(0, 1, 0), Tuple.vector(0, 1, 0)));
+
+        long start = System.currentTimeMillis();
+        try (var writer = TileFileWriter.p6(Path.of("chapter11_streaming_%dx%d.ppm".formatted(width, height)), width, height, 255)) {
+            camera.render(world, threads, writer);
+        }
+        Logger.info("Render and export: {}ms, max heap {}MB", System.currentTimeMillis() - start, Runtime.getRuntime().maxMemory() / 1024 / 1024);
+    }
+}
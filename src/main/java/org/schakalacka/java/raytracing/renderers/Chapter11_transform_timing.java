@@ -0,0 +1,128 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.patterns.CheckerPattern;
+import org.schakalacka.java.raytracing.geometry.patterns.TextureMap;
+import org.schakalacka.java.raytracing.geometry.patterns.UVCheckerPattern;
+import org.schakalacka.java.raytracing.math.MATRIX_TYPE;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.math.UVMapping;
+import org.schakalacka.java.raytracing.scene.*;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+/***
+ * Times the two Chapter 11 scenes (reflection and reflection+refraction) and logs the matrix-operation counters.
+ * Handy to compare changes in the transformation handling, the scenes are the same as in Chapter11 and Chapter11_reflection_refraction.
+ * The matrix implementation can be given as first argument, e.g. EJML or AFFINE.
+ */
+public class Chapter11_transform_timing {
+
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            MatrixProvider.MT = MATRIX_TYPE.valueOf(args[0]);
+        }
+        var width = 480;
+        var height = 270;
+
+        // warm up the JIT, otherwise the first scene pays for it
+        render(reflectionWorld(), topCamera(160, 90));
+
+        time("reflection", reflectionWorld(), frontCamera(width, height));
+        time("reflection_refraction", refractionWorld(), topCamera(width, height));
+    }
+
+    private static void time(String name, World world, Camera camera) {
+        var before = Metrics.snapshot();
+        long start = System.currentTimeMillis();
+        render(world, camera);
+        long renderTime = System.currentTimeMillis() - start;
+        // the counts are zero without -Draytracer.metrics=true
+        var counts = Metrics.snapshot().minus(before);
+        Logger.info("{} {}x{} ({}): render-time {}ms, inverse={}, mulT={}", name, camera.getHSize(), camera.getVSize(), MatrixProvider.MT, renderTime,
+                counts.get(Metrics.Event.INVERSE), counts.get(Metrics.Event.MUL_T));
+    }
+
+    private static void render(World world, Camera camera) {
+        camera.render(world, 1);
+    }
+
+    private static Camera frontCamera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 1.5f, -5), Tuple.point(0, 1, 0), Tuple.vector(0, 1, 0)));
+        return camera;
+    }
+
+    private static Camera topCamera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0f, 8f, 0f), Tuple.point(0, 0, 0), Tuple.vector(0, 0, -1)));
+        return camera;
+    }
+
+    private static World reflectionWorld() {
+        var floor = new Plane();
+        CheckerPattern floorPattern = new CheckerPattern(Color.BLACK, Color.WHITE);
+        floorPattern.setTransformationMatrix(MatrixProvider.rotationY(Math.toRadians(45)));
+        floor.setMaterial(Material.newMaterial().reflectivity(0.2f).color(new Color(1, 0.9, 0.9)).ambient(0.5).pattern(floorPattern).specular(0).create());
+
+        CheckerPattern backPattern = new CheckerPattern(Color.BLACK, Color.WHITE);
+        backPattern.setTransformationMatrix(MatrixProvider.scaling(0.5f, 0.5f, 0.5f));
+
+        var backDrop1 = new Plane();
+        backDrop1.setTransformationMatrix(MatrixProvider.translation(0, 0, 5)
+                .mulM(MatrixProvider.rotationY((-Math.PI / 4)))
+                .mulM(MatrixProvider.rotationX((Math.PI / 2))));
+        backDrop1.setMaterial(Material.newMaterial().color(new Color(1, 0.9, 0.9)).ambient(0.5).diffuse(0.8).pattern(backPattern).create());
+
+        var backDrop2 = new Plane();
+        backDrop2.setTransformationMatrix(MatrixProvider.translation(0, 0, 5)
+                .mulM(MatrixProvider.rotationY((Math.PI / 4)))
+                .mulM(MatrixProvider.rotationX((Math.PI / 2))));
+        backDrop2.setMaterial(Material.newMaterial().color(new Color(1, 0.9, 0.9)).ambient(0.5).diffuse(0.8).pattern(backPattern).create());
+
+        var middleSphere = new Sphere();
+        middleSphere.setTransformationMatrix(MatrixProvider.translation(-0.5f, 1, 0.5f));
+        middleSphere.setMaterial(Material.newMaterial().color(new Color(0.1, 1, 0.5)).specular(0.3)
+                .pattern(new TextureMap(new UVCheckerPattern(20, 10, new Color(1, .2, .2), Color.WHITE), new UVMapping()))
+                .reflectivity(0.8f).create());
+
+        var rightSphere = new Sphere();
+        rightSphere.setTransformationMatrix(MatrixProvider.translation(1.5f, 0.5f, -0.5f).mulM(MatrixProvider.scaling(0.5f, 0.5f, 0.5f)));
+        rightSphere.setMaterial(Material.newMaterial().color(new Color(0.5, 1, 0.1)).diffuse(0.7).specular(0.3).create());
+
+        var leftSphere = new Sphere();
+        leftSphere.setTransformationMatrix(MatrixProvider.translation(-1.5f, 0.33f, -0.75f).mulM(MatrixProvider.scaling(0.33f, 0.33f, 0.33f)));
+        leftSphere.setMaterial(Material.newMaterial().color(new Color(1, 0.2, 0.1)).diffuse(0.7).specular(0.3).create());
+
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 20, -10), new Color(0.8, 0.8, 0.8)));
+        world.addObjects(floor, backDrop1, backDrop2, leftSphere, middleSphere, rightSphere);
+        return world;
+    }
+
+    private static World refractionWorld() {
+        var floor = new Plane();
+        CheckerPattern floorPattern = new CheckerPattern(Color.BLACK, Color.WHITE);
+        floorPattern.setTransformationMatrix(MatrixProvider.scaling(0.4f, 0.4f, 0.4f));
+        floor.setMaterial(Material.newMaterial().color(new Color(1, 0.9, 0.9)).ambient(0.5).pattern(floorPattern).specular(0).create());
+
+        var middleSphere = Sphere.glassySphere();
+        middleSphere.setTransformationMatrix(MatrixProvider.translation(-0.5f, 1.1f, 0.5f));
+        middleSphere.setMaterial(Material.newMaterial().refractiveIndex(1.52).transparency(1).reflectivity(0.9f).ambient(0)
+                .diffuse(0.4f).specular(0.9f).shininess(300).color(new Color(0.1, 0.2, 0.1)).create());
+
+        var innerSphere = Sphere.glassySphere();
+        innerSphere.setTransformationMatrix(MatrixProvider.translation(-0.5f, 1.2f, 0.5f).mulM(MatrixProvider.scaling(0.3f, 0.3f, 0.3f)));
+        innerSphere.setMaterial(Material.newMaterial().refractiveIndex(1.333).transparency(0.9f).reflectivity(0.5f).ambient(0.3f)
+                .diffuse(0.2f).specular(0.0f).shininess(10).color(new Color(0.1, 0.2, 0.4)).create());
+
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 20, -10), new Color(0.8, 0.8, 0.8)));
+        world.addObjects(floor, middleSphere, innerSphere);
+        return world;
+    }
+}
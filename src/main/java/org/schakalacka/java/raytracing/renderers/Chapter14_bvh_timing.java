@@ -0,0 +1,94 @@
+package org.schakalacka.java.raytracing.renderers;
+
+import org.schakalacka.java.raytracing.PPMExporter;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.*;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+import java.util.Random;
+
+/***
+ * Renders the same 100k spheres three times: as a flat list of world objects, partitioned into groups by the SAH-BVH
+ * and compiled into the array based {@link org.schakalacka.java.raytracing.world.FlatBVH}.
+ * The flat render is painfully slow, that's why the resolution is tiny. Compare the logged time per pixel.
+ */
+public class Chapter14_bvh_timing {
+
+    private static final int SPHERE_COUNT = 100_000;
+
+    public static void main(String[] args) {
+        // tiny, so the flat list finishes in reasonable time
+        var width = 80;
+        var height = 45;
+        var parallelChunks = 16;
+
+        var camera = new Camera(width, height, Math.PI / 3);
+        camera.setTransformationMatrix(ViewTransformation
+                .transform(
+                        Tuple.point(0, 15f, -40),
+                        Tuple.point(0, 5, 0),
+                        Tuple.vector(0, 1, 0)
+                )
+        );
+
+        var flatWorld = createWorld();
+
+        long buildStart = System.currentTimeMillis();
+        var bvhWorld = createWorld().divide();
+        long buildEnd = System.currentTimeMillis();
+        Logger.info("BVH build for {} spheres took {}ms", SPHERE_COUNT, (buildEnd - buildStart));
+
+        long flatBvhBuildStart = System.currentTimeMillis();
+        var flatBvhWorld = createWorld().accelerate();
+        Logger.info("Flat BVH build for {} spheres took {}ms", SPHERE_COUNT, (System.currentTimeMillis() - flatBvhBuildStart));
+
+        long flatStart = System.currentTimeMillis();
+        Canvas flatCanvas = camera.render(flatWorld, parallelChunks);
+        long flatTime = System.currentTimeMillis() - flatStart;
+        Logger.info("Flat render-time: {}ms ({}ms per pixel)", flatTime, (double) flatTime / (width * height));
+
+        long bvhStart = System.currentTimeMillis();
+        Canvas bvhCanvas = camera.render(bvhWorld, parallelChunks);
+        long bvhTime = System.currentTimeMillis() - bvhStart;
+        Logger.info("BVH render-time: {}ms ({}ms per pixel)", bvhTime, (double) bvhTime / (width * height));
+        Logger.info("Speedup: {}x", (double) flatTime / Math.max(1, bvhTime));
+
+        long flatBvhStart = System.currentTimeMillis();
+        camera.render(flatBvhWorld, parallelChunks);
+        long flatBvhTime = System.currentTimeMillis() - flatBvhStart;
+        Logger.info("Flat BVH render-time: {}ms ({}ms per pixel)", flatBvhTime, (double) flatBvhTime / (width * height));
+        Logger.info("Speedup flat BVH over group BVH: {}x", (double) bvhTime / Math.max(1, flatBvhTime));
+
+        PPMExporter.export(flatCanvas, "chapter14_bvh_flat_%dx%d_Matrix_%s.ppm".formatted(width, height, MatrixProvider.MT), 255);
+        PPMExporter.export(bvhCanvas, "chapter14_bvh_%dx%d_Matrix_%s.ppm".formatted(width, height, MatrixProvider.MT), 255);
+    }
+
+    private static World createWorld() {
+        // same seed for both worlds, we want to compare identical scenes
+        var random = new Random(42);
+        var world = new World();
+        world.setLightSource(new PointLight(Tuple.point(-10, 30, -20), new Color(1, 1, 1)));
+
+        var floor = new Plane();
+        floor.setMaterial(Material.newMaterial().color(new Color(0.8, 0.8, 0.8)).specular(0).create());
+        world.addObjects(floor);
+
+        for (int i = 0; i < SPHERE_COUNT; i++) {
+            var sphere = new Sphere();
+            var radius = 0.05 + random.nextDouble() * 0.1;
+            sphere.setTransformationMatrix(MatrixProvider.translation(
+                            random.nextDouble() * 40 - 20,
+                            random.nextDouble() * 10 + radius,
+                            random.nextDouble() * 40 - 20)
+                    .mulM(MatrixProvider.scaling(radius, radius, radius)));
+            sphere.setMaterial(Material.newMaterial().color(new Color(random.nextDouble(), random.nextDouble(), random.nextDouble())).create());
+            world.addObjects(sphere);
+        }
+        return world;
+    }
+}
@@ -1,5 +1,7 @@
 package org.schakalacka.java.raytracing.renderers;
 
+import org.schakalacka.java.raytracing.BinaryExporter;
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.PPMExporter;
 import org.schakalacka.java.raytracing.geometry.objects.Group;
 import org.schakalacka.java.raytracing.geometry.objects.Sphere;
@@ -80,7 +82,11 @@ public class Chapter14_group_timing {
         PPMExporter.export(canvas, "chapter14_group_timing%dx%d_chunks_%d_Matrix_%s.ppm".formatted(width, height, parallelChunks, MatrixProvider.MT), 255);
         long exportEnd = System.currentTimeMillis();
         Logger.info("Export took {}ms", (exportEnd - exportStart));
-        Logger.info("Total rays seen in groups:  g1={}; g2={} - total rays ignored: g1={}; g2={}", g1.totalRaysSeen, g2.totalRaysSeen, g1.groupMissCount, g2.groupMissCount);
+
+        // the binary version of the same image logs its own time and throughput
+        BinaryExporter.exportP6(canvas, "chapter14_group_timing%dx%d_chunks_%d_Matrix_%s_p6.ppm".formatted(width, height, parallelChunks, MatrixProvider.MT), 255);
+        // zero without -Draytracer.metrics=true
+        Logger.info("Box tests: {} - rays ignored by a box: {}", Metrics.get(Metrics.Event.BOX_TEST), Metrics.get(Metrics.Event.BOX_MISS));
     }
 
 
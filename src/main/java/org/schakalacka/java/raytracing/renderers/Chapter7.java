@@ -1,6 +1,6 @@
 package org.schakalacka.java.raytracing.renderers;
 
-import org.schakalacka.java.raytracing.Counter;
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.PPMExporter;
 import org.schakalacka.java.raytracing.math.MATRIX_TYPE;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
@@ -110,7 +110,7 @@ public class Chapter7 {
         long exportEnd = System.currentTimeMillis();
         Logger.info("Export took {}ms", (exportEnd - exportStart));
         Logger.info("patternRedWhite call: {} / {}", RingPattern.countA, RingPattern.countB);
-        Logger.info("Counter : {} ", new Counter().toString());
+        Logger.info("Metrics : {} ", Metrics.snapshot().nonZero());
     }
 
 
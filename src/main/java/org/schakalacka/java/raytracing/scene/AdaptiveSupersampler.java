@@ -0,0 +1,149 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.schakalacka.java.raytracing.scene.tools.RenderExecutor;
+import org.schakalacka.java.raytracing.scene.tools.RenderJob;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Anti-aliasing that only pays for the pixels that need it.
+ * <p>
+ * First the frame is rendered as usual, one ray through every pixel center. Then every pixel is compared with its four neighbours:
+ * if one channel differs by more than the threshold, the pixel is on an edge (or in a noisy spot) and gets supersampled.
+ * The pixel is split into 2x2 quadrants with a ray through each center. If those four still differ by more than the threshold,
+ * each quadrant is split again, up to maxDepth levels. A pixel gets the average of its quadrants.
+ * <p>
+ * Uniform supersampling with the same finest grid would take 4^maxDepth rays per pixel. {@link #summary()} compares that to the rays
+ * actually traced.
+ */
+public class AdaptiveSupersampler {
+
+    public static final double DEFAULT_THRESHOLD = 0.1;
+    public static final int DEFAULT_MAX_DEPTH = 2;
+
+    private final Camera camera;
+    private final double threshold;
+    private final int maxDepth;
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder refinedPixels = new LongAdder();
+
+    public AdaptiveSupersampler(Camera camera) {
+        this(camera, DEFAULT_THRESHOLD, DEFAULT_MAX_DEPTH);
+    }
+
+    /***
+     * @param threshold the contrast (largest difference of one channel) above which pixels and quadrants are refined
+     * @param maxDepth  how often a pixel may be split: at most 4^maxDepth rays per pixel
+     */
+    public AdaptiveSupersampler(Camera camera, double threshold, int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Supersampling needs at least one level, not " + maxDepth);
+        }
+        this.camera = camera;
+        this.threshold = threshold;
+        this.maxDepth = maxDepth;
+    }
+
+    /***
+     * Renders the frame with the camera's tiles on {@link RenderExecutor#shared(int)}. The statistics are the ones of this frame afterwards.
+     */
+    public Canvas render(World world, int threads) {
+        samples.reset();
+        refinedPixels.reset();
+        final int width = camera.getHSize();
+        final int height = camera.getVSize();
+
+        var firstPass = camera.render(world, threads);
+        samples.add((long) width * height);
+
+        // neighbours are read from the first pass, so the result goes into a canvas of its own
+        var result = new Canvas(width, height);
+        var tiles = new TileScheduler(width, height, camera.getTileSize(), camera.getTileOrder());
+        RenderJob.start(RenderExecutor.shared(threads), result, tiles, (y, xFrom, xTo) -> {
+            for (int x = xFrom; x <= xTo; x++) {
+                var color = firstPass.read(x, y);
+                if (needsRefinement(firstPass, x, y, threshold)) {
+                    refinedPixels.increment();
+                    color = sample(world, x, y, 1, 1);
+                }
+                result.write(x, y, color);
+            }
+        }, 0).join();
+
+        Logger.info(summary());
+        return result;
+    }
+
+    /***
+     * Averages the rays through the centers of the four quadrants of the square at x, y with the given edge length (in pixels),
+     * splitting the quadrants further while they differ too much.
+     */
+    private Color sample(World world, double x, double y, double size, int depth) {
+        final double half = size / 2;
+        var quadrants = new Color[4];
+        for (int i = 0; i < 4; i++) {
+            quadrants[i] = world.color_at(camera.rayThrough(x + (i % 2) * half + half / 2, y + (i / 2) * half + half / 2));
+        }
+        samples.add(4);
+
+        if (depth < maxDepth && contrast(quadrants) > threshold) {
+            for (int i = 0; i < 4; i++) {
+                quadrants[i] = sample(world, x + (i % 2) * half, y + (i / 2) * half, half, depth + 1);
+            }
+        }
+        return quadrants[0].add(quadrants[1]).add(quadrants[2]).add(quadrants[3]).mulS(0.25);
+    }
+
+    /***
+     * @return true, if one of the (up to four) direct neighbours differs from the pixel by more than the threshold
+     */
+    static boolean needsRefinement(Canvas canvas, int x, int y, double threshold) {
+        var color = canvas.read(x, y);
+        return (x > 0 && contrast(color, canvas.read(x - 1, y)) > threshold)
+                || (x < canvas.getWidth() - 1 && contrast(color, canvas.read(x + 1, y)) > threshold)
+                || (y > 0 && contrast(color, canvas.read(x, y - 1)) > threshold)
+                || (y < canvas.getHeight() - 1 && contrast(color, canvas.read(x, y + 1)) > threshold);
+    }
+
+    static double contrast(Color a, Color b) {
+        return Math.max(Math.abs(a.r() - b.r()), Math.max(Math.abs(a.g() - b.g()), Math.abs(a.b() - b.b())));
+    }
+
+    private static double contrast(Color[] colors) {
+        double max = 0;
+        for (int i = 0; i < colors.length; i++) {
+            for (int j = i + 1; j < colors.length; j++) {
+                max = Math.max(max, contrast(colors[i], colors[j]));
+            }
+        }
+        return max;
+    }
+
+    /***
+     * @return the rays traced for the last frame, including the first pass
+     */
+    public long samples() {
+        return samples.sum();
+    }
+
+    /***
+     * @return the rays uniform supersampling on the finest grid would trace
+     */
+    public long uniformSamples() {
+        return (long) camera.getHSize() * camera.getVSize() * (1L << (2 * maxDepth));
+    }
+
+    public long refinedPixels() {
+        return refinedPixels.sum();
+    }
+
+    public String summary() {
+        long pixels = (long) camera.getHSize() * camera.getVSize();
+        return "adaptive supersampling: %d of %d pixels refined, %d samples (%.2f per pixel) instead of %d uniform (%.1f%%)".formatted(
+                refinedPixels(), pixels, samples(), samples() / (double) pixels, uniformSamples(), samples() * 100.0 / uniformSamples());
+    }
+}
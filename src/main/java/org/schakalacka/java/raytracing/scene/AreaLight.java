@@ -0,0 +1,150 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.schakalacka.java.raytracing.math.RTPoint;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/***
+ * A rectangular light, spanned by two edges from a corner. It gives soft shadows: a point can see all, some or none of it.
+ * <p>
+ * The rectangle is split into uSteps x vSteps cells, every cell gets one shadow ray. With jitter, the ray goes to a random spot
+ * in its cell instead of the center (stratified sampling), which turns the banding of a regular grid into noise.
+ * <p>
+ * In adaptive mode, only the four corner cells are tested first. If they agree, the point is taken as completely lit or completely
+ * in shadow, and the other cells are skipped. Only points in the penumbra pay for the full grid.
+ * A strip of cells (one step in a direction) only has two corners, and each of them is tested once.
+ * Shadows smaller than the gaps between the corner samples can be missed that way.
+ * <p>
+ * Diffuse and specular are computed as if all the light came from the center (see {@link #asPointLight()}), scaled by the lit fraction.
+ */
+public final class AreaLight {
+
+    /***
+     * Asked once per sample: is the way from the shading point to this position on the light blocked?
+     */
+    @FunctionalInterface
+    public interface ShadowTest {
+        boolean isShadowed(Tuple positionOnLight);
+    }
+
+    private final RTPoint corner;
+    private final Tuple uStep;
+    private final Tuple vStep;
+    private final int uSteps;
+    private final int vSteps;
+    private final boolean jitter;
+    private final boolean adaptive;
+    // the distinct corner cells in grid order, each cell only once
+    private final int[] corners;
+    private final PointLight center;
+
+    private static final int[] NO_CELLS = new int[0];
+
+    private final LongAdder earlyOuts = new LongAdder();
+    private final LongAdder fullGrids = new LongAdder();
+
+    public AreaLight(RTPoint corner, Tuple uEdge, int uSteps, Tuple vEdge, int vSteps, Color intensity) {
+        this(corner, uEdge, uSteps, vEdge, vSteps, intensity, true, true);
+    }
+
+    public AreaLight(RTPoint corner, Tuple uEdge, int uSteps, Tuple vEdge, int vSteps, Color intensity, boolean jitter, boolean adaptive) {
+        if (uSteps < 1 || vSteps < 1) {
+            throw new IllegalArgumentException("An area light needs at least one sample per direction, not " + uSteps + "x" + vSteps);
+        }
+        this.corner = corner;
+        this.uStep = uEdge.mul(1.0 / uSteps);
+        this.vStep = vEdge.mul(1.0 / vSteps);
+        this.uSteps = uSteps;
+        this.vSteps = vSteps;
+        this.jitter = jitter;
+        this.adaptive = adaptive;
+        int last = uSteps * vSteps - 1;
+        this.corners = IntStream.of(0, uSteps - 1, last - (uSteps - 1), last).distinct().toArray();
+        var middle = corner.add(uEdge.mul(0.5)).add(vEdge.mul(0.5));
+        this.center = new PointLight(Tuple.point(middle.x(), middle.y(), middle.z()), intensity);
+    }
+
+    /***
+     * @return a point light in the center of the rectangle, with the intensity of the whole area light
+     */
+    public PointLight asPointLight() {
+        return center;
+    }
+
+    public Color intensity() {
+        return center.intensity();
+    }
+
+    public int samples() {
+        return uSteps * vSteps;
+    }
+
+    /***
+     * @return a position in cell u, v: its center, or a random spot in it with jitter
+     */
+    public Tuple pointOnLight(int u, int v) {
+        double uOffset = jitter ? ThreadLocalRandom.current().nextDouble() : 0.5;
+        double vOffset = jitter ? ThreadLocalRandom.current().nextDouble() : 0.5;
+        return corner.add(uStep.mul(u + uOffset)).add(vStep.mul(v + vOffset));
+    }
+
+    /***
+     * @return the share of the cells the point can see, 0 to 1
+     */
+    public double lightFraction(ShadowTest shadowTest) {
+        if (!adaptive || samples() <= corners.length) {
+            return litSamples(shadowTest, NO_CELLS) / (double) samples();
+        }
+
+        int litCorners = 0;
+        for (int cell : corners) {
+            if (!shadowTest.isShadowed(pointOnLight(cell % uSteps, cell / uSteps))) {
+                litCorners++;
+            }
+        }
+        if (litCorners == 0 || litCorners == corners.length) {
+            earlyOuts.increment();
+            return litCorners == 0 ? 0 : 1;
+        }
+
+        fullGrids.increment();
+        return (litCorners + litSamples(shadowTest, corners)) / (double) samples();
+    }
+
+    private int litSamples(ShadowTest shadowTest, int[] skippedCells) {
+        int lit = 0;
+        for (int v = 0; v < vSteps; v++) {
+            for (int u = 0; u < uSteps; u++) {
+                if (contains(skippedCells, v * uSteps + u)) {
+                    continue;
+                }
+                if (!shadowTest.isShadowed(pointOnLight(u, v))) {
+                    lit++;
+                }
+            }
+        }
+        return lit;
+    }
+
+    private static boolean contains(int[] cells, int cell) {
+        for (int c : cells) {
+            if (c == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***
+     * @return how often the adaptive mode could stop after the corners, and how often it had to trace the full grid
+     */
+    public String statistics() {
+        long early = earlyOuts.sum();
+        long full = fullGrids.sum();
+        long total = Math.max(1, early + full);
+        return "%dx%d area light: %d early outs, %d full grids (%.1f%% early)".formatted(uSteps, vSteps, early, full, early * 100.0 / total);
+    }
+}
@@ -0,0 +1,246 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.schakalacka.java.raytracing.Constants;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.scene.tools.Chunk;
+import org.schakalacka.java.raytracing.scene.tools.RenderExecutor;
+import org.schakalacka.java.raytracing.scene.tools.RenderJob;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Renders a frame within a wall-clock budget, giving up quality instead of time.
+ * <p>
+ * First a coarse preview of the whole frame is traced (like the first pass of {@link ProgressiveRenderer}, but even coarser),
+ * so every pixel has a color no matter what happens afterwards. Then the tiles are rendered at full quality.
+ * After every tile, the time per pixel measured so far predicts how long the rest of the frame takes. If that would end
+ * too close to the budget, the quality goes down one {@link Level}: fewer bounces, hard instead of soft shadows, then fewer pixels
+ * (every 2nd or 4th pixel in both directions, filling the blocks in between). Levels never go up again within a frame.
+ * Bounces and shadows are passed to {@link World#color_at(Ray, int, boolean)} per pixel, the world itself is never changed.
+ * Other renders of the same world at the same time aren't affected.
+ * <p>
+ * At the end of the budget the workers stop after the row they are rendering. Tiles they didn't get to keep the preview.
+ * The {@link Result} tells what was given up.
+ */
+public class BudgetedRenderer {
+
+    /***
+     * The qualities from best to worst.
+     */
+    public enum Level {
+        // -1: whatever Constants.DEFAULT_REFLECTION_DEPTH is when rendering
+        FULL(-1, true, 1),
+        FEWER_BOUNCES(2, true, 1),
+        HARD_SHADOWS(1, false, 1),
+        HALF_RESOLUTION(0, false, 2),
+        QUARTER_RESOLUTION(0, false, 4);
+
+        private final int maxReflectionDepth;
+        public final boolean softShadows;
+        public final int pixelStep;
+
+        Level(int maxReflectionDepth, boolean softShadows, int pixelStep) {
+            this.maxReflectionDepth = maxReflectionDepth;
+            this.softShadows = softShadows;
+            this.pixelStep = pixelStep;
+        }
+
+        /***
+         * @return the bounces at this level, read when called: never more than the current default
+         */
+        public int reflectionDepth() {
+            int depth = Constants.DEFAULT_REFLECTION_DEPTH;
+            return maxReflectionDepth < 0 ? depth : Math.min(maxReflectionDepth, depth);
+        }
+    }
+
+    /***
+     * @param tilesPerLevel  how many tiles were finished at each level (index = ordinal), by the level the tile was rendered at
+     * @param previewTiles   tiles (partly) left with the coarse preview, because the budget ran out
+     * @param degradations   what was given up, readable, empty if nothing
+     */
+    public record Result(Canvas canvas, Duration budget, Duration elapsed, Level finalLevel, int[] tilesPerLevel, int previewTiles,
+                         List<String> degradations) {
+
+        public boolean isDegraded() {
+            return finalLevel != Level.FULL || previewTiles > 0;
+        }
+    }
+
+    // the prediction has to leave room for the tiles still running when the budget ends, and for mistakes
+    private static final double SAFETY = 0.85;
+
+    private final Camera camera;
+
+    public BudgetedRenderer(Camera camera) {
+        this.camera = camera;
+    }
+
+    public Result render(World world, int threads, Duration budget) {
+        final long start = System.nanoTime();
+        final long budgetNanos = budget.toNanos();
+        final int width = camera.getHSize();
+        final int height = camera.getVSize();
+        final var executor = RenderExecutor.shared(threads);
+        final var canvas = new Canvas(width, height);
+        // the world's choice, levels can only turn soft shadows off
+        final boolean softShadows = world.isSoftShadows();
+
+        // the preview: four times fewer rays than a progressive first pass
+        final int previewStep = ProgressiveRenderer.firstStep(width, height) * 2;
+        var preview = new TileScheduler(width, height, camera.getTileSize(), camera.getTileOrder());
+        RenderJob.start(executor, canvas, preview, (y, xFrom, xTo) -> {
+            if (y % previewStep == 0) {
+                // the first pixel on the preview grid in this tile
+                for (int x = (xFrom + previewStep - 1) / previewStep * previewStep; x <= xTo; x += previewStep) {
+                    fill(canvas, x, y, previewStep, width, height, world.color_at(camera.rayForPixel(x, y), 0));
+                }
+            }
+        }, budgetNanos).join();
+
+        final var tiles = new TileScheduler(width, height, camera.getTileSize(), camera.getTileOrder());
+        final int tileSize = camera.getTileSize();
+        final var frame = new Frame(start, budgetNanos, threads, (long) width * height);
+        long remaining = budgetNanos - (System.nanoTime() - start);
+        var job = RenderJob.start(executor, canvas, tiles, (y, xFrom, xTo) -> {
+            var level = frame.levelForRow(y);
+            int step = level.pixelStep;
+            // tiles start at multiples of the tile size, the blocks must not leave the tile
+            int tileY = y - y % tileSize;
+            if ((y - tileY) % step != 0) {
+                // covered by the blocks of a row before
+                return;
+            }
+            int yLimit = Math.min(height, tileY + tileSize);
+            int depth = level.reflectionDepth();
+            boolean shadows = softShadows && level.softShadows;
+            for (int x = xFrom; x <= xTo; x += step) {
+                var color = world.color_at(camera.rayForPixel(x, y), depth, shadows);
+                fill(canvas, x, y, step, xTo + 1, yLimit, color);
+            }
+        }, frame::tileDone, Math.max(1, remaining));
+        job.join();
+
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        var result = frame.result(canvas, budget, elapsed, tiles.tileCount());
+        Logger.info("Budgeted render {}x{} in {}ms of {}ms: {}", width, height, elapsed.toMillis(), budget.toMillis(),
+                result.degradations().isEmpty() ? "full quality" : String.join(", ", result.degradations()));
+        return result;
+    }
+
+    /***
+     * The state of one frame, shared by the workers.
+     */
+    private final class Frame {
+        private final long start;
+        private final long budgetNanos;
+        private final int threads;
+        private final long pixels;
+        private final LongAdder[] nanosPerLevel = new LongAdder[Level.values().length];
+        private final LongAdder[] pixelsPerLevel = new LongAdder[Level.values().length];
+        private final AtomicIntegerArray tilesPerLevel = new AtomicIntegerArray(Level.values().length);
+        private final LongAdder pixelsDone = new LongAdder();
+        // per worker: when its current tile started and the level it renders the tile at
+        private final ThreadLocal<long[]> currentTile = ThreadLocal.withInitial(() -> new long[2]);
+
+        private volatile Level level = Level.FULL;
+
+        private Frame(long start, long budgetNanos, int threads, long pixels) {
+            this.start = start;
+            this.budgetNanos = budgetNanos;
+            this.threads = threads;
+            this.pixels = pixels;
+            for (int i = 0; i < nanosPerLevel.length; i++) {
+                nanosPerLevel[i] = new LongAdder();
+                pixelsPerLevel[i] = new LongAdder();
+            }
+        }
+
+        /***
+         * The level is taken at the first row of a tile and kept for all its rows. With a smaller step halfway through,
+         * rows the blocks above didn't reach would be skipped, leaving the preview in stripes.
+         */
+        private Level levelForRow(int y) {
+            var tile = currentTile.get();
+            // tiles start at multiples of the tile size
+            if (y % camera.getTileSize() == 0) {
+                tile[0] = System.nanoTime();
+                tile[1] = level.ordinal();
+            }
+            return Level.values()[(int) tile[1]];
+        }
+
+        private void tileDone(Chunk tile) {
+            var state = currentTile.get();
+            int used = (int) state[1];
+            long tilePixels = (long) (tile.xTo() - tile.xFrom() + 1) * (tile.yTo() - tile.yFrom() + 1);
+            nanosPerLevel[used].add(System.nanoTime() - state[0]);
+            pixelsPerLevel[used].add(tilePixels);
+            tilesPerLevel.incrementAndGet(used);
+            pixelsDone.add(tilePixels);
+            adjust();
+        }
+
+        /***
+         * Goes down one level if the rest of the frame at the current level probably doesn't fit into the budget.
+         * A new level first has to finish a tile before its speed is known.
+         */
+        private synchronized void adjust() {
+            var current = level;
+            long measuredPixels = pixelsPerLevel[current.ordinal()].sum();
+            if (current == Level.QUARTER_RESOLUTION || measuredPixels == 0) {
+                return;
+            }
+            double nanosPerPixel = nanosPerLevel[current.ordinal()].sum() / (double) measuredPixels;
+            long remainingPixels = pixels - pixelsDone.sum();
+            double predicted = remainingPixels * nanosPerPixel / threads;
+            long elapsed = System.nanoTime() - start;
+            if (elapsed + predicted > budgetNanos * SAFETY) {
+                level = Level.values()[current.ordinal() + 1];
+            }
+        }
+
+        private Result result(Canvas canvas, Duration budget, Duration elapsed, int tileCount) {
+            int[] perLevel = new int[Level.values().length];
+            int finished = 0;
+            for (int i = 0; i < perLevel.length; i++) {
+                perLevel[i] = tilesPerLevel.get(i);
+                finished += perLevel[i];
+            }
+            var worst = level;
+            List<String> degradations = new ArrayList<>();
+            if (worst.reflectionDepth() < Level.FULL.reflectionDepth()) {
+                degradations.add("reflection depth " + worst.reflectionDepth() + " instead of " + Level.FULL.reflectionDepth());
+            }
+            if (!worst.softShadows) {
+                degradations.add("hard shadows");
+            }
+            if (worst.pixelStep > 1) {
+                // the steps are 2 and 4
+                degradations.add("every " + worst.pixelStep + (worst.pixelStep == 2 ? "nd" : "th") + " pixel");
+            }
+            int previewTiles = tileCount - finished;
+            if (previewTiles > 0) {
+                degradations.add(previewTiles + " of " + tileCount + " tiles only previewed");
+            }
+            return new Result(canvas, budget, elapsed, worst, perLevel, previewTiles, List.copyOf(degradations));
+        }
+    }
+
+    private static void fill(Canvas canvas, int x, int y, int step, int xLimit, int yLimit, Color color) {
+        int xTo = Math.min(x + step, xLimit);
+        int yTo = Math.min(y + step, yLimit);
+        for (int by = y; by < yTo; by++) {
+            for (int bx = x; bx < xTo; bx++) {
+                canvas.write(bx, by, color);
+            }
+        }
+    }
+}
@@ -1,20 +1,23 @@
 package org.schakalacka.java.raytracing.scene;
 
+import org.schakalacka.java.raytracing.Metrics;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.jfr.RenderEvent;
 import org.schakalacka.java.raytracing.math.MATRIX_TYPE;
 import org.schakalacka.java.raytracing.math.Matrix;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
 import org.schakalacka.java.raytracing.math.Tuple;
 import org.schakalacka.java.raytracing.math.cublas.RayTracingCublas;
-import org.schakalacka.java.raytracing.scene.tools.Chunk;
-import org.schakalacka.java.raytracing.scene.tools.ChunkCalculator;
+import org.schakalacka.java.raytracing.scene.tools.RenderExecutor;
+import org.schakalacka.java.raytracing.scene.tools.RenderJob;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
+import org.schakalacka.java.raytracing.scene.tools.TileSink;
 import org.schakalacka.java.raytracing.world.World;
+
 import org.tinylog.Logger;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 
 public class Camera {
 
@@ -27,6 +30,9 @@ public class Camera {
     private double halfWidth;
     private double halfHeight;
     private Matrix inverseTransformationMatrix;
+    private int tileSize = TileScheduler.DEFAULT_TILE_SIZE;
+    private TileScheduler.Order tileOrder = TileScheduler.Order.ROWS;
+    private RenderExecutor executor;
 
     public Camera(int hSize, int vSize, double fieldOfView) {
 
@@ -72,14 +78,57 @@ public class Camera {
         this.inverseTransformationMatrix = transformationMatrix.inverse();
     }
 
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /***
+     * Edge length of the square tiles {@link #render(World, int)} hands out to the threads.
+     * Smaller tiles balance better, bigger ones have less overhead.
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be at least 1, but was " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    public TileScheduler.Order getTileOrder() {
+        return tileOrder;
+    }
+
+    public void setTileOrder(TileScheduler.Order tileOrder) {
+        this.tileOrder = Objects.requireNonNull(tileOrder);
+    }
+
+    /***
+     * @return the executor {@link #submit(World)} renders on. Unless one was set, the shared one with a thread per core.
+     */
+    public RenderExecutor getExecutor() {
+        return executor != null ? executor : RenderExecutor.shared(Runtime.getRuntime().availableProcessors());
+    }
+
+    public void setExecutor(RenderExecutor executor) {
+        this.executor = executor;
+    }
+
     public double getPixelSize() {
         return pixelSize;
     }
 
     public Ray rayForPixel(int px, int py) {
-        // offset from the edge of the canvas to the pixel's center
-        double xOffset = (px + 0.5) * pixelSize;
-        double yOffset = (py + 0.5) * pixelSize;
+        // through the pixel's center
+        return rayThrough(px + 0.5, py + 0.5);
+    }
+
+    /***
+     * A ray through any point of the canvas, e.g. one of several samples within a pixel.
+     * Pixel x, y covers canvasX from x to x + 1 and canvasY from y to y + 1.
+     */
+    public Ray rayThrough(double canvasX, double canvasY) {
+        // offset from the edge of the canvas to the point
+        double xOffset = canvasX * pixelSize;
+        double yOffset = canvasY * pixelSize;
 
         // untransformed coordinates of the pixel in world space
         // (the camera looks toward -z, so +x is to the *left*)
@@ -91,6 +140,7 @@ public class Camera {
         var origin = inverseTransformationMatrix.mulT(Tuple.point(0, 0, 0));
         var direction = pixel.sub(origin).normalize();
 
+        Metrics.count(Metrics.Event.PRIMARY_RAY);
         return new Ray(origin, direction);
     }
 
@@ -107,40 +157,47 @@ public class Camera {
         return image;
     }
 
-    public Canvas render(World world, int parallelChunks) {
+    /***
+     * Renders the image with the given number of threads. The image is split into small tiles (see {@link #setTileSize(int)}),
+     * the threads take the next free tile whenever they are done with one.
+     * The threads are the ones of {@link RenderExecutor#shared(int)}, they are reused by the next render.
+     */
+    public Canvas render(World world, int threads) {
+        return this.render(world, threads, newTileScheduler());
+    }
+
+    /***
+     * Same as {@link #render(World, int)}, but with tiles from the given scheduler. Look at it afterwards to see how busy the threads were.
+     */
+    public Canvas render(World world, int threads, TileScheduler tiles) {
         if (Objects.requireNonNull(MatrixProvider.MT) == MATRIX_TYPE.CUBLAS) {
             RayTracingCublas.setupContext();
         }
 
         try {
-            var image = new Canvas(this.hSize, this.vSize);
-
-            Chunk[] chunks = ChunkCalculator.calculateChunks(parallelChunks, hSize, vSize);
-
-            ForkJoinPool customThreadPool = new ForkJoinPool(parallelChunks);
-            try {
-
-                customThreadPool.submit(() -> Arrays.asList(chunks).parallelStream().forEach(chunk -> {
-                    Logger.info("starting chunk {}", chunk);
-                    var xFrom = chunk.xFrom();
-                    var xTo = chunk.xTo();
-                    var yFrom = chunk.yFrom();
-                    var yTo = chunk.yTo();
-
-                    for (int y = yFrom; y <= yTo; y++) {
-                        for (int x = xFrom; x <= xTo; x++) {
-                            var ray = this.rayForPixel(x, y);
-                            var color = world.color_at(ray);
-                            image.write(x, y, color);
-                        }
-                    }
-                })).get();
-            } catch (InterruptedException | ExecutionException e) {
-                throw new RuntimeException(e);
-            } finally {
-                customThreadPool.shutdown();
+            var event = new RenderEvent();
+            event.begin();
+            var metricsBefore = Metrics.snapshot();
+            var image = start(world, RenderExecutor.shared(threads), tiles, 0).join();
+            var metrics = Metrics.snapshot().minus(metricsBefore);
+            if (event.shouldCommit()) {
+                event.width = hSize;
+                event.height = vSize;
+                event.threads = threads;
+                event.tiles = tiles.tileCount();
+                event.matrixType = String.valueOf(MatrixProvider.MT);
+                event.rays = metrics.rays();
+                event.commit();
+            }
+            if (Metrics.ENABLED) {
+                // shadow rays and the hits of the shadow cache are part of the report
+                Logger.info("Rendered {}x{}, {}", hSize, vSize, metrics.report((long) hSize * vSize));
+            } else {
+                Logger.info("Rendered {}x{}", hSize, vSize);
+            }
+            for (var areaLight : world.getAreaLights()) {
+                Logger.info(areaLight.statistics());
             }
-
             return image;
         } finally {
             if (Objects.requireNonNull(MatrixProvider.MT) == MATRIX_TYPE.CUBLAS) {
@@ -149,4 +206,87 @@ public class Camera {
         }
     }
 
+    /***
+     * Renders like {@link #render(World, int)}, but also records what every pixel cost, see {@link CostMap}.
+     * Rays and shape tests come from {@link Metrics}, without -Draytracer.metrics=true only the time is recorded.
+     * The timing itself costs a little, don't use it for benchmarks.
+     */
+    public CostMap renderCostMap(World world, int threads) {
+        if (!Metrics.ENABLED) {
+            Logger.warn("Metrics are off (-Draytracer.metrics=true), the cost map only has times");
+        }
+        var costs = new CostMap(new Canvas(hSize, vSize));
+        var image = costs.image();
+        RenderJob.start(RenderExecutor.shared(threads), image, newTileScheduler(), (y, xFrom, xTo) -> {
+            for (int x = xFrom; x <= xTo; x++) {
+                // the counts of this thread only, so other threads rendering at the same time don't end up in this pixel
+                long raysBefore = Metrics.threadRays();
+                long testsBefore = Metrics.threadCount(Metrics.Event.SHAPE_TEST);
+                long start = System.nanoTime();
+                image.write(x, y, world.color_at(this.rayForPixel(x, y)));
+                long nanos = System.nanoTime() - start;
+                costs.record(x, y, nanos, Metrics.threadRays() - raysBefore, Metrics.threadCount(Metrics.Event.SHAPE_TEST) - testsBefore);
+            }
+        }, 0).join();
+        Logger.info(costs.summary());
+        return costs;
+    }
+
+    /***
+     * Starts rendering on this camera's executor and returns right away.
+     */
+    public RenderJob submit(World world) {
+        return start(world, getExecutor(), newTileScheduler(), 0);
+    }
+
+    /***
+     * Starts rendering on this camera's executor and returns right away.
+     * Once the timeout is over, no more rows are rendered and the job completes with what it has, see {@link RenderJob#isPartial()}.
+     */
+    public RenderJob submit(World world, Duration timeout) {
+        return start(world, getExecutor(), newTileScheduler(), Math.max(1, timeout.toNanos()));
+    }
+
+    /***
+     * Renders the frame tile by tile into the sink, without ever holding the whole frame. Blocks until all tiles are in the sink.
+     * Every thread renders into a canvas of one tile, so memory doesn't grow with the resolution.
+     */
+    public void render(World world, int threads, TileSink sink) {
+        submit(world, RenderExecutor.shared(threads), sink).join();
+    }
+
+    /***
+     * Starts rendering tile by tile into the sink on the given executor and returns right away. The job completes with null.
+     */
+    public RenderJob submit(World world, RenderExecutor executor, TileSink sink) {
+        final int size = this.tileSize;
+        final var tiles = new TileScheduler(hSize, vSize, size, tileOrder);
+        // a worker renders one tile after the other, so one canvas per thread is enough
+        final var tileCanvases = ThreadLocal.withInitial(() -> new Canvas(size, size));
+
+        return RenderJob.start(executor, null, tiles, (y, xFrom, xTo) -> {
+            var pixels = tileCanvases.get();
+            for (int x = xFrom; x <= xTo; x++) {
+                var ray = this.rayForPixel(x, y);
+                // the tiles start at multiples of the tile size
+                pixels.write(x - xFrom, y % size, world.color_at(ray));
+            }
+        }, tile -> sink.write(tile, tileCanvases.get()), 0);
+    }
+
+    private RenderJob start(World world, RenderExecutor executor, TileScheduler tiles, long timeoutNanos) {
+        var image = new Canvas(this.hSize, this.vSize);
+        return RenderJob.start(executor, image, tiles, (y, xFrom, xTo) -> {
+            for (int x = xFrom; x <= xTo; x++) {
+                var ray = this.rayForPixel(x, y);
+                var color = world.color_at(ray);
+                image.write(x, y, color);
+            }
+        }, timeoutNanos);
+    }
+
+    private TileScheduler newTileScheduler() {
+        return new TileScheduler(hSize, vSize, tileSize, tileOrder);
+    }
+
 }
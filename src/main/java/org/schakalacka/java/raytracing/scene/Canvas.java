@@ -1,11 +1,23 @@
 package org.schakalacka.java.raytracing.scene;
 
+/***
+ * The framebuffer: one float[] with red, green and blue of every pixel, row by row (the order the exporters write them).
+ * <p>
+ * A Color[][] needs one object per pixel. For 3840x2160 that's 8.3M Color records of 40 bytes each plus the references,
+ * ~350MB the GC has to walk through. The packed floats are 12 bytes per pixel, ~95MB in a single array (see CanvasMemory).
+ * Floats are plenty for colors that end up with 8 or 16 bits per channel.
+ * <p>
+ * Writing needs no locks: every pixel has its own three slots, threads rendering different tiles never touch the same ones.
+ * The threads writing must be done (e.g. joined) before somebody else reads the canvas.
+ */
 public class Canvas {
 
+    private static final int CHANNELS = 3;
+
     private final int width;
     private final int height;
 
-    private final Color[][] pixels;
+    private final float[] pixels;
 
     public Canvas(int width, int height) {
         this(width, height, Color.BLACK);
@@ -14,11 +26,14 @@ public class Canvas {
     public Canvas(int width, int height, Color initColor) {
         this.width = width;
         this.height = height;
-        this.pixels = new Color[width][height];
+        this.pixels = new float[width * height * CHANNELS];
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                this.pixels[x][y] = initColor;
+        // a new array is already black
+        if (initColor.r() != 0 || initColor.g() != 0 || initColor.b() != 0) {
+            for (int i = 0; i < pixels.length; i += CHANNELS) {
+                pixels[i] = (float) initColor.r();
+                pixels[i + 1] = (float) initColor.g();
+                pixels[i + 2] = (float) initColor.b();
             }
         }
     }
@@ -44,11 +59,30 @@ public class Canvas {
 
         y = Math.max(y, 0);
         y = Math.min(y, (this.height -1));
-        this.pixels[x][y] = val;
+
+        final int index = (y * width + x) * CHANNELS;
+        pixels[index] = (float) val.r();
+        pixels[index + 1] = (float) val.g();
+        pixels[index + 2] = (float) val.b();
     }
 
     public Color read(int x, int y) {
-        return this.pixels[x][y];
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("No pixel " + x + "," + y + " on a " + width + "x" + height + " canvas");
+        }
+        final int index = (y * width + x) * CHANNELS;
+        return new Color(pixels[index], pixels[index + 1], pixels[index + 2]);
+    }
+
+    /***
+     * Copies red, green and blue of all pixels in row y into rgb, which needs room for 3 * width floats.
+     * Lets exporters walk the image without a Color per pixel.
+     */
+    public void readRow(int y, float[] rgb) {
+        if (y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("No row " + y + " on a " + width + "x" + height + " canvas");
+        }
+        System.arraycopy(pixels, y * width * CHANNELS, rgb, 0, width * CHANNELS);
     }
 
 }
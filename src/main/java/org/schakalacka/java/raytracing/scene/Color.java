@@ -7,6 +7,8 @@ public record Color(double r, double g, double b) {
     public static final Color BLACK = new Color(0, 0, 0);
     public static final Color WHITE = new Color(1, 1, 1);
 
+    private static final double FLOAT_TOLERANCE = 0.000001;
+
     public static int scaleValue(double value, int scale) {
         if (value < 0) {
             return 0;
@@ -16,7 +18,8 @@ public record Color(double r, double g, double b) {
             return scale;
         }
 
-        return (int) Math.ceil(value * scale);
+        // the canvas stores floats: 0.8 comes back as 0.800000011920929, which must still be 204 and not 205 of 255
+        return (int) Math.ceil(value * scale - scale * FLOAT_TOLERANCE);
     }
 
     public int rs(int scale) {
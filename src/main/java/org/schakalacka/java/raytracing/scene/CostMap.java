@@ -0,0 +1,138 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.schakalacka.java.raytracing.BinaryExporter;
+
+import java.util.Arrays;
+
+/***
+ * What every pixel of a frame cost, recorded by {@link Camera#renderCostMap}: the time spent in it, the rays it spawned
+ * (primary, shadow, reflection and refraction) and the shape intersection tests these rays needed.
+ * <p>
+ * {@link #heatmap(Measure)} turns one of them into a false-color image: blue is cheap, then cyan, green, yellow, red is expensive.
+ * Glass and mirrors show up by their rays, big groups without a good hierarchy by their shape tests.
+ * <p>
+ * The colors are scaled to the 99th percentile instead of the maximum, so a few pixels that got hit by a GC pause or
+ * the JIT don't turn the rest of the image blue.
+ */
+public class CostMap {
+
+    public enum Measure {
+        TIME("time"), RAYS("rays"), SHAPE_TESTS("tests");
+
+        // appended to the file name of the image by export
+        public final String suffix;
+
+        Measure(String suffix) {
+            this.suffix = suffix;
+        }
+    }
+
+    private static final double PERCENTILE = 0.99;
+    // blue, cyan, green, yellow, red
+    private static final Color[] GRADIENT = {new Color(0, 0, 1), new Color(0, 1, 1), new Color(0, 1, 0), new Color(1, 1, 0), new Color(1, 0, 0)};
+
+    private final Canvas image;
+    private final int width;
+    private final int height;
+    private final long[] nanos;
+    private final int[] rays;
+    private final int[] shapeTests;
+
+    CostMap(Canvas image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.nanos = new long[width * height];
+        this.rays = new int[width * height];
+        this.shapeTests = new int[width * height];
+    }
+
+    // every pixel is recorded by exactly one thread, like the canvas
+    void record(int x, int y, long pixelNanos, long pixelRays, long pixelShapeTests) {
+        int index = y * width + x;
+        nanos[index] = pixelNanos;
+        rays[index] = (int) pixelRays;
+        shapeTests[index] = (int) pixelShapeTests;
+    }
+
+    /***
+     * @return the rendered frame itself
+     */
+    public Canvas image() {
+        return image;
+    }
+
+    public long get(Measure measure, int x, int y) {
+        int index = y * width + x;
+        return switch (measure) {
+            case TIME -> nanos[index];
+            case RAYS -> rays[index];
+            case SHAPE_TESTS -> shapeTests[index];
+        };
+    }
+
+    public long total(Measure measure) {
+        long total = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                total += get(measure, x, y);
+            }
+        }
+        return total;
+    }
+
+    public Canvas heatmap(Measure measure) {
+        long[] values = new long[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                values[y * width + x] = get(measure, x, y);
+            }
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double scale = Math.max(1, sorted[(int) ((sorted.length - 1) * PERCENTILE)]);
+
+        var heatmap = new Canvas(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                heatmap.write(x, y, falseColor(values[y * width + x] / scale));
+            }
+        }
+        return heatmap;
+    }
+
+    /***
+     * @param value 0 to 1, higher values are clamped to 1
+     */
+    static Color falseColor(double value) {
+        double position = Math.min(1, Math.max(0, value)) * (GRADIENT.length - 1);
+        int lower = Math.min((int) position, GRADIENT.length - 2);
+        double t = position - lower;
+        return GRADIENT[lower].mulS(1 - t).add(GRADIENT[lower + 1].mulS(t));
+    }
+
+    /***
+     * Writes the image to the given file and the heatmaps next to it: render.ppm gets render_time.ppm, render_rays.ppm and render_tests.ppm.
+     */
+    public void export(String fileName) {
+        BinaryExporter.exportP6(image, fileName, 255);
+        for (Measure measure : Measure.values()) {
+            BinaryExporter.exportP6(heatmap(measure), heatmapFileName(fileName, measure), 255);
+        }
+    }
+
+    static String heatmapFileName(String fileName, Measure measure) {
+        int dot = fileName.lastIndexOf('.');
+        int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+        if (dot <= separator) {
+            return fileName + "_" + measure.suffix;
+        }
+        return fileName.substring(0, dot) + "_" + measure.suffix + fileName.substring(dot);
+    }
+
+    public String summary() {
+        long pixels = (long) width * height;
+        return "cost map %dx%d: %.1fus, %.2f rays and %.1f shape tests per pixel on average".formatted(width, height,
+                total(Measure.TIME) / 1000.0 / pixels, total(Measure.RAYS) / (double) pixels, total(Measure.SHAPE_TESTS) / (double) pixels);
+    }
+}
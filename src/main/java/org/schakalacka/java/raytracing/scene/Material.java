@@ -4,6 +4,9 @@ import org.schakalacka.java.raytracing.geometry.objects.Shape;
 import org.schakalacka.java.raytracing.geometry.patterns.Pattern;
 import org.schakalacka.java.raytracing.math.Tuple;
 
+import java.util.List;
+import java.util.function.IntPredicate;
+
 public record Material(Color color, double ambient, double diffuse, double specular, double shininess,
                        double reflectivity, double transparency, double refractiveIndex, Pattern pattern,
                        boolean createsShadow) {
@@ -16,7 +19,26 @@ public record Material(Color color, double ambient, double diffuse, double specu
         return this.lighting(light, null, eyePosition, eyeVector, normalVector, false);
     }
 
+    /***
+     * The sum of the lighting of every light. Each one adds its own ambient part, the shadow test is asked per light (by its index).
+     */
+    public Color lighting(List<PointLight> lights, Shape shape, Tuple eyePosition, Tuple eyeVector, Tuple normalVector, IntPredicate isInShadow) {
+        Color result = Color.BLACK;
+        for (int i = 0; i < lights.size(); i++) {
+            result = result.add(lighting(lights.get(i), shape, eyePosition, eyeVector, normalVector, isInShadow.test(i)));
+        }
+        return result;
+    }
+
     public Color lighting(PointLight light, Shape shape, Tuple eyePosition, Tuple eyeVector, Tuple normalVector, boolean isInShadow) {
+        return lighting(light, shape, eyePosition, eyeVector, normalVector, isInShadow ? 0 : 1);
+    }
+
+    /***
+     * @param lightFraction how much of the light reaches the point, from 0 (in shadow) to 1 (fully lit), e.g. the lit part of an {@link AreaLight}.
+     *                      Scales diffuse and specular, the ambient part is always there.
+     */
+    public Color lighting(PointLight light, Shape shape, Tuple eyePosition, Tuple eyeVector, Tuple normalVector, double lightFraction) {
         Color ambientResult;
         Color diffuseResult;
         Color specularResult;
@@ -27,13 +49,15 @@ public record Material(Color color, double ambient, double diffuse, double specu
             actualBaseColor = this.pattern.patternAtShape(shape, eyePosition);
         }
 
-        var effectiveColor = actualBaseColor.mulC(light.intensity());
+        // the same as light.intensity() for lights without falloff
+        var intensity = light.intensityAt(eyePosition);
+        var effectiveColor = actualBaseColor.mulC(intensity);
 
         // calculate the direction from eye to light
         var lightVector = light.position().sub(eyePosition).normalize();
 
         ambientResult = effectiveColor.mulS(this.ambient);
-        if (isInShadow) {
+        if (lightFraction <= 0) {
             return ambientResult;
         }
 
@@ -45,7 +69,7 @@ public record Material(Color color, double ambient, double diffuse, double specu
             diffuseResult = Color.BLACK;
             specularResult = Color.BLACK;
         } else {
-            diffuseResult = effectiveColor.mulS(this.diffuse).mulS(lightDotNormal);
+            diffuseResult = effectiveColor.mulS(this.diffuse).mulS(lightDotNormal * lightFraction);
 
             // reflectDotEye represents the cosine of the angle between the reflection vector and the eye vector.
             // A negative number means the light reflects away from the eye
@@ -57,7 +81,7 @@ public record Material(Color color, double ambient, double diffuse, double specu
             } else {
                 // now we can compute the specular contribution
                 var factor = Math.pow(reflectDotEye, this.shininess);
-                specularResult = light.intensity().mulS(this.specular).mulS(factor);
+                specularResult = intensity.mulS(this.specular).mulS(factor * lightFraction);
             }
         }
 
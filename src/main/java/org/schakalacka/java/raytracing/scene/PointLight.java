@@ -1,15 +1,56 @@
 package org.schakalacka.java.raytracing.scene;
 
 import org.schakalacka.java.raytracing.math.RTPoint;
+import org.schakalacka.java.raytracing.math.Tuple;
 
-public record PointLight(RTPoint position, Color intensity) {
+/***
+ * A light in a single point. Without a falloff radius (the book's light), it's just as bright everywhere.
+ * With one, the intensity drops with the distance d as 1 / (1 + (d / falloffRadius)^2): half as bright at the radius,
+ * and like 1/d^2 (as real lights do) further away.
+ */
+public record PointLight(RTPoint position, Color intensity, double falloffRadius) {
+
+    public PointLight(RTPoint position, Color intensity) {
+        this(position, intensity, Double.POSITIVE_INFINITY);
+    }
+
+    public boolean isAttenuated() {
+        return falloffRadius != Double.POSITIVE_INFINITY;
+    }
+
+    /***
+     * @return the intensity of this light arriving at the point
+     */
+    public Color intensityAt(Tuple point) {
+        if (!isAttenuated()) {
+            return intensity;
+        }
+        double distance = position.sub(point).magnitude() / falloffRadius;
+        return intensity.mulS(1 / (1 + distance * distance));
+    }
+
+    /***
+     * The distance beyond which no channel of the intensity arriving is above the cutoff, i.e. beyond which the light can be ignored.
+     * Infinite for lights without falloff (or a cutoff of 0 or less).
+     */
+    public double influenceRadius(double cutoff) {
+        double brightest = Math.max(intensity.r(), Math.max(intensity.g(), intensity.b()));
+        if (!isAttenuated() || cutoff <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (brightest <= cutoff) {
+            return 0;
+        }
+        // brightest / (1 + (d / r)^2) = cutoff
+        return falloffRadius * Math.sqrt(brightest / cutoff - 1);
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PointLight that = (PointLight) o;
-        return position.equals(that.position) && intensity.equals(that.intensity);
+        return position.equals(that.position) && intensity.equals(that.intensity) && falloffRadius == that.falloffRadius;
     }
 
 }
@@ -0,0 +1,156 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.schakalacka.java.raytracing.scene.tools.RenderExecutor;
+import org.schakalacka.java.raytracing.scene.tools.RenderJob;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
+import org.schakalacka.java.raytracing.world.World;
+import org.tinylog.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/***
+ * Renders a preview right away and improves it pass by pass, like a viewport would.
+ * <p>
+ * The first pass traces only every n-th pixel in both directions and fills the n x n block below and right of it with the color.
+ * Every following pass halves n and traces the pixels the coarser passes left out, until every pixel has its own ray.
+ * Then supersampling passes follow: each adds one ray through a random spot of every pixel, the pixel shows the average of all its rays.
+ * <p>
+ * n starts at 8, or higher for big frames: the first pass never traces more than {@link #FIRST_PASS_RAYS} rays, so the time to the
+ * first image doesn't depend on the resolution.
+ * <p>
+ * After every pass the snapshot callback gets the canvas. It's the one the next pass renders into, so it's only complete and stable
+ * during the callback: copy or export it there.
+ */
+public class ProgressiveRenderer {
+
+    public static final int MIN_FIRST_STEP = 8;
+    public static final int FIRST_PASS_RAYS = 16 * 1024;
+    public static final int DEFAULT_SUPERSAMPLING_PASSES = 4;
+
+    /***
+     * @param step             the distance between the pixels traced in this pass, 1 once every pixel has been traced
+     * @param samplesPerPixel  rays per pixel after this pass, 0 while there are pixels without their own ray
+     */
+    public record Pass(int index, int step, int samplesPerPixel, long nanos) {
+    }
+
+    @FunctionalInterface
+    public interface Snapshot {
+        void published(Canvas canvas, Pass pass);
+    }
+
+    private final Camera camera;
+    private final int supersamplingPasses;
+    private volatile boolean stopped = false;
+
+    public ProgressiveRenderer(Camera camera) {
+        this(camera, DEFAULT_SUPERSAMPLING_PASSES);
+    }
+
+    public ProgressiveRenderer(Camera camera, int supersamplingPasses) {
+        this.camera = camera;
+        this.supersamplingPasses = supersamplingPasses;
+    }
+
+    /***
+     * @return the step of the first pass for a frame of the given size: a power of two, at least {@link #MIN_FIRST_STEP}
+     */
+    public static int firstStep(int width, int height) {
+        int step = MIN_FIRST_STEP;
+        while ((long) ceilDiv(width, step) * ceilDiv(height, step) > FIRST_PASS_RAYS) {
+            step *= 2;
+        }
+        return step;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /***
+     * Runs all passes on {@link RenderExecutor#shared(int)}, calling snapshot after each, and returns the final canvas.
+     * Returns early with the last complete pass after {@link #stop()}.
+     */
+    public Canvas render(World world, int threads, Snapshot snapshot) {
+        stopped = false;
+        final int width = camera.getHSize();
+        final int height = camera.getVSize();
+        final var executor = RenderExecutor.shared(threads);
+        final var canvas = new Canvas(width, height);
+        int passIndex = 0;
+
+        for (int step = firstStep(width, height); step >= 1 && !stopped; step /= 2) {
+            final int s = step;
+            final boolean first = passIndex == 0;
+            long start = System.nanoTime();
+            runPass(executor, canvas, (y, xFrom, xTo) -> {
+                if (y % s != 0) {
+                    return;
+                }
+                for (int x = xFrom; x <= xTo; x++) {
+                    // the pixels on the grid of the pass before already have their color
+                    if (x % s != 0 || (!first && x % (2 * s) == 0 && y % (2 * s) == 0)) {
+                        continue;
+                    }
+                    fill(canvas, x, y, s, world.color_at(camera.rayForPixel(x, y)));
+                }
+            });
+            publish(snapshot, canvas, new Pass(passIndex++, step, step == 1 ? 1 : 0, System.nanoTime() - start));
+        }
+
+        // the sum of all rays per pixel, the canvas shows the average
+        final float[] sums = new float[width * height * 3];
+        for (int pass = 0; pass < supersamplingPasses && !stopped; pass++) {
+            final int samples = pass + 2;
+            long start = System.nanoTime();
+            runPass(executor, canvas, (y, xFrom, xTo) -> {
+                for (int x = xFrom; x <= xTo; x++) {
+                    int index = (y * width + x) * 3;
+                    if (samples == 2) {
+                        // the first ray of the pixel is the one through its center
+                        var center = canvas.read(x, y);
+                        sums[index] = (float) center.r();
+                        sums[index + 1] = (float) center.g();
+                        sums[index + 2] = (float) center.b();
+                    }
+                    var random = ThreadLocalRandom.current();
+                    var color = world.color_at(camera.rayThrough(x + random.nextDouble(), y + random.nextDouble()));
+                    sums[index] += (float) color.r();
+                    sums[index + 1] += (float) color.g();
+                    sums[index + 2] += (float) color.b();
+                    canvas.write(x, y, new Color(sums[index] / samples, sums[index + 1] / samples, sums[index + 2] / samples));
+                }
+            });
+            publish(snapshot, canvas, new Pass(passIndex++, 1, samples, System.nanoTime() - start));
+        }
+        return canvas;
+    }
+
+    /***
+     * Ends {@link #render(World, int, Snapshot)} after the pass currently running, e.g. from the snapshot callback.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void runPass(RenderExecutor executor, Canvas canvas, RenderJob.RowRenderer rows) {
+        var tiles = new TileScheduler(camera.getHSize(), camera.getVSize(), camera.getTileSize(), camera.getTileOrder());
+        RenderJob.start(executor, canvas, tiles, rows, 0).join();
+    }
+
+    // blocks of one pass never overlap, so threads filling blocks across tile borders don't get in each other's way
+    private static void fill(Canvas canvas, int x, int y, int step, Color color) {
+        int xTo = Math.min(x + step, canvas.getWidth());
+        int yTo = Math.min(y + step, canvas.getHeight());
+        for (int by = y; by < yTo; by++) {
+            for (int bx = x; bx < xTo; bx++) {
+                canvas.write(bx, by, color);
+            }
+        }
+    }
+
+    private static void publish(Snapshot snapshot, Canvas canvas, Pass pass) {
+        Logger.info("progressive pass {}: step {}, {} samples per pixel, {}ms", pass.index(), pass.step(), pass.samplesPerPixel(), pass.nanos() / 1_000_000);
+        snapshot.published(canvas, pass);
+    }
+}
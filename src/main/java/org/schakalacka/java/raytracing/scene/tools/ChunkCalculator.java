@@ -7,6 +7,7 @@ import org.tinylog.Logger;
  * ChunkCalculator only works correctly for:
  * - 1 chunk
  * - number of chunks is a perfect square
+ * The camera doesn't use it anymore, it renders many small tiles from a {@link TileScheduler} instead.
  */
 public class ChunkCalculator {
 
@@ -51,7 +52,7 @@ public class ChunkCalculator {
 
 
             // every last chunk in a row needs to add additional x pixels
-            if (i % divider == 3) {
+            if (i % divider == divider - 1) {
                 xEnd += lastMissingX;
             }
 
@@ -0,0 +1,70 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * A fixed set of render threads that lives across many frames.
+ * Creating and tearing down a thread pool for every frame costs more than rendering a small frame, so an animation or a
+ * service should create one executor and hand it to {@link org.schakalacka.java.raytracing.scene.Camera#setExecutor(RenderExecutor)}.
+ * <p>
+ * The threads are daemon threads, a forgotten executor doesn't keep the JVM alive.
+ */
+public final class RenderExecutor implements AutoCloseable {
+
+    private static final Map<Integer, RenderExecutor> SHARED = new ConcurrentHashMap<>();
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    public RenderExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, but got " + threads);
+        }
+        this.threads = threads;
+        final int poolNumber = POOL_COUNTER.incrementAndGet();
+        final var threadCounter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "render-" + poolNumber + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***
+     * @return the executor with the given number of threads that everybody shares, created on first use
+     */
+    public static RenderExecutor shared(int threads) {
+        return SHARED.computeIfAbsent(threads, RenderExecutor::new);
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    public boolean isClosed() {
+        return pool.isShutdown();
+    }
+
+    /***
+     * Stops the threads. Running jobs stop at the next row and end up partial, the ones that haven't started yet are finished
+     * right away without rendering anything.
+     */
+    @Override
+    public void close() {
+        SHARED.remove(threads, this);
+        for (Runnable notStarted : pool.shutdownNow()) {
+            if (notStarted instanceof RenderJob.Worker worker) {
+                worker.skip();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.jfr.TileEvent;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * One frame being rendered on a {@link RenderExecutor}. The workers take tiles from a {@link TileScheduler} until there are none left,
+ * the job was cancelled or its deadline passed. They check that before every row, so a frame stops within one row per worker.
+ * <p>
+ * When the deadline passes, the job still completes normally: {@link #get()} returns the canvas with everything rendered so far,
+ * {@link #isPartial()} tells whether something is missing. A cancelled job behaves like any cancelled {@link Future},
+ * but what was rendered until then can still be looked at with {@link #getCanvas()}.
+ */
+public class RenderJob implements Future<Canvas> {
+
+    /***
+     * Renders the pixels xFrom to xTo (both inclusive) of row y into the canvas.
+     */
+    @FunctionalInterface
+    public interface RowRenderer {
+        void render(int y, int xFrom, int xTo);
+    }
+
+    /***
+     * Called by the worker that rendered all rows of the tile, right after the last one.
+     */
+    @FunctionalInterface
+    public interface TileDone {
+        void done(Chunk tile);
+    }
+
+    private final Canvas canvas;
+    private final TileScheduler tiles;
+    private final RowRenderer rowRenderer;
+    private final TileDone tileDone;
+    private final long deadlineNanos;
+    private final CompletableFuture<Canvas> result = new CompletableFuture<>();
+    private final AtomicInteger runningWorkers;
+    private final AtomicInteger completedTiles = new AtomicInteger();
+
+    private volatile boolean stopped = false;
+
+    private RenderJob(Canvas canvas, TileScheduler tiles, RowRenderer rowRenderer, TileDone tileDone, long deadlineNanos, int workers) {
+        this.canvas = canvas;
+        this.tiles = tiles;
+        this.rowRenderer = rowRenderer;
+        this.tileDone = tileDone;
+        this.deadlineNanos = deadlineNanos;
+        this.runningWorkers = new AtomicInteger(workers);
+    }
+
+    /***
+     * Starts rendering all tiles into the canvas, with as many workers as the executor has threads (but not more than there are tiles).
+     *
+     * @param timeoutNanos time the job may take from now on, 0 or less for no deadline
+     */
+    public static RenderJob start(RenderExecutor executor, Canvas canvas, TileScheduler tiles, RowRenderer rowRenderer, long timeoutNanos) {
+        return start(executor, canvas, tiles, rowRenderer, tile -> {
+        }, timeoutNanos);
+    }
+
+    /***
+     * Same as {@link #start(RenderExecutor, Canvas, TileScheduler, RowRenderer, long)}, telling tileDone about every finished tile.
+     * The canvas may be null when the rows go somewhere else, e.g. to a {@link TileSink}. The job completes with null then.
+     */
+    public static RenderJob start(RenderExecutor executor, Canvas canvas, TileScheduler tiles, RowRenderer rowRenderer, TileDone tileDone, long timeoutNanos) {
+        final int workers = Math.max(1, Math.min(executor.threads(), tiles.tileCount()));
+        final long deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : Long.MAX_VALUE;
+        var job = new RenderJob(canvas, tiles, rowRenderer, tileDone, deadline, workers);
+        tiles.start(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(job.new Worker(i));
+        }
+        return job;
+    }
+
+    final class Worker implements Runnable {
+        private final int index;
+
+        private Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            long busy = 0;
+            int rendered = 0;
+            try {
+                Chunk tile;
+                while (!shouldStop() && (tile = tiles.next()) != null) {
+                    long start = System.nanoTime();
+                    var event = new TileEvent();
+                    event.begin();
+                    long raysBefore = Metrics.threadRays();
+                    boolean completed = renderTile(tile);
+                    if (event.shouldCommit()) {
+                        event.xFrom = tile.xFrom();
+                        event.yFrom = tile.yFrom();
+                        event.xTo = tile.xTo();
+                        event.yTo = tile.yTo();
+                        event.completed = completed;
+                        event.rays = Metrics.threadRays() - raysBefore;
+                        event.commit();
+                    }
+                    if (completed) {
+                        tileDone.done(tile);
+                        rendered++;
+                        completedTiles.incrementAndGet();
+                    }
+                    busy += System.nanoTime() - start;
+                }
+            } catch (RuntimeException | Error e) {
+                stopped = true;
+                result.completeExceptionally(e);
+            } finally {
+                // the pool threads outlive the world, don't keep it reachable through their shadow caches
+                World.releaseThreadState();
+                tiles.record(index, busy, rendered);
+                workerDone();
+            }
+        }
+
+        /***
+         * The executor was closed before this worker could start.
+         */
+        void skip() {
+            workerDone();
+        }
+    }
+
+    private boolean renderTile(Chunk tile) {
+        for (int y = tile.yFrom(); y <= tile.yTo(); y++) {
+            if (shouldStop()) {
+                return false;
+            }
+            rowRenderer.render(y, tile.xFrom(), tile.xTo());
+        }
+        return true;
+    }
+
+    private boolean shouldStop() {
+        if (stopped) {
+            return true;
+        }
+        if (System.nanoTime() - deadlineNanos > 0 || Thread.currentThread().isInterrupted()) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void workerDone() {
+        if (runningWorkers.decrementAndGet() == 0) {
+            tiles.finish();
+            result.complete(canvas);
+        }
+    }
+
+    /***
+     * @return true, if the job stopped (deadline, cancellation, closed executor) before all tiles were rendered
+     */
+    public boolean isPartial() {
+        return completedTiles.get() < tiles.tileCount();
+    }
+
+    public int completedTiles() {
+        return completedTiles.get();
+    }
+
+    /***
+     * @return the canvas the job renders into, also while it's still running or after it was cancelled
+     */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public TileScheduler getTiles() {
+        return tiles;
+    }
+
+    /***
+     * Stops the workers at their next row. Interrupting doesn't make a difference, the flag is checked often enough.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        stopped = true;
+        return result.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public Canvas get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public Canvas get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    /***
+     * Like {@link #get()}, but without checked exceptions: failures are rethrown unchecked, like {@link CompletableFuture#join()}.
+     */
+    public Canvas join() {
+        return result.join();
+    }
+}
@@ -0,0 +1,146 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Splits an image into many small tiles and hands them out to whichever worker asks next.
+ * <p>
+ * With one big chunk per thread, the thread that got the glass sphere is still busy while all others are done.
+ * With small tiles the expensive regions are spread over all workers: a worker that finished its tile just takes the next one
+ * from the shared queue (an {@link AtomicInteger} cursor over the tiles, no locking).
+ * Works for any number of threads and any image size, the tiles at the right and bottom edge are just smaller.
+ * <p>
+ * The workers themselves are run by a {@link RenderJob}. Afterwards the scheduler knows how long each worker was busy, see {@link #utilisation(int)}.
+ */
+public class TileScheduler {
+
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    public enum Order {
+        /***
+         * left to right, top to bottom
+         */
+        ROWS,
+        /***
+         * tiles closest to the center of the image first, that's usually where the interesting (and expensive) parts are
+         */
+        CENTER_OUT
+    }
+
+    private final Chunk[] tiles;
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    private long[] busyNanos = new long[0];
+    private int[] renderedTiles = new int[0];
+    private long startNanos;
+    private long wallNanos;
+
+    public TileScheduler(int width, int height) {
+        this(width, height, DEFAULT_TILE_SIZE, Order.ROWS);
+    }
+
+    public TileScheduler(int width, int height, int tileSize, Order order) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be at least 1, but was " + tileSize);
+        }
+        var list = new ArrayList<Chunk>();
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                list.add(new Chunk(x, Math.min(x + tileSize, width) - 1, y, Math.min(y + tileSize, height) - 1));
+            }
+        }
+        if (order == Order.CENTER_OUT) {
+            // the sort is stable, equally distant tiles keep their row order
+            final double centerX = (width - 1) / 2.0;
+            final double centerY = (height - 1) / 2.0;
+            list.sort(Comparator.comparingDouble(tile -> {
+                var dx = (tile.xFrom() + tile.xTo()) / 2.0 - centerX;
+                var dy = (tile.yFrom() + tile.yTo()) / 2.0 - centerY;
+                return dx * dx + dy * dy;
+            }));
+        }
+        this.tiles = list.toArray(new Chunk[0]);
+    }
+
+    public int tileCount() {
+        return tiles.length;
+    }
+
+    public Chunk tile(int index) {
+        return tiles[index];
+    }
+
+    /***
+     * @return the next tile nobody has taken yet, or null when all tiles are taken
+     */
+    public Chunk next() {
+        int index = nextTile.getAndIncrement();
+        return index < tiles.length ? tiles[index] : null;
+    }
+
+    /***
+     * Resets the queue for a new frame with the given number of workers.
+     */
+    public void start(int workers) {
+        nextTile.set(0);
+        busyNanos = new long[workers];
+        renderedTiles = new int[workers];
+        wallNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /***
+     * Called by every worker when it's done. Every worker only writes its own slot.
+     */
+    public void record(int worker, long busyNanos, int renderedTiles) {
+        this.busyNanos[worker] = busyNanos;
+        this.renderedTiles[worker] = renderedTiles;
+    }
+
+    /***
+     * Called once all workers are done.
+     */
+    public void finish() {
+        wallNanos = System.nanoTime() - startNanos;
+        Logger.info("rendered {} tiles with {} workers in {}ms, utilisation {}", tiles.length, workers(), wallNanos / 1_000_000, utilisationSummary());
+    }
+
+    /***
+     * @return the number of workers of the last frame
+     */
+    public int workers() {
+        return busyNanos.length;
+    }
+
+    public long busyNanos(int worker) {
+        return busyNanos[worker];
+    }
+
+    public int renderedTiles(int worker) {
+        return renderedTiles[worker];
+    }
+
+    public long wallNanos() {
+        return wallNanos;
+    }
+
+    /***
+     * @return the share of the last execution's wall-clock time the worker spent rendering tiles, between 0 and 1
+     */
+    public double utilisation(int worker) {
+        return wallNanos == 0 ? 0 : (double) busyNanos[worker] / wallNanos;
+    }
+
+    public String utilisationSummary() {
+        var percentages = new String[workers()];
+        for (int i = 0; i < percentages.length; i++) {
+            percentages[i] = "%d%% (%d tiles)".formatted(Math.round(utilisation(i) * 100), renderedTiles[i]);
+        }
+        return Arrays.toString(percentages);
+    }
+}
@@ -0,0 +1,18 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import org.schakalacka.java.raytracing.scene.Canvas;
+
+/***
+ * Receives every tile as soon as it's rendered, instead of one canvas with the whole frame at the end.
+ * Called from the render threads, concurrently for different tiles.
+ */
+@FunctionalInterface
+public interface TileSink {
+
+    /***
+     * @param tile   where the tile belongs in the frame
+     * @param pixels the tile's pixels, its top-left corner at 0,0. The canvas may be bigger than the tile and is reused for the next tile
+     *               of the same thread, so copy what you need before returning.
+     */
+    void write(Chunk tile, Canvas pixels);
+}
@@ -0,0 +1,97 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.schakalacka.java.raytracing.geometry.objects.BVHBuilder;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Shape;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.Matrix;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * A read-only snapshot of the objects of a {@link World}, made by {@link World#compile()}. Rendering threads share it without any locking:
+ * <ul>
+ *     <li>every shape (and the pattern of its material) is frozen, setting a transformation, material or parent throws</li>
+ *     <li>all groups are dissolved, transformed ones too. Only the shapes that aren't groups are left, each with its resolved world-to-object matrix
+ *     and its bounds in world space</li>
+ *     <li>every shape gets a dense id from 0 to {@link #shapeCount()} - 1, in the order they are stored in the hierarchy</li>
+ * </ul>
+ * Nothing in here changes after the constructor, so the final fields are all a thread needs to see it completely.
+ * The shapes themselves aren't copied: hits still point at the shapes of the scene graph, with their materials and normals.
+ */
+public final class CompiledScene {
+
+    private final List<Shape> objects;
+    private final FlatBVH hierarchy;
+    private final Map<Shape, Integer> ids;
+
+    private CompiledScene(List<Shape> objects, int maxLeafSize) {
+        this.objects = List.copyOf(objects);
+        for (Shape object : this.objects) {
+            object.freeze();
+        }
+        this.hierarchy = FlatBVH.build(this.objects, maxLeafSize, true);
+        this.ids = new IdentityHashMap<>(hierarchy.shapeCount());
+        for (int id = 0; id < hierarchy.shapeCount(); id++) {
+            ids.put(hierarchy.shape(id), id);
+        }
+    }
+
+    public static CompiledScene compile(List<Shape> objects) {
+        return compile(objects, BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    /***
+     * Freezes the given objects (and all children of groups among them) and builds the snapshot.
+     * @param maxLeafSize the number of shapes a leaf may hold before the builder tries to split it
+     */
+    public static CompiledScene compile(List<Shape> objects, int maxLeafSize) {
+        return new CompiledScene(objects, maxLeafSize);
+    }
+
+    /***
+     * Adds all intersections of the world-space ray to the (sorted) buffer, like {@link World#intersect(Ray, IntersectionBuffer)}.
+     */
+    public void intersect(Ray ray, IntersectionBuffer intersections) {
+        hierarchy.intersect(ray, intersections);
+    }
+
+    /***
+     * @return the objects the scene was compiled from, unmodifiable
+     */
+    public List<Shape> getObjects() {
+        return objects;
+    }
+
+    /***
+     * @return the number of shapes that can be hit, groups not included
+     */
+    public int shapeCount() {
+        return hierarchy.shapeCount();
+    }
+
+    /***
+     * @return the id of the shape, or -1 if it isn't part of this scene (or is a {@link Group})
+     */
+    public int id(Shape shape) {
+        return ids.getOrDefault(shape, -1);
+    }
+
+    public Shape shape(int id) {
+        return hierarchy.shape(id);
+    }
+
+    /***
+     * @return the world-to-object matrix of the shape with the given id, parent groups included
+     */
+    public Matrix worldToObject(int id) {
+        return hierarchy.worldToObject(id);
+    }
+
+    public FlatBVH getHierarchy() {
+        return hierarchy;
+    }
+}
@@ -0,0 +1,287 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.geometry.objects.BVHBuilder;
+import org.schakalacka.java.raytracing.geometry.objects.BoundingBox;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Shape;
+import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.Matrix;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * A "compiled" bounding volume hierarchy over the objects of a {@link World}.
+ * <p>
+ * Walking nested {@link Group}s means a virtual intersect call, a ray transformation and a list per group.
+ * This one flattens the hierarchy of the {@link BVHBuilder} into plain arrays instead:
+ * <ul>
+ *     <li>nodeBounds: minX, minY, minZ, maxX, maxY, maxZ per node</li>
+ *     <li>nodes: per node the index of the second child (interior) or the first shape (leaf), the number of shapes (0 for interior nodes) and the split axis</li>
+ *     <li>shapes: the shapes of all leaves, leaf by leaf</li>
+ * </ul>
+ * Nodes are stored depth-first, so the first child of a node always is the next node.
+ * Traversal uses an explicit stack of node indices, no objects are created per visited node or per ray.
+ * <p>
+ * Groups without a transformation (like the ones created by {@link World#divide()}) are dissolved into their children,
+ * as intersecting those children with a world-space ray gives the same result.
+ * Transformed groups are kept as a single shape, unless all groups are dissolved (see {@link CompiledScene}). Shapes with infinite bounds are tested for every ray.
+ * <p>
+ * Every shape is stored together with its world-to-object matrix, taken when building. Rays go into object space with that
+ * one multiplication, no matter how deep the shape was nested.
+ * Children are visited near-first, so in closest-hit mode (see {@link IntersectionBuffer}) far boxes are usually skipped.
+ * <p>
+ * The structure is a snapshot: objects added to the world afterwards are not part of it.
+ */
+public final class FlatBVH {
+
+    private static final int NODE_STRIDE = 3;
+
+    private final double[] nodeBounds;
+    private final int[] nodes;
+    private final Shape[] shapes;
+    private final Matrix[] shapeMatrices;
+    private final Shape[] unboundedShapes;
+    private final Matrix[] unboundedMatrices;
+    private final int depth;
+    // one stack per rendering thread instead of one per ray
+    private final ThreadLocal<int[]> traversalStacks;
+
+    private int nodeCount = 0;
+    private int shapeCount = 0;
+
+    private FlatBVH(BVHBuilder.Node root, int nodeCount, int shapeCount, List<Shape> unboundedShapes) {
+        this.nodeBounds = new double[nodeCount * 6];
+        this.nodes = new int[nodeCount * NODE_STRIDE];
+        this.shapes = new Shape[shapeCount];
+        this.shapeMatrices = new Matrix[shapeCount];
+        this.unboundedShapes = unboundedShapes.toArray(new Shape[0]);
+        this.unboundedMatrices = unboundedShapes.stream().map(Shape::getWorldToObjectMatrix).toArray(Matrix[]::new);
+        this.depth = root == null ? 0 : flatten(root, 1);
+        this.traversalStacks = ThreadLocal.withInitial(() -> new int[depth]);
+    }
+
+    public static FlatBVH build(World world) {
+        return build(world.getObjects(), BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    public static FlatBVH build(List<Shape> objects, int maxLeafSize) {
+        return build(objects, maxLeafSize, false);
+    }
+
+    /***
+     * @param dissolveAllGroups true to dissolve transformed groups as well, leaving only the shapes that aren't groups
+     */
+    static FlatBVH build(List<Shape> objects, int maxLeafSize, boolean dissolveAllGroups) {
+        var boundedShapes = new ArrayList<Shape>();
+        var bounds = new ArrayList<BoundingBox>();
+        var unboundedShapes = new ArrayList<Shape>();
+        var identity = MatrixProvider.get(4, true);
+        collect(objects, identity, identity, dissolveAllGroups, boundedShapes, bounds, unboundedShapes);
+
+        if (boundedShapes.isEmpty()) {
+            return new FlatBVH(null, 0, 0, unboundedShapes);
+        }
+
+        var root = BVHBuilder.build(boundedShapes, bounds, maxLeafSize);
+        return new FlatBVH(root, countNodes(root), boundedShapes.size(), unboundedShapes);
+    }
+
+    // collects the shapes with their bounds in world space: the transformations of all dissolved groups above them applied
+    private static void collect(List<Shape> objects, Matrix parentToWorld, Matrix identity, boolean dissolveAllGroups,
+                                List<Shape> boundedShapes, List<BoundingBox> bounds, List<Shape> unboundedShapes) {
+        for (Shape object : objects) {
+            var objectToWorld = parentToWorld.mulM(object.getTransformationMatrix());
+            if (object instanceof Group group && (dissolveAllGroups || identity.equals(group.getTransformationMatrix()))) {
+                collect(group.getChildren(), objectToWorld, identity, dissolveAllGroups, boundedShapes, bounds, unboundedShapes);
+                continue;
+            }
+            var worldBounds = object.getBounds().getTransformedBounds(objectToWorld);
+            if (worldBounds.isInfinite()) {
+                unboundedShapes.add(object);
+            } else {
+                boundedShapes.add(object);
+                bounds.add(worldBounds);
+            }
+        }
+    }
+
+    private static int countNodes(BVHBuilder.Node node) {
+        return node.isLeaf() ? 1 : 1 + countNodes(node.left()) + countNodes(node.right());
+    }
+
+    /***
+     * Writes the node and all its children into the arrays, depth first.
+     * @return the depth of the subtree
+     */
+    private int flatten(BVHBuilder.Node node, int level) {
+        int index = nodeCount++;
+        BoundingBox bounds = node.bounds();
+        nodeBounds[index * 6] = bounds.lower().x();
+        nodeBounds[index * 6 + 1] = bounds.lower().y();
+        nodeBounds[index * 6 + 2] = bounds.lower().z();
+        nodeBounds[index * 6 + 3] = bounds.upper().x();
+        nodeBounds[index * 6 + 4] = bounds.upper().y();
+        nodeBounds[index * 6 + 5] = bounds.upper().z();
+
+        if (node.isLeaf()) {
+            nodes[index * NODE_STRIDE] = shapeCount;
+            nodes[index * NODE_STRIDE + 1] = node.shapes().size();
+            for (Shape shape : node.shapes()) {
+                shapeMatrices[shapeCount] = shape.getWorldToObjectMatrix();
+                shapes[shapeCount++] = shape;
+            }
+            return level;
+        }
+
+        int leftDepth = flatten(node.left(), level + 1);
+        nodes[index * NODE_STRIDE] = nodeCount;
+        nodes[index * NODE_STRIDE + 2] = splitAxis(node.left().bounds(), node.right().bounds());
+        int rightDepth = flatten(node.right(), level + 1);
+        return Math.max(leftDepth, rightDepth);
+    }
+
+    // the builder doesn't tell us the axis, but the children are separated best along the axis where their centers differ most
+    private static int splitAxis(BoundingBox left, BoundingBox right) {
+        double dx = Math.abs((left.lower().x() + left.upper().x()) - (right.lower().x() + right.upper().x()));
+        double dy = Math.abs((left.lower().y() + left.upper().y()) - (right.lower().y() + right.upper().y()));
+        double dz = Math.abs((left.lower().z() + left.upper().z()) - (right.lower().z() + right.upper().z()));
+        if (dx >= dy && dx >= dz) {
+            return 0;
+        }
+        return dy >= dz ? 1 : 2;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /***
+     * Same contract as {@link World#intersect(Ray)}: all intersections, sorted by distance, including negative ones.
+     */
+    public List<Intersection> intersect(Ray ray) {
+        var intersections = new IntersectionBuffer();
+        intersect(ray, intersections);
+        return intersections.toList();
+    }
+
+    public void intersect(Ray ray, IntersectionBuffer intersections) {
+        for (int i = 0; i < unboundedShapes.length; i++) {
+            intersect(unboundedShapes[i], unboundedMatrices[i], ray, intersections);
+            if (intersections.isComplete()) {
+                return;
+            }
+        }
+
+        if (nodeCount > 0) {
+            traverse(ray, intersections);
+        }
+    }
+
+    private void traverse(Ray ray, IntersectionBuffer intersections) {
+        final double ox = ray.origin().x();
+        final double oy = ray.origin().y();
+        final double oz = ray.origin().z();
+        final double invX = 1 / ray.direction().x();
+        final double invY = 1 / ray.direction().y();
+        final double invZ = 1 / ray.direction().z();
+
+        final int[] stack = traversalStacks.get();
+        int stackSize = 0;
+        int node = 0;
+
+        while (true) {
+            if (hitsNode(node, ox, oy, oz, invX, invY, invZ, intersections.minDistance(), intersections.maxDistance())) {
+                int base = node * NODE_STRIDE;
+                int count = nodes[base + 1];
+                if (count > 0) {
+                    int first = nodes[base];
+                    for (int i = first; i < first + count; i++) {
+                        intersect(shapes[i], shapeMatrices[i], ray, intersections);
+                        if (intersections.isComplete()) {
+                            return;
+                        }
+                    }
+                } else {
+                    // visit the child closer to the ray origin first, the other one goes on the stack
+                    int axis = nodes[base + 2];
+                    boolean negative = (axis == 0 ? invX : axis == 1 ? invY : invZ) < 0;
+                    if (negative) {
+                        stack[stackSize++] = node + 1;
+                        node = nodes[base];
+                    } else {
+                        stack[stackSize++] = nodes[base];
+                        node = node + 1;
+                    }
+                    continue;
+                }
+            }
+            if (stackSize == 0) {
+                return;
+            }
+            node = stack[--stackSize];
+        }
+    }
+
+    // Shape.intersect with the stored matrix instead of the shape's own
+    private static void intersect(Shape shape, Matrix worldToObject, Ray ray, IntersectionBuffer intersections) {
+        if (Metrics.ENABLED && !(shape instanceof Group)) {
+            Metrics.count(Metrics.Event.SHAPE_TEST);
+        }
+        shape.localIntersect(ray.transform(worldToObject), intersections);
+    }
+
+    /***
+     * @return the number of shapes: the ones in the hierarchy, then the unbounded ones. Their positions are dense ids, see {@link #shape(int)}
+     */
+    public int shapeCount() {
+        return shapes.length + unboundedShapes.length;
+    }
+
+    public Shape shape(int id) {
+        return id < shapes.length ? shapes[id] : unboundedShapes[id - shapes.length];
+    }
+
+    /***
+     * @return the world-to-object matrix of the shape with the given id, as it was when the hierarchy was built
+     */
+    public Matrix worldToObject(int id) {
+        return id < shapes.length ? shapeMatrices[id] : unboundedMatrices[id - shapes.length];
+    }
+
+    // slab test, see BoundingBox.intersects. Only boxes overlapping the range of the buffer count as hit:
+    // everything for full intersection lists (callers expect negative distances as well), up to the current hit in closest-hit mode.
+    private boolean hitsNode(int node, double ox, double oy, double oz, double invX, double invY, double invZ, double minDistance, double maxDistance) {
+        int base = node * 6;
+        double t1 = (nodeBounds[base] - ox) * invX;
+        double t2 = (nodeBounds[base + 3] - ox) * invX;
+        double tmin = Math.min(t1, t2);
+        double tmax = Math.max(t1, t2);
+
+        t1 = (nodeBounds[base + 1] - oy) * invY;
+        t2 = (nodeBounds[base + 4] - oy) * invY;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+
+        t1 = (nodeBounds[base + 2] - oz) * invZ;
+        t2 = (nodeBounds[base + 5] - oz) * invZ;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+
+        // NaN (origin exactly on a slab of a parallel ray) ends up here as "hit", which is the safe side
+        boolean hit = !(tmin > tmax) && !(tmax < minDistance) && !(tmin > maxDistance);
+        Metrics.count(Metrics.Event.BOX_TEST);
+        if (!hit) {
+            Metrics.count(Metrics.Event.BOX_MISS);
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,246 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.PointLight;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * Finds the lights that can still be seen at a point, so shading doesn't have to go through hundreds of lights that are too far away.
+ * <p>
+ * Every light with a falloff reaches only up to its {@link PointLight#influenceRadius(double)}: beyond that, it adds less than the cutoff
+ * to any channel. The index is a bounding volume hierarchy over these spheres of influence, in plain arrays like {@link FlatBVH}:
+ * <ul>
+ *     <li>nodeBounds: minX, minY, minZ, maxX, maxY, maxZ per node</li>
+ *     <li>nodes: per node the index of the second child (interior) or the first light in lightOrder (leaf), and the number of lights (0 for interior nodes)</li>
+ *     <li>lightOrder: the indices of the lights (in the list the index was built from), leaf by leaf</li>
+ *     <li>spheres: x, y, z and the squared influence radius per entry of lightOrder</li>
+ * </ul>
+ * The hierarchy splits at the median light along the axis where the lights are spread the most.
+ * Lights without falloff reach everywhere, they are always selected, before all others and in their original order.
+ * <p>
+ * Like {@link FlatBVH}, this is a snapshot of the lights it was built from.
+ */
+public final class LightIndex {
+
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int NODE_STRIDE = 2;
+
+    private final List<PointLight> lights;
+    private final int[] unbounded;
+    private final double[] nodeBounds;
+    private final int[] nodes;
+    private final int[] lightOrder;
+    private final double[] spheres;
+    private final int depth;
+    private final ThreadLocal<Selection> selections;
+    private final ThreadLocal<int[]> traversalStacks;
+
+    private int nodeCount = 0;
+
+    private LightIndex(List<PointLight> lights, int[] unbounded, int[] bounded, double[] radii) {
+        this.lights = List.copyOf(lights);
+        this.unbounded = unbounded;
+        this.lightOrder = bounded;
+        this.spheres = new double[bounded.length * 4];
+        int maxNodes = Math.max(1, 2 * bounded.length);
+        this.nodeBounds = new double[maxNodes * 6];
+        this.nodes = new int[maxNodes * NODE_STRIDE];
+        this.depth = bounded.length == 0 ? 0 : build(radii, 0, bounded.length, 1);
+        this.selections = ThreadLocal.withInitial(() -> new Selection(this.lights));
+        this.traversalStacks = ThreadLocal.withInitial(() -> new int[depth]);
+    }
+
+    /***
+     * @param cutoff the intensity (per channel) below which a light doesn't count anymore. 0 selects every light everywhere.
+     */
+    public static LightIndex build(List<PointLight> lights, double cutoff) {
+        var unbounded = new ArrayList<Integer>();
+        var bounded = new ArrayList<Integer>();
+        var radii = new double[lights.size()];
+        for (int i = 0; i < lights.size(); i++) {
+            radii[i] = lights.get(i).influenceRadius(cutoff);
+            if (radii[i] == Double.POSITIVE_INFINITY) {
+                unbounded.add(i);
+            } else if (radii[i] > 0) {
+                // a light that is too dim to matter even right next to it is left out completely
+                bounded.add(i);
+            }
+        }
+        return new LightIndex(lights,
+                unbounded.stream().mapToInt(Integer::intValue).toArray(),
+                bounded.stream().mapToInt(Integer::intValue).toArray(),
+                radii);
+    }
+
+    /***
+     * Sorts lightOrder[from, to) into a subtree and writes it depth first.
+     * @return the depth of the subtree
+     */
+    private int build(double[] radii, int from, int to, int level) {
+        int index = nodeCount++;
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double[] centerBounds = bounds.clone();
+        for (int i = from; i < to; i++) {
+            var position = lights.get(lightOrder[i]).position();
+            double radius = radii[lightOrder[i]];
+            double[] center = {position.x(), position.y(), position.z()};
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[axis] = Math.min(bounds[axis], center[axis] - radius);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], center[axis] + radius);
+                centerBounds[axis] = Math.min(centerBounds[axis], center[axis]);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], center[axis]);
+            }
+        }
+        System.arraycopy(bounds, 0, nodeBounds, index * 6, 6);
+
+        if (to - from <= MAX_LEAF_SIZE) {
+            nodes[index * NODE_STRIDE] = from;
+            nodes[index * NODE_STRIDE + 1] = to - from;
+            for (int i = from; i < to; i++) {
+                var position = lights.get(lightOrder[i]).position();
+                double radius = radii[lightOrder[i]];
+                spheres[i * 4] = position.x();
+                spheres[i * 4 + 1] = position.y();
+                spheres[i * 4 + 2] = position.z();
+                spheres[i * 4 + 3] = radius * radius;
+            }
+            return level;
+        }
+
+        int axis = 0;
+        for (int a = 1; a < 3; a++) {
+            if (centerBounds[a + 3] - centerBounds[a] > centerBounds[axis + 3] - centerBounds[axis]) {
+                axis = a;
+            }
+        }
+        sortByAxis(from, to, axis);
+        int middle = (from + to) >>> 1;
+
+        int leftDepth = build(radii, from, middle, level + 1);
+        nodes[index * NODE_STRIDE] = nodeCount;
+        int rightDepth = build(radii, middle, to, level + 1);
+        return Math.max(leftDepth, rightDepth);
+    }
+
+    private void sortByAxis(int from, int to, int axis) {
+        Integer[] range = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            range[i - from] = lightOrder[i];
+        }
+        Arrays.sort(range, (a, b) -> Double.compare(coordinate(a, axis), coordinate(b, axis)));
+        for (int i = from; i < to; i++) {
+            lightOrder[i] = range[i - from];
+        }
+    }
+
+    private double coordinate(int light, int axis) {
+        var position = lights.get(light).position();
+        return axis == 0 ? position.x() : axis == 1 ? position.y() : position.z();
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /***
+     * Doesn't allocate: the selection belongs to the calling thread and is reused by its next call, on any point.
+     * So a caller has to be done with it before calling select again, also indirectly. E.g. World.shade_hit lights the surface
+     * with it first and only then traces reflected and refracted rays, which shade (and select) again. Copy it (new ArrayList<>(selection))
+     * to keep it longer.
+     *
+     * @return the lights reaching the point
+     */
+    public Selection select(Tuple point) {
+        var selection = selections.get();
+        selection.size = 0;
+        for (int light : unbounded) {
+            selection.add(light);
+        }
+        if (nodeCount > 0) {
+            traverse(point.x(), point.y(), point.z(), selection);
+        }
+        return selection;
+    }
+
+    private void traverse(double x, double y, double z, Selection selection) {
+        final int[] stack = traversalStacks.get();
+        int stackSize = 0;
+        int node = 0;
+
+        while (true) {
+            int bounds = node * 6;
+            if (x >= nodeBounds[bounds] && y >= nodeBounds[bounds + 1] && z >= nodeBounds[bounds + 2]
+                    && x <= nodeBounds[bounds + 3] && y <= nodeBounds[bounds + 4] && z <= nodeBounds[bounds + 5]) {
+                int base = node * NODE_STRIDE;
+                int count = nodes[base + 1];
+                if (count > 0) {
+                    int first = nodes[base];
+                    for (int i = first; i < first + count; i++) {
+                        double dx = spheres[i * 4] - x;
+                        double dy = spheres[i * 4 + 1] - y;
+                        double dz = spheres[i * 4 + 2] - z;
+                        if (dx * dx + dy * dy + dz * dz < spheres[i * 4 + 3]) {
+                            selection.add(lightOrder[i]);
+                        }
+                    }
+                } else {
+                    stack[stackSize++] = nodes[base];
+                    node = node + 1;
+                    continue;
+                }
+            }
+            if (stackSize == 0) {
+                return;
+            }
+            node = stack[--stackSize];
+        }
+    }
+
+    /***
+     * The lights selected for one point, as a list (without copying the lights) and with their index in the list the index was built from,
+     * e.g. to look up per light state like shadow caches.
+     */
+    public static final class Selection extends AbstractList<PointLight> {
+        private final List<PointLight> lights;
+        private int[] indices;
+        private int size = 0;
+
+        private Selection(List<PointLight> lights) {
+            this.lights = lights;
+            this.indices = new int[Math.min(lights.size(), 16)];
+        }
+
+        private void add(int light) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, Math.max(1, size * 2));
+            }
+            indices[size++] = light;
+        }
+
+        public int lightIndex(int i) {
+            return indices[i];
+        }
+
+        @Override
+        public PointLight get(int i) {
+            if (i >= size) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return lights.get(indices[i]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
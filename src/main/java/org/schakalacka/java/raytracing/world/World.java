@@ -2,28 +2,48 @@ package org.schakalacka.java.raytracing.world;
 
 
 import org.schakalacka.java.raytracing.Constants;
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.geometry.objects.BVHBuilder;
 import org.schakalacka.java.raytracing.geometry.objects.Cylinder;
 import org.schakalacka.java.raytracing.geometry.objects.Group;
 import org.schakalacka.java.raytracing.geometry.objects.Shape;
 import org.schakalacka.java.raytracing.geometry.objects.Sphere;
 import org.schakalacka.java.raytracing.geometry.tracing.*;
+import org.schakalacka.java.raytracing.jfr.RayBounceEvent;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
 import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.AreaLight;
 import org.schakalacka.java.raytracing.scene.Color;
 import org.schakalacka.java.raytracing.scene.Material;
 import org.schakalacka.java.raytracing.scene.PointLight;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class World {
 
+    /***
+     * Half of the smallest step of an 8 bit channel: lights adding less than that to a point don't change its pixel.
+     */
+    public static final double DEFAULT_LIGHT_CUTOFF = 1 / 512.0;
 
     private final List<Shape> objects = new ArrayList<>();
-    private PointLight lightSource;
+    private final List<PointLight> lights = new ArrayList<>();
+    private final List<AreaLight> areaLights = new ArrayList<>();
+    private volatile boolean softShadows = true;
+    private double lightCutoff = DEFAULT_LIGHT_CUTOFF;
+    // built on first use, dropped whenever the lights change
+    private volatile LightIndex lightIndex;
+    private FlatBVH accelerator;
+    private CompiledScene compiled;
+
+    // per thread, world and light: the shape that blocked the last shadow ray towards that light (or null).
+    // Weak keys, so a world that is gone doesn't leave its shapes behind. Render workers drop the whole map when their job ends
+    private static final ThreadLocal<Map<World, Shape[]>> SHADOW_CACHES = ThreadLocal.withInitial(WeakHashMap::new);
 
     public World() {
         this(null, false);
@@ -34,7 +54,9 @@ public class World {
     }
 
     private World(PointLight lightSource, boolean showAxis, Shape... objects) {
-        this.lightSource = lightSource;
+        if (lightSource != null) {
+            this.lights.add(lightSource);
+        }
         this.objects.addAll(Arrays.stream(objects).toList());
 
         if (showAxis) {
@@ -79,21 +101,108 @@ public class World {
         return new World(lightSource, showAxis, sphere1, sphere2);
     }
 
+    /***
+     * @return the first light of this world, or null if there is none
+     */
     public PointLight getLightSource() {
-        return lightSource;
+        return lights.isEmpty() ? null : lights.get(0);
     }
 
+    /***
+     * Replaces all lights of this world with the given one.
+     */
     public void setLightSource(PointLight lightSource) {
-        this.lightSource = lightSource;
+        this.lights.clear();
+        if (lightSource != null) {
+            this.lights.add(lightSource);
+        }
+        this.lightIndex = null;
+    }
+
+    public void addLights(PointLight... lights) {
+        this.lights.addAll(Arrays.asList(lights));
+        this.lightIndex = null;
+    }
+
+    public List<PointLight> getLights() {
+        return Collections.unmodifiableList(lights);
+    }
+
+    /***
+     * Area lights are shaded after the point lights, always (they have no falloff, so the {@link LightIndex} doesn't know them).
+     */
+    public void addAreaLights(AreaLight... lights) {
+        this.areaLights.addAll(Arrays.asList(lights));
+    }
+
+    public List<AreaLight> getAreaLights() {
+        return Collections.unmodifiableList(areaLights);
+    }
+
+    public boolean isSoftShadows() {
+        return softShadows;
+    }
+
+    /***
+     * Without soft shadows, area lights are treated like a point light in their center: one shadow ray instead of a grid.
+     * This is the default for {@link #color_at(Ray)}. A single render can choose differently, see {@link #color_at(Ray, int, boolean)}.
+     */
+    public void setSoftShadows(boolean softShadows) {
+        this.softShadows = softShadows;
+    }
+
+    /***
+     * Lights with a falloff are ignored at points where they add less than the cutoff to every channel, see {@link LightIndex}.
+     * 0 evaluates every light at every point.
+     */
+    public void setLightCutoff(double lightCutoff) {
+        this.lightCutoff = lightCutoff;
+        this.lightIndex = null;
+    }
+
+    public double getLightCutoff() {
+        return lightCutoff;
+    }
+
+    public LightIndex getLightIndex() {
+        var index = this.lightIndex;
+        if (index == null) {
+            // rendering threads might build it at the same time, they all get the same result
+            index = LightIndex.build(lights, lightCutoff);
+            this.lightIndex = index;
+        }
+        return index;
     }
 
     public List<Shape> getObjects() {
-        return objects;
+        // unmodifiable once compiled
+        return compiled != null ? compiled.getObjects() : objects;
     }
 
     public List<Intersection> intersect(Ray ray) {
-        return objects.stream().map(worldObject -> worldObject.intersect(ray)).flatMap(List::stream).sorted(Comparator.comparingDouble(Intersection::getDistance)).collect(Collectors.toList());
+        var intersections = new IntersectionBuffer();
+        intersect(ray, intersections);
+        return intersections.toList();
+    }
 
+    /***
+     * Adds all intersections of the ray with the objects of this world to the (sorted) buffer.
+     */
+    public void intersect(Ray ray, IntersectionBuffer intersections) {
+        if (compiled != null) {
+            compiled.intersect(ray, intersections);
+            return;
+        }
+        if (accelerator != null) {
+            accelerator.intersect(ray, intersections);
+            return;
+        }
+        for (Shape object : objects) {
+            object.intersect(ray, intersections);
+            if (intersections.isComplete()) {
+                return;
+            }
+        }
     }
 
     public Color color_at(Ray ray) {
@@ -101,12 +210,48 @@ public class World {
     }
 
     public Color color_at(Ray ray, int remainingBounces) {
-        Intersection hit = IntersectionTracker.getHit(intersect(ray));
+        return color_at(ray, remainingBounces, softShadows);
+    }
+
+    /***
+     * Like {@link #color_at(Ray, int)}, with the shadow mode of this call instead of {@link #isSoftShadows()}.
+     * Reflected and refracted rays use the same mode. Renders that trade quality for time pass it here instead of changing the world.
+     */
+    public Color color_at(Ray ray, int remainingBounces, boolean softShadows) {
+        return trace(ray, remainingBounces, softShadows, RayBounceEvent.PRIMARY);
+    }
+
+    private Color trace(Ray ray, int remainingBounces, boolean softShadows, String kind) {
+        var event = RayBounceEvent.sample();
+        Intersection hit = closestHit(ray);
+        Color color;
         if (hit == null) {
-            return Color.BLACK;
+            color = Color.BLACK;
+        } else if (hit.getIntersectedObject().material().transparency() > 0) {
+            // refraction needs n1 and n2, which depend on every surface the ray passed on its way to the hit
+            color = shade_hit(new Precalc(hit, ray, intersect(ray)), remainingBounces, softShadows);
         } else {
-            return shade_hit(new Precalc(hit, ray), remainingBounces);
+            color = shade_hit(new Precalc(hit, ray), remainingBounces, softShadows);
+        }
+
+        if (event != null) {
+            event.kind = kind;
+            event.remainingBounces = remainingBounces;
+            event.hit = hit != null;
+            event.commit();
         }
+        return color;
+    }
+
+    /***
+     * Finds the first intersection in front of the ray origin without collecting and sorting all of them.
+     * Groups and the accelerator skip everything beyond the closest hit found so far.
+     * @return the hit or null, if the ray doesn't hit anything
+     */
+    public Intersection closestHit(Ray ray) {
+        var intersections = IntersectionBuffer.closestHitForCurrentThread();
+        intersect(ray, intersections);
+        return IntersectionTracker.getHit(intersections);
     }
 
     public Color shade_hit(Precalc precalc) {
@@ -114,22 +259,37 @@ public class World {
     }
 
     public Color shade_hit(Precalc precalc, int remainingBounces) {
+        return shade_hit(precalc, remainingBounces, softShadows);
+    }
 
-        boolean shadowed = getShadowResult(precalc.getOverPoint()).isShadowed();
+    public Color shade_hit(Precalc precalc, int remainingBounces, boolean softShadows) {
 
-        // TODO add iteration over multiple light sources here
+        final var overPoint = precalc.getOverPoint();
+        // only the lights that reach the point, shadows are cached by the index of the light in the world.
+        // The selection is overwritten by the next select on this thread, so it has to be done with before the reflected and refracted rays below
+        final var lit = getLightIndex().select(overPoint);
         Color surfaceColor = precalc.getObject().material().lighting(
-                this.lightSource,
+                lit,
                 precalc.getObject(),
-                precalc.getOverPoint(),
+                overPoint,
                 precalc.getEyeVector(),
                 precalc.getNormalVector(),
-                shadowed
+                i -> isShadowed(overPoint, lit.lightIndex(i))
         );
+        for (int i = 0; i < areaLights.size(); i++) {
+            var light = areaLights.get(i);
+            // the shadow cache slots of the area lights come after the ones of the point lights
+            final int cacheSlot = lights.size() + i;
+            double lightFraction = softShadows
+                    ? light.lightFraction(positionOnLight -> !findOccluder(overPoint, positionOnLight, cacheSlot).isEmpty())
+                    : findOccluder(overPoint, light.asPointLight().position(), cacheSlot).isEmpty() ? 1 : 0;
+            surfaceColor = surfaceColor.add(precalc.getObject().material().lighting(
+                    light.asPointLight(), precalc.getObject(), overPoint, precalc.getEyeVector(), precalc.getNormalVector(), lightFraction));
+        }
 
 
-        Color reflectedColor = reflectedColor(precalc, remainingBounces);
-        Color refractedColor = refractedColor(precalc, remainingBounces);
+        Color reflectedColor = reflectedColor(precalc, remainingBounces, softShadows);
+        Color refractedColor = refractedColor(precalc, remainingBounces, softShadows);
 
         boolean needsReflectance = precalc.getObject().material().reflectivity() > 0 && precalc.getObject().material().transparency() > 0;
         if (needsReflectance) {
@@ -142,40 +302,177 @@ public class World {
     }
 
     public void addObjects(Shape... objects) {
+        checkNotCompiled();
         this.objects.addAll(Arrays.asList(objects));
+        this.accelerator = null;
+    }
+
+    /***
+     * Re-arranges the objects of this world into a bounding volume hierarchy of groups, see {@link BVHBuilder}.
+     * Objects with infinite bounds, like planes, stay top-level objects.
+     * Call this after all objects have been added. Objects added afterwards end up next to the hierarchy.
+     *
+     * @param maxLeafSize the number of objects a leaf-group may hold before the builder tries to split it
+     */
+    public World divide(int maxLeafSize) {
+        checkNotCompiled();
+        var partitioned = BVHBuilder.partition(new ArrayList<>(objects), maxLeafSize);
+        objects.clear();
+        objects.addAll(partitioned);
+        this.accelerator = null;
+        return this;
+    }
+
+    public World divide() {
+        return divide(BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    /***
+     * Compiles the objects of this world into a {@link FlatBVH}, which {@link #intersect(Ray)} (and with it color_at) uses from now on.
+     * Adding objects or dividing the world drops the structure again, call this once the scene is complete.
+     * Changing transformations of objects afterwards is not noticed, the bounds in the structure would be stale.
+     */
+    public World accelerate() {
+        this.accelerator = FlatBVH.build(this);
+        return this;
+    }
+
+    /***
+     * Freezes the objects of this world into a {@link CompiledScene}, which {@link #intersect(Ray)} (and with it color_at) uses from now on.
+     * Unlike {@link #accelerate()} the scene can't go stale: changing a transformation or material of any shape throws
+     * an IllegalStateException afterwards, just like adding objects to the world or dividing it. Lights can still be changed.
+     * Call this once the scene is complete, before rendering it from several threads.
+     */
+    public World compile() {
+        if (compiled == null) {
+            this.compiled = CompiledScene.compile(objects);
+        }
+        return this;
+    }
+
+    /***
+     * @return the snapshot made by {@link #compile()}, null if the world wasn't compiled
+     */
+    public CompiledScene getCompiledScene() {
+        return compiled;
+    }
+
+    private void checkNotCompiled() {
+        if (compiled != null) {
+            throw new IllegalStateException("World is compiled, its objects can't change anymore");
+        }
+    }
+
+    /***
+     * Any-hit query: stops at the first shadow casting surface between the point and the (first) light. No sorting, no lists.
+     * Surfaces that don't create shadows are skipped, they don't hide shadow casters behind them.
+     */
+    public boolean isShadowed(Tuple point) {
+        return isShadowed(point, 0);
     }
 
+    /***
+     * Whether the point is in the shadow of the light with the given index in {@link #getLights()}, see {@link #findOccluder(Tuple, Tuple, int)}.
+     */
+    public boolean isShadowed(Tuple point, int lightIndex) {
+        return !findOccluder(point, lights.get(lightIndex).position(), lightIndex).isEmpty();
+    }
+
+    /***
+     * Same as {@link #isShadowed(Tuple)}, including the occluder that was found (not necessarily the closest one).
+     */
     public ShadowResult getShadowResult(Tuple point) {
+        return getShadowResult(point, lights.get(0).position());
+    }
+
+    /***
+     * Same as {@link #getShadowResult(Tuple)}, for any position of a light, e.g. a sample on an {@link AreaLight}.
+     * Doesn't use the shadow cache, as there is no light to remember the occluder for.
+     */
+    public ShadowResult getShadowResult(Tuple point, Tuple lightPosition) {
+        var occluders = findOccluder(point, lightPosition, -1);
+        return occluders.isEmpty() ? new ShadowResult(false, null) : new ShadowResult(true, occluders.get(0));
+    }
 
-        var vectorPointToLight = lightSource.position().sub(point);
+    /***
+     * Neighbouring pixels are usually shadowed by the same shape. So every thread remembers the occluder of its last shadow ray per light
+     * and tries that one first, straight in its object space. Only if it doesn't block the ray, the whole scene is searched.
+     * Every point light and every area light has its own cache slot, a negative slot skips the cache.
+     */
+    private IntersectionBuffer findOccluder(Tuple point, Tuple lightPosition, int cacheSlot) {
+        Metrics.count(Metrics.Event.SHADOW_RAY);
+        var vectorPointToLight = lightPosition.sub(point);
         var distancePointToLight = vectorPointToLight.magnitude();
         var directionPointToLight = vectorPointToLight.normalize();
 
         Ray r = new Ray(point, directionPointToLight);
+        var occluders = IntersectionBuffer.occlusionForCurrentThread(distancePointToLight);
 
-        // TODO find an optimisation here for intersections. Is there any?
-        List<Intersection> intersections = intersect(r);
-        Intersection hit = IntersectionTracker.getHit(intersections);
+        if (cacheSlot < 0) {
+            intersect(r, occluders);
+            return occluders;
+        }
+
+        var cache = shadowCache();
+        var cached = cache[cacheSlot];
+        if (cached != null) {
+            Metrics.count(Metrics.Event.SHADOW_CACHE_LOOKUP);
+            // groups hand object space rays to their children, the world-to-object matrix does all of that in one go
+            Metrics.count(Metrics.Event.SHAPE_TEST);
+            cached.localIntersect(r.transform(cached.getWorldToObjectMatrix()), occluders);
+            if (occluders.isComplete()) {
+                Metrics.count(Metrics.Event.SHADOW_CACHE_HIT);
+                return occluders;
+            }
+        }
 
-        boolean isShadowed = hit != null && hit.getDistance() < distancePointToLight && hit.getIntersectedObject().material().createsShadow();
-        return new ShadowResult(isShadowed, hit);
+        intersect(r, occluders);
+        cache[cacheSlot] = occluders.isEmpty() ? null : occluders.shape(0);
+        return occluders;
+    }
+
+    private Shape[] shadowCache() {
+        var caches = SHADOW_CACHES.get();
+        var cache = caches.get(this);
+        if (cache == null || cache.length != lights.size() + areaLights.size()) {
+            cache = new Shape[lights.size() + areaLights.size()];
+            caches.put(this, cache);
+        }
+        return cache;
+    }
+
+    /***
+     * Forgets the shadow caches of the calling thread, so they don't keep shapes reachable after the render.
+     * Render workers call this when their job ends, the pool threads outlive the worlds they render.
+     */
+    public static void releaseThreadState() {
+        SHADOW_CACHES.remove();
     }
 
     public Color reflectedColor(Precalc precalc, int remainingBounces) {
+        return reflectedColor(precalc, remainingBounces, softShadows);
+    }
+
+    private Color reflectedColor(Precalc precalc, int remainingBounces, boolean softShadows) {
         if (remainingBounces < 1 || precalc.getObject().material().reflectivity() == 0) {
             return Color.BLACK;
         } else {
             // important to start reflection at the overPoint, not at the intersection point, otherwise we get a self-intersection
             Ray reflectedRay = new Ray(precalc.getOverPoint(), precalc.getReflectVector());
+            Metrics.count(Metrics.Event.REFLECTION_RAY);
 
             // we consumed one bounce, so we need to subtract one from the remaining bounces
-            Color reflectedColor = color_at(reflectedRay, remainingBounces - 1);
+            Color reflectedColor = trace(reflectedRay, remainingBounces - 1, softShadows, RayBounceEvent.REFLECTION);
 
             return reflectedColor.mulS(precalc.getObject().material().reflectivity());
         }
     }
 
     public Color refractedColor(Precalc precalc, int remainingBounces) {
+        return refractedColor(precalc, remainingBounces, softShadows);
+    }
+
+    private Color refractedColor(Precalc precalc, int remainingBounces, boolean softShadows) {
         if (remainingBounces < 1 || precalc.getObject().material().transparency() == 0) {
             return Color.BLACK;
         } else {
@@ -189,8 +486,9 @@ public class World {
             var cosT = Math.sqrt(1.0 - sin2T);
             var direction = precalc.getNormalVector().mul((nRatio * cosI - cosT)).sub(precalc.getEyeVector().mul(nRatio));
             var refractedRay = new Ray(precalc.getUnderPoint(), direction);
+            Metrics.count(Metrics.Event.REFRACTION_RAY);
 
-            return color_at(refractedRay, remainingBounces - 1).mulS(precalc.getObject().material().transparency());
+            return trace(refractedRay, remainingBounces - 1, softShadows, RayBounceEvent.REFRACTION).mulS(precalc.getObject().material().transparency());
         }
     }
 }
@@ -0,0 +1,103 @@
+package org.schakalacka.java.raytracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private static Canvas canvas() {
+        var canvas = new Canvas(5, 3);
+        canvas.write(0, 0, new Color(1.5, 0, 0));
+        canvas.write(2, 1, new Color(0, 0.5, 0));
+        canvas.write(4, 2, new Color(-0.5, 0, 1));
+        return canvas;
+    }
+
+    private static String header(byte[] bytes, int length) {
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void exportP6() throws IOException {
+        var file = dir.resolve("export.ppm");
+        BinaryExporter.exportP6(canvas(), file.toString(), 255);
+
+        var bytes = Files.readAllBytes(file);
+        var header = "P6\n5 3\n255\n";
+        assertEquals(header, header(bytes, header.length()));
+        assertEquals(header.length() + 5 * 3 * 3, bytes.length);
+
+        // same values as the P3 export
+        int pixels = header.length();
+        assertEquals(255, bytes[pixels] & 0xFF);
+        assertEquals(128, bytes[pixels + (1 * 5 + 2) * 3 + 1] & 0xFF);
+        assertEquals(0, bytes[pixels + (2 * 5 + 4) * 3] & 0xFF);
+        assertEquals(255, bytes[pixels + (2 * 5 + 4) * 3 + 2] & 0xFF);
+        assertEquals(0, bytes[pixels + 3] & 0xFF);
+    }
+
+    @Test
+    void exportP6With16Bits() throws IOException {
+        var file = dir.resolve("export16.ppm");
+        BinaryExporter.exportP6(canvas(), file.toString(), 65535);
+
+        var bytes = Files.readAllBytes(file);
+        var header = "P6\n5 3\n65535\n";
+        assertEquals(header, header(bytes, header.length()));
+        assertEquals(header.length() + 5 * 3 * 3 * 2, bytes.length);
+
+        var data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length()).slice().order(ByteOrder.BIG_ENDIAN);
+        assertEquals(65535, data.getShort(0) & 0xFFFF);
+        assertEquals(32768, data.getShort(((1 * 5 + 2) * 3 + 1) * 2) & 0xFFFF);
+    }
+
+    @Test
+    void exportPFMKeepsRawValuesBottomUp() throws IOException {
+        var file = dir.resolve("export.pfm");
+        BinaryExporter.exportPFM(canvas(), file.toString());
+
+        var bytes = Files.readAllBytes(file);
+        var header = "PF\n5 3\n-1.0\n";
+        assertEquals(header, header(bytes, header.length()));
+        assertEquals(header.length() + 5 * 3 * 3 * 4, bytes.length);
+
+        var data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length()).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        // the top row comes last
+        assertEquals(1.5f, data.get(2 * 5 * 3));
+        // the bottom row comes first, nothing is clamped
+        assertEquals(-0.5f, data.get(4 * 3));
+        assertEquals(1f, data.get(4 * 3 + 2));
+    }
+
+    @Test
+    void exportBiggerThanBuffer() throws IOException {
+        var file = dir.resolve("big.ppm");
+        var canvas = new Canvas(1000, 600, new Color(1, 0.8, 0.6));
+        BinaryExporter.exportP6(canvas, file.toString(), 255);
+
+        var bytes = Files.readAllBytes(file);
+        var header = "P6\n1000 600\n255\n".length();
+        assertEquals(header + 1000 * 600 * 3, bytes.length);
+        assertEquals(204, bytes[bytes.length - 2] & 0xFF);
+        assertEquals(153, bytes[bytes.length - 1] & 0xFF);
+    }
+
+    @Test
+    void invalidNumberOfColors() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryExporter.exportP6(canvas(), dir.resolve("x.ppm").toString(), 65536));
+    }
+}
@@ -0,0 +1,111 @@
+package org.schakalacka.java.raytracing;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    // the tests tagged "metrics" run in a JVM of their own, with -Draytracer.metrics=true (see the surefire executions in the pom)
+    @Test
+    @Tag("metrics")
+    void enabledForTaggedTests() {
+        assertTrue(Metrics.ENABLED);
+    }
+
+    @Test
+    void offByDefault() {
+        assertFalse(Metrics.ENABLED);
+
+        var before = Metrics.snapshot();
+        Metrics.count(Metrics.Event.SHADOW_RAY);
+        var camera = new Camera(11, 11, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        var image = camera.render(World.getDefault());
+        var counts = Metrics.snapshot().minus(before);
+
+        assertTrue(counts.nonZero().isEmpty(), counts.nonZero().toString());
+        assertEquals(0, Metrics.threadRays());
+        // rendering itself doesn't depend on the counters
+        assertNotEquals(Color.BLACK, image.read(5, 5));
+    }
+
+    @Test
+    @Tag("metrics")
+    void countsAndSnapshots() {
+        var before = Metrics.snapshot();
+
+        Metrics.count(Metrics.Event.SHADOW_RAY);
+        Metrics.count(Metrics.Event.SHADOW_RAY);
+        Metrics.count(Metrics.Event.INVERSE);
+
+        var counts = Metrics.snapshot().minus(before);
+        assertEquals(2, counts.get(Metrics.Event.SHADOW_RAY));
+        assertEquals(1, counts.get(Metrics.Event.INVERSE));
+        assertEquals(0, counts.get(Metrics.Event.REFRACTION_RAY));
+        assertEquals(List.of(Metrics.Event.SHADOW_RAY, Metrics.Event.INVERSE), new ArrayList<>(counts.nonZero().keySet()));
+    }
+
+    @Test
+    @Tag("metrics")
+    void reset() {
+        Metrics.count(Metrics.Event.BOX_TEST);
+        Metrics.reset();
+        assertEquals(0, Metrics.get(Metrics.Event.BOX_TEST));
+    }
+
+    @Test
+    @Tag("metrics")
+    void shapeAndBoxTests() {
+        var group = new Group();
+        var sphere = new Sphere();
+        sphere.setTransformationMatrix(MatrixProvider.translation(0, 0, 5));
+        group.addChild(sphere);
+
+        var before = Metrics.snapshot();
+        group.intersect(new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1)));
+        group.intersect(new Ray(Tuple.point(0, 10, -5), Tuple.vector(0, 0, 1)));
+        var counts = Metrics.snapshot().minus(before);
+
+        // the group itself is no shape test, the second ray misses its box
+        assertEquals(2, counts.get(Metrics.Event.BOX_TEST));
+        assertEquals(1, counts.get(Metrics.Event.BOX_MISS));
+        assertEquals(1, counts.get(Metrics.Event.SHAPE_TEST));
+    }
+
+    @Test
+    @Tag("metrics")
+    void raysByType() {
+        var world = World.getDefault();
+        var camera = new Camera(11, 11, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+
+        var before = Metrics.snapshot();
+        camera.render(world);
+        var counts = Metrics.snapshot().minus(before);
+
+        assertEquals(121, counts.get(Metrics.Event.PRIMARY_RAY));
+        assertTrue(counts.get(Metrics.Event.SHADOW_RAY) > 0);
+        // only shadow rays towards a light with a cached occluder look it up
+        assertTrue(counts.get(Metrics.Event.SHADOW_CACHE_LOOKUP) <= counts.get(Metrics.Event.SHADOW_RAY));
+        assertTrue(counts.get(Metrics.Event.SHADOW_CACHE_HIT) <= counts.get(Metrics.Event.SHADOW_CACHE_LOOKUP));
+        // the default world has neither mirrors nor glass
+        assertEquals(0, counts.get(Metrics.Event.REFLECTION_RAY));
+        assertEquals(0, counts.get(Metrics.Event.REFRACTION_RAY));
+        assertTrue(counts.get(Metrics.Event.SHAPE_TEST) > 0);
+        assertTrue(counts.report(121).startsWith("rays: " + (121 + counts.get(Metrics.Event.SHADOW_RAY)) + " "));
+    }
+}
@@ -0,0 +1,165 @@
+package org.schakalacka.java.raytracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PNGExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private static void assertSamePixels(Canvas canvas, Path file) throws IOException {
+        var image = ImageIO.read(file.toFile());
+        assertNotNull(image);
+        assertEquals(canvas.getWidth(), image.getWidth());
+        assertEquals(canvas.getHeight(), image.getHeight());
+        for (int y = 0; y < canvas.getHeight(); y++) {
+            for (int x = 0; x < canvas.getWidth(); x++) {
+                var color = canvas.read(x, y);
+                var rgb = image.getRGB(x, y);
+                assertEquals(color.rs(255), (rgb >> 16) & 0xFF);
+                assertEquals(color.gs(255), (rgb >> 8) & 0xFF);
+                assertEquals(color.bs(255), rgb & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    void exportSmallCanvas() throws IOException {
+        var canvas = new Canvas(5, 3);
+        canvas.write(0, 0, new Color(1.5, 0, 0));
+        canvas.write(2, 1, new Color(0, 0.5, 0));
+        canvas.write(4, 2, new Color(-0.5, 0, 1));
+
+        var file = dir.resolve("small.png");
+        PNGExporter.export(canvas, file.toString());
+
+        assertSamePixels(canvas, file);
+    }
+
+    @Test
+    void emptyCanvasIsRejected() {
+        // without a row there would be no IDAT and no zlib stream at all
+        assertThrows(IllegalArgumentException.class, () -> PNGExporter.write(new Canvas(5, 0), new ByteArrayOutputStream(), Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> PNGExporter.write(new Canvas(0, 5), new ByteArrayOutputStream(), Runnable::run));
+
+        var file = dir.resolve("empty.png");
+        assertThrows(IllegalArgumentException.class, () -> PNGExporter.export(new Canvas(0, 0), file.toString()));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void exportManyBlocksOnSeveralThreads() throws IOException {
+        // noise and gradients, so all filters get used, and big enough for a dozen blocks
+        var random = new Random(7);
+        var canvas = new Canvas(701, 500);
+        for (int y = 0; y < 500; y++) {
+            for (int x = 0; x < 701; x++) {
+                canvas.write(x, y, new Color(x / 701.0, random.nextDouble() * 0.1, y % 50 / 50.0));
+            }
+        }
+
+        var file = dir.resolve("big.png");
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            PNGExporter.export(canvas, file.toString(), executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertSamePixels(canvas, file);
+        assertEquals((701 * 3 + 1) * 500, inflateImageData(Files.readAllBytes(file)));
+        // it's compressed after all
+        assertTrue(Files.size(file) < 701 * 500 * 3 / 2);
+    }
+
+    @Test
+    void sameBytesWhateverTheExecutor() throws IOException {
+        var canvas = new Canvas(300, 600, new Color(0.2, 0.4, 0.6));
+        canvas.write(150, 300, Color.WHITE);
+
+        var sequential = new ByteArrayOutputStream();
+        PNGExporter.write(canvas, sequential, Runnable::run);
+        var parallel = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            PNGExporter.write(canvas, parallel, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+    }
+
+    /***
+     * Glues all IDAT chunks together and inflates them as zlib stream, which also checks the Adler-32 at the end.
+     * The CRCs of the chunks are checked as well.
+     *
+     * @return the number of uncompressed bytes
+     */
+    private static int inflateImageData(byte[] png) {
+        var idat = new ByteArrayOutputStream();
+        var buffer = ByteBuffer.wrap(png, 8, png.length - 8);
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            var crc = new CRC32();
+            crc.update(png, buffer.position(), length + 4);
+            var type = new String(png, buffer.position(), 4, StandardCharsets.US_ASCII);
+            if (type.equals("IDAT")) {
+                idat.write(png, buffer.position() + 4, length);
+            }
+            buffer.position(buffer.position() + 4 + length);
+            assertEquals((int) crc.getValue(), buffer.getInt(), "CRC of " + type);
+        }
+
+        var inflater = new Inflater();
+        inflater.setInput(idat.toByteArray());
+        var out = new byte[64 * 1024];
+        int total = 0;
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(out);
+                assertFalse(count == 0 && inflater.needsInput(), "stream ended early");
+                total += count;
+            }
+        } catch (DataFormatException e) {
+            fail(e);
+        } finally {
+            inflater.end();
+        }
+        return total;
+    }
+
+    @Test
+    void combineAdler32() {
+        var bytes = new byte[100_000];
+        new Random(1).nextBytes(bytes);
+        var whole = new Adler32();
+        whole.update(bytes);
+        var first = new Adler32();
+        first.update(bytes, 0, 70_000);
+        var second = new Adler32();
+        second.update(bytes, 70_000, 30_000);
+
+        assertEquals(whole.getValue(), PNGExporter.combineAdler32(first.getValue(), second.getValue(), 30_000));
+        assertEquals(first.getValue(), PNGExporter.combineAdler32(1, first.getValue(), 70_000));
+    }
+}
@@ -0,0 +1,81 @@
+package org.schakalacka.java.raytracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.tools.Chunk;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileFileWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tilesInAnyOrderGiveSameFileAsExport() throws IOException {
+        var canvas = new Canvas(5, 3);
+        canvas.write(0, 0, new Color(1.5, 0, 0));
+        canvas.write(2, 1, new Color(0, 0.5, 0));
+        canvas.write(4, 2, new Color(-0.5, 0, 1));
+        var exported = dir.resolve("exported.ppm");
+        BinaryExporter.exportP6(canvas, exported.toString(), 255);
+
+        var streamed = dir.resolve("streamed.ppm");
+        try (var writer = TileFileWriter.p6(streamed, 5, 3, 255)) {
+            // bottom-right tile first
+            writer.write(new Chunk(3, 4, 2, 2), tileOf(canvas, 3, 2, 2, 1));
+            writer.write(new Chunk(0, 2, 0, 1), tileOf(canvas, 0, 0, 3, 2));
+            writer.write(new Chunk(3, 4, 0, 1), tileOf(canvas, 3, 0, 2, 2));
+            writer.write(new Chunk(0, 2, 2, 2), tileOf(canvas, 0, 2, 3, 1));
+        }
+
+        assertArrayEquals(Files.readAllBytes(exported), Files.readAllBytes(streamed));
+    }
+
+    private static Canvas tileOf(Canvas canvas, int xFrom, int yFrom, int width, int height) {
+        // bigger than the tile, like the reused canvases of the render threads
+        var tile = new Canvas(4, 4);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                tile.write(x, y, canvas.read(xFrom + x, yFrom + y));
+            }
+        }
+        return tile;
+    }
+
+    @Test
+    void streamedRenderMatchesRenderedCanvas() throws IOException {
+        var world = World.getDefault();
+        var camera = new Camera(37, 21, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        camera.setTileSize(8);
+
+        var exportedP6 = dir.resolve("exported.ppm");
+        var exportedPfm = dir.resolve("exported.pfm");
+        var canvas = camera.render(world, 1);
+        BinaryExporter.exportP6(canvas, exportedP6.toString(), 65535);
+        BinaryExporter.exportPFM(canvas, exportedPfm.toString());
+
+        var streamedP6 = dir.resolve("streamed.ppm");
+        var streamedPfm = dir.resolve("streamed.pfm");
+        try (var writer = TileFileWriter.p6(streamedP6, 37, 21, 65535)) {
+            camera.render(world, 3, writer);
+        }
+        try (var writer = TileFileWriter.pfm(streamedPfm, 37, 21)) {
+            camera.render(world, 2, writer);
+        }
+
+        assertArrayEquals(Files.readAllBytes(exportedP6), Files.readAllBytes(streamedP6));
+        assertArrayEquals(Files.readAllBytes(exportedPfm), Files.readAllBytes(streamedPfm));
+    }
+}
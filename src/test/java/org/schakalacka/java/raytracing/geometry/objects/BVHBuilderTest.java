@@ -0,0 +1,114 @@
+package org.schakalacka.java.raytracing.geometry.objects;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BVHBuilderTest {
+
+    private static List<Shape> row(int count) {
+        var shapes = new ArrayList<Shape>();
+        for (int i = 0; i < count; i++) {
+            var s = new Sphere();
+            s.setTransformationMatrix(MatrixProvider.translation(i * 3, 0, 0));
+            shapes.add(s);
+        }
+        return shapes;
+    }
+
+    private static int countShapes(BVHBuilder.Node node) {
+        if (node.isLeaf()) {
+            return node.shapes().size();
+        }
+        return countShapes(node.left()) + countShapes(node.right());
+    }
+
+    @Test
+    void buildFailsWithoutShapes() {
+        assertThrows(IllegalArgumentException.class, () -> BVHBuilder.build(List.of(), 4));
+    }
+
+    @Test
+    void smallListIsSingleLeaf() {
+        var node = BVHBuilder.build(row(3), 4);
+
+        assertTrue(node.isLeaf());
+        assertEquals(3, node.shapes().size());
+        assertEquals(Tuple.point(-1, -1, -1), node.bounds().lower());
+        assertEquals(Tuple.point(7, 1, 1), node.bounds().upper());
+    }
+
+    @Test
+    void splitSeparatesDistantClusters() {
+        var shapes = row(4);
+        var far = new Sphere();
+        far.setTransformationMatrix(MatrixProvider.translation(100, 0, 0));
+        shapes.add(far);
+
+        var node = BVHBuilder.build(shapes, 4);
+
+        assertFalse(node.isLeaf());
+        assertEquals(5, countShapes(node));
+        assertTrue(node.bounds().contains(node.left().bounds()));
+        assertTrue(node.bounds().contains(node.right().bounds()));
+        // the lonely sphere ends up on its own
+        assertEquals(List.of(far), node.right().shapes());
+    }
+
+    @Test
+    void identicalShapesAreStillSplit() {
+        var shapes = new ArrayList<Shape>();
+        for (int i = 0; i < 9; i++) {
+            shapes.add(new Sphere());
+        }
+
+        var node = BVHBuilder.build(shapes, 2);
+
+        assertFalse(node.isLeaf());
+        assertEquals(9, countShapes(node));
+    }
+
+    @Test
+    void partitionKeepsInfiniteShapes() {
+        var shapes = row(10);
+        var plane = new Plane();
+        shapes.add(plane);
+
+        var partitioned = BVHBuilder.partition(shapes, 2);
+
+        assertEquals(3, partitioned.size());
+        assertSame(plane, partitioned.get(0));
+        assertInstanceOf(Group.class, partitioned.get(1));
+        assertInstanceOf(Group.class, partitioned.get(2));
+    }
+
+    @Test
+    void dividedGroupIntersectsLikeFlatGroup() {
+        var flat = new Group();
+        row(20).forEach(flat::addChild);
+        var divided = new Group();
+        var dividedShapes = row(20);
+        dividedShapes.forEach(divided::addChild);
+        divided.divide(2);
+
+        assertEquals(flat.getBounds(), divided.getBounds());
+        assertTrue(divided.getChildren().size() < 20);
+
+        var ray = new Ray(Tuple.point(-5, 0, 0), Tuple.vector(1, 0, 0));
+        List<Double> flatDistances = flat.intersect(ray).stream().map(Intersection::getDistance).toList();
+        List<Double> dividedDistances = divided.intersect(ray).stream().map(Intersection::getDistance).toList();
+        assertEquals(flatDistances, dividedDistances);
+        assertEquals(40, dividedDistances.size());
+
+        // normals still travel through the (identity) groups the builder created
+        var normal = dividedShapes.get(5).normalVectorAt(Tuple.point(15, 1, 0));
+        assertEquals(Tuple.vector(0, 1, 0), normal);
+    }
+}
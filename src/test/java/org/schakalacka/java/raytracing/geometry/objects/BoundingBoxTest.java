@@ -363,4 +363,16 @@ class BoundingBoxTest {
         assertEquals(point(14, 4, 8), box1.upper());
     }
 
-}
\ No newline at end of file
+    @Test
+    void intersectingRayWithinDistanceRange() {
+        var box = new BoundingBox(point(-1, -1, 4), point(1, 1, 6));
+        var ray = new Ray(point(0, 0, 0), vector(0, 0, 1));
+
+        assertTrue(box.intersects(ray, 0, 10));
+        assertTrue(box.intersects(ray, 5, 5));
+        // the box starts beyond the maximum
+        assertFalse(box.intersects(ray, 0, 3));
+        // the box ends before the minimum, i.e. it's behind the ray
+        assertFalse(box.intersects(new Ray(point(0, 0, 10), vector(0, 0, 1)), 0, Double.POSITIVE_INFINITY));
+    }
+}
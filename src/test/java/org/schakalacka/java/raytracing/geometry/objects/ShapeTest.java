@@ -3,12 +3,10 @@ package org.schakalacka.java.raytracing.geometry.objects;
 import org.junit.jupiter.api.Test;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
 import org.schakalacka.java.raytracing.math.Tuple;
-import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionBuffer;
 import org.schakalacka.java.raytracing.geometry.tracing.Ray;
 import org.schakalacka.java.raytracing.scene.Material;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 class ShapeTest {
@@ -105,9 +103,8 @@ class ShapeTest {
         }
 
         @Override
-        public List<Intersection> localIntersect(Ray ray) {
+        public void localIntersect(Ray ray, IntersectionBuffer intersections) {
             this.transformedRayFromLocalIntersect = ray;
-            return List.of();
         }
 
         @Override
@@ -164,4 +161,30 @@ class ShapeTest {
         assertEquals(expectedBounds, bounds);
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void inverseIsCachedWithTransformation() {
+        var s = new TestShape();
+        s.setTransformationMatrix(MatrixProvider.translation(2, 3, 4));
+
+        assertEquals(MatrixProvider.translation(2, 3, 4).inverse(), s.getInverseTransformationMatrix());
+        assertSame(s.getInverseTransformationMatrix(), s.getWorldToObjectMatrix());
+    }
+
+    @Test
+    void parentTransformationChangedAfterAddingChild() {
+        var g1 = new Group();
+        var g2 = new Group();
+        g1.addChild(g2);
+        var s = new Sphere();
+        s.setTransformationMatrix(MatrixProvider.translation(5,0,0));
+        g2.addChild(s);
+
+        // same setup as convertPointFromWorldToObjectSpace, only the group transformations come last
+        g2.setTransformationMatrix(MatrixProvider.scaling(2,2,2));
+        g1.setTransformationMatrix(MatrixProvider.rotationY(Math.PI/2));
+
+        assertEquals(Tuple.point(0,0,-1), s.worldToObject(Tuple.point(-2,0,-10)));
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.schakalacka.java.raytracing.geometry.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.scene.Material;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntersectionBufferTest {
+
+    @Test
+    void addKeepsDistancesSorted() {
+        var sphere = new Sphere();
+        var buffer = new IntersectionBuffer();
+
+        buffer.add(sphere, 3);
+        buffer.add(sphere, -1);
+        buffer.add(sphere, 7);
+        buffer.add(sphere, 2);
+
+        assertEquals(4, buffer.size());
+        assertEquals(-1, buffer.distance(0));
+        assertEquals(2, buffer.distance(1));
+        assertEquals(3, buffer.distance(2));
+        assertEquals(7, buffer.distance(3));
+    }
+
+    @Test
+    void equalDistancesKeepInsertionOrder() {
+        var sphere = new Sphere();
+        var plane = new Plane();
+        var buffer = new IntersectionBuffer();
+
+        buffer.add(sphere, 1);
+        buffer.add(plane, 1);
+
+        assertSame(sphere, buffer.shape(0));
+        assertSame(plane, buffer.shape(1));
+    }
+
+    @Test
+    void hitIndexSkipsNegativeDistances() {
+        var sphere = new Sphere();
+        var buffer = new IntersectionBuffer();
+        assertEquals(-1, buffer.hitIndex());
+
+        buffer.add(sphere, -2);
+        buffer.add(sphere, -1);
+        assertEquals(-1, buffer.hitIndex());
+
+        buffer.add(sphere, 5);
+        assertEquals(2, buffer.hitIndex());
+        assertEquals(new Intersection(sphere, 5), IntersectionTracker.getHit(buffer));
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        var sphere = new Sphere();
+        var buffer = new IntersectionBuffer();
+
+        for (int i = 100; i > 0; i--) {
+            buffer.add(sphere, i);
+        }
+
+        assertEquals(100, buffer.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, buffer.distance(i));
+        }
+    }
+
+    @Test
+    void bufferOfThreadIsClearedWhenHandedOut() {
+        var buffer = IntersectionBuffer.forCurrentThread();
+        buffer.add(new Sphere(), 1);
+
+        var again = IntersectionBuffer.forCurrentThread();
+
+        assertSame(buffer, again);
+        assertTrue(again.isEmpty());
+    }
+
+    @Test
+    void toList() {
+        var sphere = new Sphere();
+        var buffer = new IntersectionBuffer();
+        buffer.add(sphere, 2);
+        buffer.add(sphere, 1);
+
+        assertEquals(List.of(new Intersection(sphere, 1), new Intersection(sphere, 2)), buffer.toList());
+    }
+
+    @Test
+    void closestHitModeKeepsNearestPositiveIntersection() {
+        var near = new Sphere();
+        var far = new Plane();
+        var buffer = IntersectionBuffer.closestHitForCurrentThread();
+        assertEquals(0, buffer.minDistance());
+        assertEquals(Double.POSITIVE_INFINITY, buffer.maxDistance());
+
+        buffer.add(far, 4);
+        buffer.add(near, -1);
+        buffer.add(near, 2);
+        buffer.add(far, 3);
+
+        assertEquals(1, buffer.size());
+        assertSame(near, buffer.shape(0));
+        assertEquals(2, buffer.maxDistance());
+        assertEquals(new Intersection(near, 2), IntersectionTracker.getHit(buffer));
+
+        // handing out the full buffer again resets the mode
+        var full = IntersectionBuffer.forCurrentThread();
+        full.add(far, -1);
+        assertEquals(1, full.size());
+        assertEquals(Double.NEGATIVE_INFINITY, full.minDistance());
+        assertEquals(Double.POSITIVE_INFINITY, full.maxDistance());
+    }
+
+    @Test
+    void occlusionModeWaitsForShadowCasterBeforeMaximum() {
+        var caster = new Sphere();
+        var glass = new Sphere();
+        glass.setMaterial(Material.newMaterial().createsShadow(false).create());
+        var buffer = IntersectionBuffer.occlusionForCurrentThread(10);
+        assertEquals(0, buffer.minDistance());
+        assertEquals(10, buffer.maxDistance());
+
+        buffer.add(caster, -1);
+        buffer.add(glass, 2);
+        buffer.add(caster, 12);
+        assertFalse(buffer.isComplete());
+        assertTrue(buffer.isEmpty());
+
+        buffer.add(caster, 5);
+        assertTrue(buffer.isComplete());
+        assertSame(caster, buffer.shape(0));
+        assertEquals(5, buffer.maxDistance());
+
+        // the first occluder is enough, there's no need to look for a closer one
+        buffer.add(caster, 3);
+        assertEquals(5, buffer.distance(0));
+    }
+}
@@ -3,6 +3,12 @@ package org.schakalacka.java.raytracing.geometry.tracing;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,4 +115,76 @@ class IntersectionTrackerTest {
         assertEquals(i4, hit);
     }
 
-}
\ No newline at end of file
+    @Test
+    void getHitUnsorted() {
+        var sphere = new Sphere();
+        var hit = new Intersection(sphere, 0.5);
+
+        assertSame(hit, IntersectionTracker.getHit(List.of(new Intersection(sphere, 3), new Intersection(sphere, -1), hit, new Intersection(sphere, 2))));
+        assertNull(IntersectionTracker.getHit(List.of()));
+    }
+
+    @Test
+    void unknownShapeHasNoIntersections() {
+        assertTrue(IntersectionTracker.get(new Sphere()).isEmpty());
+    }
+
+    @Test
+    void keepsTheClosestIntersectionsPerShape() {
+        var tracker = new IntersectionTracker(10, 3);
+        var sphere = new Sphere();
+        for (double distance : new double[]{5, 4, 9, 1, 3, 8, 2}) {
+            tracker.add(new Intersection(sphere, distance));
+        }
+
+        var result = tracker.intersectionsOf(sphere);
+        assertEquals(List.of(1.0, 2.0, 3.0), result.stream().map(Intersection::getDistance).toList());
+    }
+
+    @Test
+    void dropsLeastRecentlyUsedShapes() {
+        var tracker = new IntersectionTracker(2, 4);
+        var a = new Sphere();
+        var b = new Sphere();
+        b.setTransformationMatrix(MatrixProvider.translation(1, 0, 0));
+        var c = new Sphere();
+        c.setTransformationMatrix(MatrixProvider.translation(2, 0, 0));
+
+        tracker.add(new Intersection(a, 1));
+        tracker.add(new Intersection(b, 1));
+        tracker.add(new Intersection(a, 2));
+        tracker.add(new Intersection(c, 1));
+
+        assertEquals(2, tracker.trackedShapes());
+        assertEquals(2, tracker.intersectionsOf(a).size());
+        assertTrue(tracker.intersectionsOf(b).isEmpty());
+        assertEquals(1, tracker.intersectionsOf(c).size());
+    }
+
+    @Test
+    void everyThreadHasItsOwnTracker() throws Exception {
+        var sphere = new Sphere();
+        IntersectionTracker.register(new Intersection(sphere, 1));
+
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    IntersectionTracker.reset();
+                    for (int i = 0; i < 1000; i++) {
+                        IntersectionTracker.register(new Intersection(sphere, i));
+                    }
+                    return IntersectionTracker.get(sphere).size();
+                }));
+            }
+            for (var future : futures) {
+                assertEquals(IntersectionTracker.DEFAULT_MAX_PER_SHAPE, future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // untouched by the other threads
+        assertEquals(1, IntersectionTracker.get(sphere).size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.schakalacka.java.raytracing.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.schakalacka.java.raytracing.BinaryExporter;
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RaytracerEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void renderTilesAndExport() throws IOException {
+        var world = World.getDefault();
+        var camera = new Camera(20, 10, Math.PI / 2);
+        camera.setTileSize(8);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        var file = tempDir.resolve("events.ppm");
+
+        var events = record(() -> {
+            var canvas = camera.render(world, 2);
+            BinaryExporter.exportP6(canvas, file.toString(), 255);
+        });
+
+        var render = only(events, "raytracer.Render");
+        assertEquals(20, render.getInt("width"));
+        assertEquals(10, render.getInt("height"));
+        assertEquals(2, render.getInt("threads"));
+        assertEquals(6, render.getInt("tiles"));
+        assertEquals(String.valueOf(MatrixProvider.MT), render.getString("matrixType"));
+        // the rays come from the metrics, nothing is counted without them
+        if (Metrics.ENABLED) {
+            assertTrue(render.getLong("rays") >= 200);
+        } else {
+            assertEquals(0, render.getLong("rays"));
+        }
+
+        var tiles = events.stream().filter(e -> e.getEventType().getName().equals("raytracer.Tile")).toList();
+        assertEquals(6, tiles.size());
+        assertTrue(tiles.stream().allMatch(t -> t.getBoolean("completed")));
+        assertEquals(render.getLong("rays"), tiles.stream().mapToLong(t -> t.getLong("rays")).sum());
+
+        var export = only(events, "raytracer.Export");
+        assertEquals("P6", export.getString("format"));
+        assertEquals(file.toString(), export.getString("file"));
+        assertEquals(20 * 10 * 3 + "P6\n20 10\n255\n".length(), export.getLong("bytes"));
+    }
+
+    @Test
+    void bvhBuild() throws IOException {
+        var world = new World();
+        for (int i = 0; i < 16; i++) {
+            var sphere = new Sphere();
+            sphere.setTransformationMatrix(MatrixProvider.translation(i * 3, 0, 0));
+            world.addObjects(sphere);
+        }
+
+        var build = only(record(() -> world.divide(4)), "raytracer.BVHBuild");
+
+        assertEquals(16, build.getInt("shapes"));
+        assertEquals(4, build.getInt("maxLeafSize"));
+        assertTrue(build.getInt("nodes") >= 7);
+        assertTrue(build.getInt("depth") >= 3);
+    }
+
+    @Test
+    void rayBouncesAreSampled() throws IOException {
+        var world = World.getDefault();
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+        int rays = 50 * RayBounceEvent.SAMPLE_INTERVAL;
+
+        var bounces = record(() -> {
+            for (int i = 0; i < rays; i++) {
+                world.color_at(ray);
+            }
+        }).stream().filter(e -> e.getEventType().getName().equals("raytracer.RayBounce")).toList();
+
+        // about 50, but it's random
+        assertTrue(bounces.size() > 10 && bounces.size() < 150, "sampled " + bounces.size());
+        var bounce = bounces.get(0);
+        assertEquals(RayBounceEvent.PRIMARY, bounce.getString("kind"));
+        assertTrue(bounce.getBoolean("hit"));
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws IOException {
+        var dump = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            for (var event : List.of(RenderEvent.class, TileEvent.class, BVHBuildEvent.class, ExportEvent.class, RayBounceEvent.class)) {
+                recording.enable(event).withoutThreshold();
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        var matching = events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,79 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveSupersamplerTest {
+
+    private static Camera camera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        return camera;
+    }
+
+    @Test
+    void contrastIsTheLargestChannelDifference() {
+        assertEquals(0.5, AdaptiveSupersampler.contrast(new Color(0.1, 0.2, 0.9), new Color(0.2, 0.4, 0.4)), 1e-9);
+        assertEquals(0, AdaptiveSupersampler.contrast(Color.WHITE, Color.WHITE));
+    }
+
+    @Test
+    void pixelsDifferentFromANeighbourNeedRefinement() {
+        var canvas = new Canvas(3, 3);
+        canvas.write(1, 1, new Color(0.05, 0.05, 0.05));
+        canvas.write(2, 2, Color.WHITE);
+
+        assertFalse(AdaptiveSupersampler.needsRefinement(canvas, 0, 0, 0.1));
+        assertFalse(AdaptiveSupersampler.needsRefinement(canvas, 1, 1, 0.1));
+        assertTrue(AdaptiveSupersampler.needsRefinement(canvas, 2, 1, 0.1));
+        assertTrue(AdaptiveSupersampler.needsRefinement(canvas, 2, 2, 0.1));
+        assertTrue(AdaptiveSupersampler.needsRefinement(canvas, 1, 1, 0.01));
+    }
+
+    @Test
+    void flatImageNeedsNoExtraSamples() {
+        var camera = camera(8, 6);
+        var sampler = new AdaptiveSupersampler(camera);
+
+        var canvas = sampler.render(new World(), 1);
+
+        assertEquals(Color.BLACK, canvas.read(3, 3));
+        assertEquals(0, sampler.refinedPixels());
+        assertEquals(48, sampler.samples());
+        assertEquals(48 * 16, sampler.uniformSamples());
+    }
+
+    @Test
+    void onlyEdgesAreRefined() {
+        var world = World.getDefault();
+        var camera = camera(21, 21);
+        var plain = camera.render(world);
+        var sampler = new AdaptiveSupersampler(camera, 0.1, 2);
+
+        var canvas = sampler.render(world, 2);
+
+        assertTrue(sampler.refinedPixels() > 0);
+        assertTrue(sampler.refinedPixels() < 21 * 21 / 2, "refined " + sampler.refinedPixels());
+        assertTrue(sampler.samples() < sampler.uniformSamples() / 4, sampler.summary());
+        // the background is left alone
+        assertEquals(plain.read(0, 0), canvas.read(0, 0));
+        int changed = 0;
+        for (int x = 0; x < 21; x++) {
+            for (int y = 0; y < 21; y++) {
+                if (!plain.read(x, y).equals(canvas.read(x, y))) {
+                    changed++;
+                }
+            }
+        }
+        assertTrue(changed > 0 && changed <= sampler.refinedPixels(), "changed " + changed);
+    }
+
+    @Test
+    void needsAtLeastOneLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSupersampler(camera(2, 2), 0.1, 0));
+    }
+}
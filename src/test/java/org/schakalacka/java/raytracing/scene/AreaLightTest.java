@@ -0,0 +1,116 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AreaLightTest {
+
+    private static AreaLight grid(int uSteps, int vSteps, boolean jitter, boolean adaptive) {
+        return new AreaLight(Tuple.point(0, 0, 0), Tuple.vector(2, 0, 0), uSteps, Tuple.vector(0, 0, 1), vSteps, Color.WHITE, jitter, adaptive);
+    }
+
+    @Test
+    void centerAndIntensity() {
+        var light = grid(4, 2, false, false);
+
+        assertEquals(Tuple.point(1, 0, 0.5), light.asPointLight().position());
+        assertEquals(Color.WHITE, light.intensity());
+        assertEquals(8, light.samples());
+    }
+
+    @Test
+    void withoutJitterSamplesAreCellCenters() {
+        var light = grid(4, 2, false, false);
+
+        assertEquals(Tuple.point(0.25, 0, 0.25), light.pointOnLight(0, 0));
+        assertEquals(Tuple.point(0.75, 0, 0.25), light.pointOnLight(1, 0));
+        assertEquals(Tuple.point(0.25, 0, 0.75), light.pointOnLight(0, 1));
+        assertEquals(Tuple.point(1.75, 0, 0.75), light.pointOnLight(3, 1));
+    }
+
+    @Test
+    void jitteredSamplesStayInTheirCell() {
+        var light = grid(4, 2, true, false);
+
+        for (int i = 0; i < 100; i++) {
+            var sample = light.pointOnLight(2, 1);
+            assertTrue(sample.x() >= 1 && sample.x() <= 1.5, "x = " + sample.x());
+            assertTrue(sample.z() >= 0.5 && sample.z() <= 1, "z = " + sample.z());
+            assertEquals(0, sample.y());
+        }
+    }
+
+    @Test
+    void adaptiveStopsAfterTheCornersWhenTheyAgree() {
+        var light = grid(4, 4, false, true);
+        List<Tuple> lit = new ArrayList<>();
+        List<Tuple> shadowed = new ArrayList<>();
+
+        assertEquals(1, light.lightFraction(sample -> !lit.add(sample)));
+        assertEquals(0, light.lightFraction(shadowed::add));
+
+        assertEquals(4, lit.size());
+        assertEquals(4, shadowed.size());
+        assertTrue(lit.contains(Tuple.point(0.25, 0, 0.125)));
+        assertTrue(lit.contains(Tuple.point(1.75, 0, 0.875)));
+    }
+
+    @Test
+    void adaptiveTracesTheFullGridInThePenumbra() {
+        var light = grid(4, 4, false, true);
+        List<Tuple> samples = new ArrayList<>();
+
+        // the left half of the light is hidden
+        double fraction = light.lightFraction(sample -> samples.add(sample) && sample.x() < 1);
+
+        assertEquals(0.5, fraction);
+        assertEquals(16, samples.size());
+        assertEquals(16, samples.stream().distinct().count());
+    }
+
+    @Test
+    void adaptiveStripTestsEachCornerOnce() {
+        var row = grid(8, 1, false, true);
+        List<Tuple> samples = new ArrayList<>();
+
+        // only the first cell is hidden, both ends are traced once and counted once
+        double fraction = row.lightFraction(sample -> samples.add(sample) && sample.x() < 0.3);
+
+        assertEquals(7 / 8.0, fraction);
+        assertEquals(8, samples.size());
+        assertEquals(8, samples.stream().distinct().count());
+
+        var column = grid(1, 8, false, true);
+        samples.clear();
+
+        // the last two cells are hidden
+        fraction = column.lightFraction(sample -> samples.add(sample) && sample.z() > 0.8);
+
+        assertEquals(6 / 8.0, fraction);
+        assertEquals(8, samples.stream().distinct().count());
+
+        // the two ends agree: two samples and out
+        samples.clear();
+        assertEquals(1, column.lightFraction(sample -> !samples.add(sample)));
+        assertEquals(2, samples.size());
+    }
+
+    @Test
+    void withoutAdaptiveAllSamplesAreTraced() {
+        var light = grid(4, 4, false, false);
+        List<Tuple> samples = new ArrayList<>();
+
+        assertEquals(1, light.lightFraction(sample -> !samples.add(sample)));
+        assertEquals(16, samples.size());
+    }
+
+    @Test
+    void atLeastOneSamplePerDirection() {
+        assertThrows(IllegalArgumentException.class, () -> grid(0, 2, false, false));
+    }
+}
@@ -0,0 +1,136 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.Constants;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetedRendererTest {
+
+    private static Camera camera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        camera.setTileSize(8);
+        return camera;
+    }
+
+    private static World softShadowWorld() {
+        var world = World.getDefault();
+        world.setLightSource(null);
+        world.addAreaLights(new AreaLight(Tuple.point(-11, 9, -10), Tuple.vector(2, 0, 0), 8, Tuple.vector(0, 2, 0), 8, Color.WHITE, true, false));
+        return world;
+    }
+
+    @Test
+    void levelsOnlyGetWorse() {
+        var levels = BudgetedRenderer.Level.values();
+        for (int i = 1; i < levels.length; i++) {
+            assertTrue(levels[i].reflectionDepth() <= levels[i - 1].reflectionDepth());
+            assertTrue(levels[i].pixelStep >= levels[i - 1].pixelStep);
+            assertTrue(!levels[i].softShadows || levels[i - 1].softShadows);
+        }
+    }
+
+    @Test
+    void fullDepthFollowsTheDefault() {
+        int before = Constants.DEFAULT_REFLECTION_DEPTH;
+        try {
+            Constants.DEFAULT_REFLECTION_DEPTH = 7;
+            assertEquals(7, BudgetedRenderer.Level.FULL.reflectionDepth());
+            assertEquals(2, BudgetedRenderer.Level.FEWER_BOUNCES.reflectionDepth());
+            // a lower level never bounces more than the full one
+            Constants.DEFAULT_REFLECTION_DEPTH = 1;
+            assertEquals(1, BudgetedRenderer.Level.FEWER_BOUNCES.reflectionDepth());
+        } finally {
+            Constants.DEFAULT_REFLECTION_DEPTH = before;
+        }
+    }
+
+    @Test
+    void enoughBudgetGivesTheFullFrame() {
+        var camera = camera(21, 13);
+        var world = World.getDefault();
+        var expected = camera.render(world);
+
+        var result = new BudgetedRenderer(camera).render(world, 2, Duration.ofSeconds(30));
+
+        assertFalse(result.isDegraded());
+        assertTrue(result.degradations().isEmpty());
+        assertEquals(BudgetedRenderer.Level.FULL, result.finalLevel());
+        assertEquals(0, result.previewTiles());
+        for (int x = 0; x < 21; x++) {
+            for (int y = 0; y < 13; y++) {
+                assertEquals(expected.read(x, y), result.canvas().read(x, y), x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void tightBudgetDegradesAndReturnsOnTime() {
+        var world = softShadowWorld();
+        var budget = Duration.ofMillis(100);
+
+        var result = new BudgetedRenderer(camera(160, 90)).render(world, 1, budget);
+
+        assertTrue(result.isDegraded());
+        assertFalse(result.degradations().isEmpty());
+        // the workers stop within a row, a row of a tile at full quality is 8 pixels
+        assertTrue(result.elapsed().toMillis() < budget.toMillis() + 300, "took " + result.elapsed().toMillis() + "ms");
+        // the world is left as it was
+        assertTrue(world.isSoftShadows());
+        // the middle of the sphere was rendered, at some level or in the preview
+        assertNotEquals(Color.BLACK, result.canvas().read(80, 45));
+    }
+
+    @Test
+    void levelChangesBetweenTilesNeverLeavePreviewStripes() {
+        final var preview = new Color(1, 0, 1);
+        // the preview is the only caller of the two argument color_at. The other pixels take a random while, so the levels drop
+        // while the other workers are halfway through their tiles
+        var world = new World() {
+            @Override
+            public Color color_at(Ray ray, int remainingBounces) {
+                return preview;
+            }
+
+            @Override
+            public Color color_at(Ray ray, int remainingBounces, boolean softShadows) {
+                long end = System.nanoTime() + ThreadLocalRandom.current().nextLong(20_000, 180_000);
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+                return Color.WHITE;
+            }
+        };
+        var camera = camera(96, 64);
+        camera.setTileSize(8);
+
+        int degraded = 0;
+        for (int run = 0; run < 5; run++) {
+            var result = new BudgetedRenderer(camera).render(world, 4, Duration.ofMillis(60 + run * 20));
+            var canvas = result.canvas();
+
+            // rows are rendered top down: once a row of a tile kept the preview, all rows below it did too
+            for (int tileY = 0; tileY < 64; tileY += 8) {
+                for (int tileX = 0; tileX < 96; tileX += 8) {
+                    boolean previewAbove = false;
+                    for (int y = tileY; y < tileY + 8; y++) {
+                        boolean previewRow = canvas.read(tileX, y).equals(preview);
+                        assertFalse(previewAbove && !previewRow, "run " + run + ": row " + y + " of tile " + tileX + "," + tileY + " below a preview row");
+                        previewAbove |= previewRow;
+                    }
+                }
+            }
+            degraded += result.finalLevel().pixelStep > 1 ? 1 : 0;
+        }
+        // at 100us per pixel the full frame takes more than 150ms even on 4 cores
+        assertTrue(degraded > 0);
+    }
+}
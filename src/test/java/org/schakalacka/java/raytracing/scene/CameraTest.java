@@ -4,10 +4,15 @@ import org.junit.jupiter.api.Test;
 import org.schakalacka.java.raytracing.Constants;
 import org.schakalacka.java.raytracing.math.MatrixProvider;
 import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.tools.RenderExecutor;
+import org.schakalacka.java.raytracing.scene.tools.TileScheduler;
 import org.schakalacka.java.raytracing.world.ViewTransformation;
 import org.schakalacka.java.raytracing.world.World;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CameraTest {
 
@@ -48,6 +53,16 @@ class CameraTest {
         assertEquals(Tuple.vector(0, 0, -1), ray.direction());
     }
 
+    @Test
+    void rayThroughPixelCenterIsRayForPixel() {
+        var camera = new Camera(201, 101, Math.PI / 2);
+        camera.setTransformationMatrix(MatrixProvider.rotationY(Math.PI / 4).mulM(MatrixProvider.translation(0, -2, 5)));
+
+        assertEquals(camera.rayForPixel(0, 0).direction(), camera.rayThrough(0.5, 0.5).direction());
+        assertEquals(camera.rayForPixel(100, 50).direction(), camera.rayThrough(100.5, 50.5).direction());
+        assertEquals(camera.rayForPixel(100, 50).origin(), camera.rayThrough(100.25, 50.75).origin());
+    }
+
     @Test
     void rayThroughCornerOfCanvas() {
         var camera = new Camera(201, 101, Math.PI / 2);
@@ -84,4 +99,42 @@ class CameraTest {
 
         assertEquals(new Color(0.38066, 0.47583, 0.2855), renderedCanvas.read(5, 5));
     }
-}
\ No newline at end of file
+
+    @Test
+    void renderWithTilesOnSeveralThreadsGivesSameImage() {
+        var world = World.getDefault();
+        var camera = new Camera(21, 13, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        var expected = camera.render(world);
+
+        camera.setTileSize(4);
+        camera.setTileOrder(TileScheduler.Order.CENTER_OUT);
+        var tiled = camera.render(world, 3);
+
+        for (int x = 0; x < 21; x++) {
+            for (int y = 0; y < 13; y++) {
+                assertEquals(expected.read(x, y), tiled.read(x, y));
+            }
+        }
+    }
+
+    @Test
+    void submittedRenderWithDeadlineCompletesWithPartialCanvas() {
+        var world = World.getDefault();
+        var camera = new Camera(200, 100, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        camera.setTileSize(10);
+
+        try (var executor = new RenderExecutor(1)) {
+            camera.setExecutor(executor);
+            var job = camera.submit(world, Duration.ofNanos(1));
+
+            var canvas = job.join();
+            assertEquals(200, canvas.getWidth());
+            assertTrue(job.isPartial());
+
+            var full = camera.submit(world).join();
+            assertEquals(camera.render(world, 2).read(100, 50), full.read(100, 50));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.schakalacka.java.raytracing.scene.Canvas;
 import org.schakalacka.java.raytracing.scene.Color;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CanvasTest {
 
@@ -32,4 +33,24 @@ class CanvasTest {
         assertEquals(colorRed, canvas.read(2, 3));
     }
 
-}
\ No newline at end of file
+    @Test
+    void initColorAndNeighbouringPixels() {
+        var background = new Color(0.2, 0.4, 0.6);
+        var canvas = new Canvas(3, 2, background);
+        canvas.write(2, 0, Color.WHITE);
+
+        // the pixel after (2,0) in memory is (0,1), which must not be touched
+        assertEquals(Color.WHITE, canvas.read(2, 0));
+        assertEquals(background, canvas.read(0, 1));
+        assertEquals(background, canvas.read(1, 0));
+    }
+
+    @Test
+    void writeOutsideIsClampedReadOutsideFails() {
+        var canvas = new Canvas(10, 20);
+        canvas.write(233, -5, Color.WHITE);
+
+        assertEquals(Color.WHITE, canvas.read(9, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> canvas.read(10, 0));
+    }
+}
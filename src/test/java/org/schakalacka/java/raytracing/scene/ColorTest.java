@@ -21,6 +21,8 @@ class ColorTest {
         assertEquals(128, Color.scaleValue(0.5, 255));
         assertEquals(0, Color.scaleValue(-10.5, 255));
         assertEquals(255, Color.scaleValue(120.5, 255));
+        // what a float canvas gives back for 0.8
+        assertEquals(204, Color.scaleValue(0.8f, 255));
 
         var color = new Color(-1,0.5,10);
 
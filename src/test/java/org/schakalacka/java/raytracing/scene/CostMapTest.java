@@ -0,0 +1,83 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostMapTest {
+
+    @Test
+    void falseColorGradient() {
+        assertEquals(new Color(0, 0, 1), CostMap.falseColor(0));
+        assertEquals(new Color(0, 1, 0), CostMap.falseColor(0.5));
+        assertEquals(new Color(1, 0, 0), CostMap.falseColor(1));
+        // clamped
+        assertEquals(new Color(1, 0, 0), CostMap.falseColor(7));
+        assertEquals(new Color(0, 0, 1), CostMap.falseColor(-1));
+    }
+
+    @Test
+    void heatmapFileNames() {
+        assertEquals("render_time.ppm", CostMap.heatmapFileName("render.ppm", CostMap.Measure.TIME));
+        assertEquals("out/render_tests.ppm", CostMap.heatmapFileName("out/render.ppm", CostMap.Measure.SHAPE_TESTS));
+        assertEquals("out.d/render_rays", CostMap.heatmapFileName("out.d/render", CostMap.Measure.RAYS));
+    }
+
+    @Test
+    void heatmapScaledToPercentile() {
+        var costs = new CostMap(new Canvas(10, 10));
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                costs.record(x, y, 0, 1, 0);
+            }
+        }
+        // one outlier doesn't push everything else to the bottom of the scale
+        costs.record(0, 0, 0, 1000, 0);
+
+        var heatmap = costs.heatmap(CostMap.Measure.RAYS);
+        assertEquals(new Color(1, 0, 0), heatmap.read(5, 5));
+        assertEquals(new Color(1, 0, 0), heatmap.read(0, 0));
+        assertEquals(1099, costs.total(CostMap.Measure.RAYS));
+        // all zeros: blue, not NaN
+        assertEquals(new Color(0, 0, 1), costs.heatmap(CostMap.Measure.TIME).read(3, 3));
+    }
+
+    private static Camera camera() {
+        var camera = new Camera(11, 11, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        return camera;
+    }
+
+    @Test
+    void renderCostMap() {
+        var world = World.getDefault();
+        var camera = camera();
+
+        var costs = camera.renderCostMap(world, 2);
+
+        // the same image as a normal render
+        var image = camera.render(world);
+        for (int y = 0; y < 11; y++) {
+            for (int x = 0; x < 11; x++) {
+                assertEquals(image.read(x, y), costs.image().read(x, y));
+            }
+        }
+        assertTrue(costs.total(CostMap.Measure.TIME) > 0);
+    }
+
+    @Test
+    @Tag("metrics")
+    void raysAndShapeTestsPerPixel() {
+        var costs = camera().renderCostMap(World.getDefault(), 2);
+
+        // the corner misses everything: one primary ray, one test per sphere. The center hits and adds a shadow ray
+        assertEquals(1, costs.get(CostMap.Measure.RAYS, 0, 0));
+        assertEquals(2, costs.get(CostMap.Measure.SHAPE_TESTS, 0, 0));
+        assertEquals(2, costs.get(CostMap.Measure.RAYS, 5, 5));
+        assertTrue(costs.get(CostMap.Measure.SHAPE_TESTS, 5, 5) > 2);
+    }
+}
@@ -92,6 +92,19 @@ class MaterialTest {
         assertEquals(new Color(0.1, 0.1, 0.1), lighting);
     }
 
+    @Test
+    void lightingScalesDiffuseAndSpecularWithLightFraction() {
+        var material = Material.newMaterial().ambient(0.1).diffuse(0.9).specular(0).create();
+        var light = new PointLight(Tuple.point(0, 0, -10), new Color(1, 1, 1));
+        var point = Tuple.point(0, 0, -1);
+        var eyeVector = Tuple.vector(0, 0, -1);
+        var normalVector = Tuple.vector(0, 0, -1);
+
+        assertEquals(new Color(1, 1, 1), material.lighting(light, null, point, eyeVector, normalVector, 1.0));
+        assertEquals(new Color(0.55, 0.55, 0.55), material.lighting(light, null, point, eyeVector, normalVector, 0.5));
+        assertEquals(new Color(0.1, 0.1, 0.1), material.lighting(light, null, point, eyeVector, normalVector, 0.0));
+    }
+
     @Test
     void lightingWithPattern() {
         var material = Material.newMaterial().ambient(1).diffuse(0).specular(0).pattern(new StripePattern(new Color(1, 1, 1), new Color(0, 0, 0))).create();
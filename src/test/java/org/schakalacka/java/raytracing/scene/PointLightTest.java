@@ -19,4 +19,33 @@ class PointLightTest {
         assertEquals(intensity, light.intensity());
     }
 
-}
\ No newline at end of file
+    @Test
+    void lightWithoutFalloffIsEquallyBrightEverywhere() {
+        var light = new PointLight(Tuple.point(0, 0, 0), new Color(1, 1, 1));
+
+        assertFalse(light.isAttenuated());
+        assertSame(light.intensity(), light.intensityAt(Tuple.point(1000, 0, 0)));
+        assertEquals(Double.POSITIVE_INFINITY, light.influenceRadius(0.01));
+    }
+
+    @Test
+    void falloffHalvesTheIntensityAtTheRadius() {
+        var light = new PointLight(Tuple.point(0, 0, 0), new Color(1, 0.5, 0), 2);
+
+        assertTrue(light.isAttenuated());
+        assertEquals(new Color(1, 0.5, 0), light.intensityAt(Tuple.point(0, 0, 0)));
+        assertEquals(new Color(0.5, 0.25, 0), light.intensityAt(Tuple.point(0, 2, 0)));
+        assertEquals(new Color(0.2, 0.1, 0), light.intensityAt(Tuple.point(0, 0, 4)));
+    }
+
+    @Test
+    void influenceRadiusEndsWhereTheBrightestChannelDropsBelowTheCutoff() {
+        var light = new PointLight(Tuple.point(0, 0, 0), new Color(0.5, 1, 0.2), 1);
+        double radius = light.influenceRadius(0.01);
+
+        assertEquals(0.01, light.intensityAt(Tuple.point(radius, 0, 0)).g(), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, light.influenceRadius(0));
+        assertEquals(0, light.influenceRadius(2));
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.schakalacka.java.raytracing.scene;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.world.ViewTransformation;
+import org.schakalacka.java.raytracing.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressiveRendererTest {
+
+    private static Camera camera(int width, int height) {
+        var camera = new Camera(width, height, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 0, -5), Tuple.point(0, 0, 0), Tuple.vector(0, 1, 0)));
+        camera.setTileSize(8);
+        return camera;
+    }
+
+    @Test
+    void firstPassIsBoundedAtAnyResolution() {
+        assertEquals(8, ProgressiveRenderer.firstStep(100, 100));
+        assertEquals(8, ProgressiveRenderer.firstStep(1024, 1024));
+        assertEquals(16, ProgressiveRenderer.firstStep(1920, 1080));
+        assertEquals(64, ProgressiveRenderer.firstStep(7680, 4320));
+        int step = ProgressiveRenderer.firstStep(100_000, 100_000);
+        assertTrue((100_000L / step + 1) * (100_000L / step + 1) <= ProgressiveRenderer.FIRST_PASS_RAYS * 2L);
+    }
+
+    @Test
+    void passesGetFinerThenSupersample() {
+        var renderer = new ProgressiveRenderer(camera(30, 20), 2);
+        List<ProgressiveRenderer.Pass> passes = new ArrayList<>();
+
+        renderer.render(World.getDefault(), 2, (canvas, pass) -> passes.add(pass));
+
+        assertEquals(List.of(8, 4, 2, 1, 1, 1), passes.stream().map(ProgressiveRenderer.Pass::step).toList());
+        assertEquals(List.of(0, 0, 0, 1, 2, 3), passes.stream().map(ProgressiveRenderer.Pass::samplesPerPixel).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), passes.stream().map(ProgressiveRenderer.Pass::index).toList());
+    }
+
+    @Test
+    void firstPassFillsBlocks() {
+        var camera = camera(30, 20);
+        var renderer = new ProgressiveRenderer(camera, 0);
+        List<Color[]> firstPass = new ArrayList<>();
+
+        renderer.render(World.getDefault(), 1, (canvas, pass) -> {
+            if (pass.index() == 0) {
+                firstPass.add(new Color[]{canvas.read(8, 8), canvas.read(15, 15), canvas.read(29, 19), canvas.read(24, 16)});
+            }
+        });
+
+        var colors = firstPass.get(0);
+        assertEquals(colors[0], colors[1]);
+        assertEquals(colors[2], colors[3]);
+    }
+
+    @Test
+    void fullResolutionPassMatchesRender() {
+        var camera = camera(21, 13);
+        var world = World.getDefault();
+        var expected = camera.render(world);
+
+        var canvas = new ProgressiveRenderer(camera, 0).render(world, 3, (c, pass) -> {
+        });
+
+        for (int x = 0; x < 21; x++) {
+            for (int y = 0; y < 13; y++) {
+                assertEquals(expected.read(x, y), canvas.read(x, y), x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void supersamplingAveragesRays() {
+        var camera = camera(21, 13);
+        var world = World.getDefault();
+        var expected = camera.render(world);
+
+        var canvas = new ProgressiveRenderer(camera, 3).render(world, 1, (c, pass) -> {
+        });
+
+        // the background stays black, a pixel inside the sphere stays close
+        assertEquals(Color.BLACK, canvas.read(0, 0));
+        assertEquals(expected.read(10, 6).r(), canvas.read(10, 6).r(), 0.05);
+    }
+
+    @Test
+    void stopEndsAfterThePassRunning() {
+        var renderer = new ProgressiveRenderer(camera(30, 20));
+        List<ProgressiveRenderer.Pass> passes = new ArrayList<>();
+
+        renderer.render(World.getDefault(), 1, (canvas, pass) -> {
+            passes.add(pass);
+            renderer.stop();
+        });
+
+        assertEquals(1, passes.size());
+    }
+}
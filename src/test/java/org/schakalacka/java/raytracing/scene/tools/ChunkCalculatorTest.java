@@ -115,5 +115,14 @@ class ChunkCalculatorTest {
 
     }
 
-
-}
\ No newline at end of file
+    @Test
+    void chunkCalculator9AddsMissingPixelsToLastColumn() {
+        var calculateChunks = ChunkCalculator.calculateChunks(9, 100, 50);
+
+        // 100 / 3 = 33, the last column gets the remaining pixel
+        assertEquals(new Chunk(66, 99, 0, 15), calculateChunks[2]);
+        assertEquals(new Chunk(66, 99, 16, 31), calculateChunks[5]);
+        assertEquals(new Chunk(66, 99, 32, 49), calculateChunks[8]);
+        assertEquals(new Chunk(33, 65, 32, 49), calculateChunks[7]);
+    }
+}
@@ -0,0 +1,135 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.scene.Canvas;
+import org.schakalacka.java.raytracing.scene.Color;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderJobTest {
+
+    private final RenderExecutor executor = new RenderExecutor(2);
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    private static RenderJob.RowRenderer paint(Canvas canvas) {
+        return (y, xFrom, xTo) -> {
+            for (int x = xFrom; x <= xTo; x++) {
+                canvas.write(x, y, Color.WHITE);
+            }
+        };
+    }
+
+    @Test
+    void completesWithFullCanvas() throws Exception {
+        var canvas = new Canvas(20, 10);
+        var job = RenderJob.start(executor, canvas, new TileScheduler(20, 10, 4, TileScheduler.Order.ROWS), paint(canvas), 0);
+
+        assertSame(canvas, job.get(10, TimeUnit.SECONDS));
+        assertFalse(job.isPartial());
+        assertEquals(15, job.completedTiles());
+        assertEquals(Color.WHITE, canvas.read(19, 9));
+    }
+
+    @Test
+    void executorIsReusedForManyFrames() {
+        for (int frame = 0; frame < 50; frame++) {
+            var canvas = new Canvas(8, 8);
+            var job = RenderJob.start(executor, canvas, new TileScheduler(8, 8, 2, TileScheduler.Order.ROWS), paint(canvas), 0);
+            assertNotNull(job.join());
+            assertFalse(job.isPartial());
+        }
+    }
+
+    @Test
+    void deadlineReturnsPartialCanvas() {
+        var canvas = new Canvas(20, 20);
+        var rows = new AtomicInteger();
+        var job = RenderJob.start(executor, canvas, new TileScheduler(20, 20, 5, TileScheduler.Order.ROWS), (y, xFrom, xTo) -> {
+            rows.incrementAndGet();
+            sleep(5);
+            paint(canvas).render(y, xFrom, xTo);
+        }, TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertSame(canvas, job.join());
+        assertTrue(job.isPartial());
+        assertFalse(job.isCancelled());
+        assertTrue(rows.get() < 80);
+        assertEquals(Color.WHITE, canvas.read(0, 0));
+        assertEquals(Color.BLACK, canvas.read(19, 19));
+    }
+
+    @Test
+    void cancelStopsWorkersMidFrame() throws Exception {
+        var canvas = new Canvas(20, 20);
+        var started = new CountDownLatch(1);
+        var rows = new AtomicInteger();
+        var job = RenderJob.start(executor, canvas, new TileScheduler(20, 20, 20, TileScheduler.Order.ROWS), (y, xFrom, xTo) -> {
+            started.countDown();
+            rows.incrementAndGet();
+            sleep(5);
+        }, 0);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(job.cancel(false));
+
+        assertTrue(job.isCancelled());
+        assertThrows(CancellationException.class, job::get);
+        assertSame(canvas, job.getCanvas());
+        // the single tile has 20 rows, the worker stops after the one it was busy with
+        sleep(50);
+        assertTrue(rows.get() < 20);
+    }
+
+    @Test
+    void failingRowFailsTheJob() {
+        var canvas = new Canvas(10, 10);
+        var job = RenderJob.start(executor, canvas, new TileScheduler(10, 10, 5, TileScheduler.Order.ROWS), (y, xFrom, xTo) -> {
+            throw new IllegalStateException("broken shape");
+        }, 0);
+
+        var e = assertThrows(CompletionException.class, job::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertThrows(ExecutionException.class, job::get);
+    }
+
+    @Test
+    void closingTheExecutorFinishesQueuedJobs() {
+        var single = new RenderExecutor(1);
+        var started = new CountDownLatch(1);
+        var running = RenderJob.start(single, new Canvas(10, 10), new TileScheduler(10, 10, 10, TileScheduler.Order.ROWS), (y, xFrom, xTo) -> {
+            started.countDown();
+            sleep(5);
+        }, 0);
+        var queued = RenderJob.start(single, new Canvas(10, 10), new TileScheduler(10, 10, 10, TileScheduler.Order.ROWS), (y, xFrom, xTo) -> {
+        }, 0);
+
+        assertDoesNotThrow(() -> started.await(10, TimeUnit.SECONDS));
+        single.close();
+
+        assertTrue(single.isClosed());
+        assertNotNull(running.join());
+        assertTrue(running.isPartial());
+        assertNotNull(queued.join());
+        assertEquals(0, queued.completedTiles());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
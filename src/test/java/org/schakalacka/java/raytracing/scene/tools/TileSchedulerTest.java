@@ -0,0 +1,94 @@
+package org.schakalacka.java.raytracing.scene.tools;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.scene.Canvas;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileSchedulerTest {
+
+    @Test
+    void tilesCoverEveryPixelExactlyOnce() {
+        var scheduler = new TileScheduler(100, 50, 32, TileScheduler.Order.ROWS);
+        var covered = new int[100][50];
+
+        assertEquals(8, scheduler.tileCount());
+        for (int i = 0; i < scheduler.tileCount(); i++) {
+            var tile = scheduler.tile(i);
+            for (int x = tile.xFrom(); x <= tile.xTo(); x++) {
+                for (int y = tile.yFrom(); y <= tile.yTo(); y++) {
+                    covered[x][y]++;
+                }
+            }
+        }
+
+        for (int[] column : covered) {
+            for (int count : column) {
+                assertEquals(1, count);
+            }
+        }
+    }
+
+    @Test
+    void edgeTilesAreSmaller() {
+        var scheduler = new TileScheduler(100, 50, 32, TileScheduler.Order.ROWS);
+
+        assertEquals(new Chunk(0, 31, 0, 31), scheduler.tile(0));
+        assertEquals(new Chunk(96, 99, 0, 31), scheduler.tile(3));
+        assertEquals(new Chunk(96, 99, 32, 49), scheduler.tile(7));
+    }
+
+    @Test
+    void centerOutStartsInTheMiddle() {
+        var scheduler = new TileScheduler(90, 90, 30, TileScheduler.Order.CENTER_OUT);
+
+        assertEquals(new Chunk(30, 59, 30, 59), scheduler.tile(0));
+        // the corners are the farthest away
+        assertEquals(new Chunk(60, 89, 60, 89), scheduler.tile(8));
+    }
+
+    @Test
+    void nextHandsOutEveryTileOnce() {
+        var scheduler = new TileScheduler(10, 10, 5, TileScheduler.Order.ROWS);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(scheduler.tile(i), scheduler.next());
+        }
+        assertNull(scheduler.next());
+        assertNull(scheduler.next());
+    }
+
+    @Test
+    void workersRenderEveryTileWithAnyNumberOfThreads() {
+        for (int threads : new int[]{1, 3, 7, 100}) {
+            var scheduler = new TileScheduler(50, 30, 8, TileScheduler.Order.CENTER_OUT);
+            var pixels = new AtomicIntegerArray(50 * 30);
+
+            try (var executor = new RenderExecutor(threads)) {
+                RenderJob.start(executor, new Canvas(50, 30), scheduler, (y, xFrom, xTo) -> {
+                    for (int x = xFrom; x <= xTo; x++) {
+                        pixels.incrementAndGet(y * 50 + x);
+                    }
+                }, 0).join();
+            }
+
+            for (int i = 0; i < pixels.length(); i++) {
+                assertEquals(1, pixels.get(i));
+            }
+            int rendered = 0;
+            for (int worker = 0; worker < scheduler.workers(); worker++) {
+                rendered += scheduler.renderedTiles(worker);
+                assertTrue(scheduler.utilisation(worker) <= 1);
+            }
+            assertEquals(scheduler.tileCount(), rendered);
+            assertEquals(Math.min(threads, scheduler.tileCount()), scheduler.workers());
+        }
+    }
+
+    @Test
+    void invalidTileSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(10, 10, 0, TileScheduler.Order.ROWS));
+    }
+}
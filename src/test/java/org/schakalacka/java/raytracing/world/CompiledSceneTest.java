@@ -0,0 +1,134 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.patterns.StripePattern;
+import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Camera;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.Material;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledSceneTest {
+
+    // a rotated group inside a translated group inside a scaled one, next to a plane and a loose sphere
+    private static World nestedWorld() {
+        var world = World.getDefault();
+        var floor = new Plane();
+        floor.setTransformationMatrix(MatrixProvider.translation(0, -1, 0));
+
+        var outer = new Group();
+        outer.setTransformationMatrix(MatrixProvider.scaling(2, 2, 2));
+        var middle = new Group();
+        middle.setTransformationMatrix(MatrixProvider.translation(1, 0, 2));
+        var inner = new Group();
+        inner.setTransformationMatrix(MatrixProvider.rotationY(Math.PI / 4));
+        for (int i = 0; i < 5; i++) {
+            var sphere = new Sphere();
+            sphere.setTransformationMatrix(MatrixProvider.translation(i - 2, 0, 0).mulM(MatrixProvider.scaling(0.4, 0.4, 0.4)));
+            inner.addChild(sphere);
+        }
+        middle.addChild(inner);
+        middle.addChild(new Sphere());
+        outer.addChild(middle);
+
+        var loose = new Sphere();
+        loose.setTransformationMatrix(MatrixProvider.translation(-4, 0, 0));
+        world.addObjects(floor, outer, loose);
+        return world;
+    }
+
+    private static final List<Ray> RAYS = List.of(
+            new Ray(Tuple.point(0, 0, -10), Tuple.vector(0, 0, 1)),
+            new Ray(Tuple.point(2, 0, -10), Tuple.vector(0, 0, 1)),
+            new Ray(Tuple.point(-20, 0, 4), Tuple.vector(1, 0, 0)),
+            new Ray(Tuple.point(-4, 10, 0), Tuple.vector(0, -1, 0)),
+            new Ray(Tuple.point(0, 10, 0), Tuple.vector(0.3, -1, 0.7).normalize()),
+            new Ray(Tuple.point(20, 1, 20), Tuple.vector(-1, -0.1, -1).normalize()));
+
+    private static List<String> hits(List<Intersection> intersections) {
+        return intersections.stream().map(i -> "%.9f %s".formatted(i.getDistance(), System.identityHashCode(i.getIntersectedObject()))).toList();
+    }
+
+    @Test
+    void intersectionsMatchSceneGraph() {
+        var world = nestedWorld();
+        var expected = RAYS.stream().map(world::intersect).map(CompiledSceneTest::hits).toList();
+
+        world.compile();
+
+        assertNotNull(world.getCompiledScene());
+        for (int i = 0; i < RAYS.size(); i++) {
+            assertEquals(expected.get(i), hits(world.intersect(RAYS.get(i))), "ray " + i);
+        }
+    }
+
+    @Test
+    void denseIds() {
+        var world = nestedWorld().compile();
+        var scene = world.getCompiledScene();
+
+        // 2 default spheres, the floor, 5 + 1 nested spheres and the loose one. No groups
+        assertEquals(10, scene.shapeCount());
+        var seen = new HashSet<Integer>();
+        for (int id = 0; id < scene.shapeCount(); id++) {
+            var shape = scene.shape(id);
+            assertFalse(shape instanceof Group);
+            assertEquals(id, scene.id(shape));
+            assertEquals(shape.getWorldToObjectMatrix(), scene.worldToObject(id));
+            seen.add(id);
+        }
+        assertEquals(10, seen.size());
+        assertEquals(-1, scene.id(new Sphere()));
+        assertEquals(-1, scene.id(world.getObjects().get(3)));
+    }
+
+    @Test
+    void frozenAfterCompile() {
+        var world = nestedWorld();
+        var pattern = new StripePattern(Color.WHITE, Color.BLACK);
+        var striped = new Sphere();
+        striped.setMaterial(Material.newMaterial().pattern(pattern).create());
+        world.addObjects(striped);
+        world.compile();
+
+        var outer = (Group) world.getObjects().get(3);
+        var nested = ((Group) outer.getChildren().get(0)).getChildren().get(1);
+        assertTrue(nested.isFrozen());
+        assertThrows(IllegalStateException.class, () -> nested.setTransformationMatrix(MatrixProvider.translation(1, 1, 1)));
+        assertThrows(IllegalStateException.class, () -> nested.setMaterial(Material.newMaterial().create()));
+        assertThrows(IllegalStateException.class, () -> outer.addChild(new Sphere()));
+        assertThrows(UnsupportedOperationException.class, () -> outer.getChildren().clear());
+        assertThrows(IllegalStateException.class, () -> pattern.setTransformationMatrix(MatrixProvider.scaling(2, 2, 2)));
+        assertThrows(IllegalStateException.class, () -> world.addObjects(new Sphere()));
+        assertThrows(IllegalStateException.class, world::divide);
+        assertThrows(UnsupportedOperationException.class, () -> world.getObjects().clear());
+        // a frozen shape can't be put into another group either
+        assertThrows(IllegalStateException.class, () -> new Group().addChild(nested));
+    }
+
+    @Test
+    void rendersSameImage() {
+        var world = nestedWorld();
+        var camera = new Camera(21, 21, Math.PI / 2);
+        camera.setTransformationMatrix(ViewTransformation.transform(Tuple.point(0, 3, -8), Tuple.point(0, 0, 2), Tuple.vector(0, 1, 0)));
+
+        var expected = camera.render(world);
+        var actual = camera.render(world.compile(), 4);
+
+        for (int y = 0; y < 21; y++) {
+            for (int x = 0; x < 21; x++) {
+                assertEquals(expected.read(x, y), actual.read(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
+import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Sphere;
+import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
+import org.schakalacka.java.raytracing.geometry.tracing.IntersectionTracker;
+import org.schakalacka.java.raytracing.geometry.tracing.Ray;
+import org.schakalacka.java.raytracing.math.MatrixProvider;
+import org.schakalacka.java.raytracing.math.Tuple;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatBVHTest {
+
+    private static World gridWorld() {
+        var world = World.getDefault();
+        var floor = new Plane();
+        floor.setTransformationMatrix(MatrixProvider.translation(0, -1, 0));
+        world.addObjects(floor);
+
+        for (int x = 0; x < 6; x++) {
+            for (int z = 0; z < 6; z++) {
+                var s = new Sphere();
+                s.setTransformationMatrix(MatrixProvider.translation(x * 3 - 9, 0, z * 3 + 3).mulM(MatrixProvider.scaling(0.5, 0.5, 0.5)));
+                world.addObjects(s);
+            }
+        }
+        return world;
+    }
+
+    private static List<Double> distances(List<Intersection> intersections) {
+        return intersections.stream().map(Intersection::getDistance).toList();
+    }
+
+    @Test
+    void emptyWorld() {
+        var bvh = FlatBVH.build(new World());
+
+        assertEquals(0, bvh.getNodeCount());
+        assertEquals(0, bvh.intersect(new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1))).size());
+    }
+
+    @Test
+    void intersectionsMatchFlatList() {
+        var world = gridWorld();
+        var bvh = FlatBVH.build(world);
+
+        assertTrue(bvh.getNodeCount() > 1);
+
+        var rays = List.of(
+                new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1)),
+                new Ray(Tuple.point(-9, 0, -5), Tuple.vector(0, 0, 1)),
+                new Ray(Tuple.point(-20, 0, 6), Tuple.vector(1, 0, 0)),
+                new Ray(Tuple.point(0, 10, 0), Tuple.vector(0.3, -1, 0.7).normalize()),
+                new Ray(Tuple.point(20, 0, 20), Tuple.vector(-1, 0, -1).normalize()));
+
+        for (Ray ray : rays) {
+            assertEquals(distances(world.intersect(ray)), distances(bvh.intersect(ray)));
+        }
+    }
+
+    @Test
+    void identityGroupsAreDissolved() {
+        var world = gridWorld().divide(2);
+        var bvh = FlatBVH.build(world);
+        var ray = new Ray(Tuple.point(-20, 0, 6), Tuple.vector(1, 0, 0));
+
+        assertEquals(distances(world.intersect(ray)), distances(bvh.intersect(ray)));
+    }
+
+    @Test
+    void transformedGroupIsKeptAsShape() {
+        var world = new World();
+        var group = new Group();
+        group.setTransformationMatrix(MatrixProvider.translation(0, 0, 5));
+        group.addChild(new Sphere());
+        world.addObjects(group);
+
+        var bvh = FlatBVH.build(world);
+
+        assertEquals(1, bvh.getNodeCount());
+        assertEquals(List.of(9.0, 11.0), distances(bvh.intersect(new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1)))));
+    }
+
+    @Test
+    void acceleratedWorldUsesStructureUntilChanged() {
+        var world = gridWorld();
+        var plain = gridWorld();
+        world.accelerate();
+        var ray = new Ray(Tuple.point(-9, 0.2, -5), Tuple.vector(0, 0, 1));
+
+        assertEquals(plain.color_at(ray), world.color_at(ray));
+
+        var blocker = new Sphere();
+        blocker.setTransformationMatrix(MatrixProvider.translation(-9, 0, -2));
+        world.addObjects(blocker);
+        // the blocker is only visible because adding it dropped the compiled structure
+        assertEquals(2.0, world.intersect(ray).get(0).getDistance(), 0.1);
+    }
+
+    @Test
+    void closestHitMatchesFirstPositiveIntersection() {
+        var world = gridWorld();
+        var accelerated = gridWorld().accelerate();
+        var divided = gridWorld().divide(2);
+
+        for (int i = 0; i < 50; i++) {
+            var origin = Tuple.point(i % 7 - 3, 0.3 + i % 3, -6);
+            var ray = new Ray(origin, Tuple.vector((i % 5 - 2) * 0.2, -0.1 * (i % 4), 1).normalize());
+
+            var expected = IntersectionTracker.getHit(world.intersect(ray));
+            assertEquals(expected == null ? null : expected.getDistance(), distanceOf(accelerated.closestHit(ray)));
+            assertEquals(expected == null ? null : expected.getDistance(), distanceOf(divided.closestHit(ray)));
+            assertEquals(expected == null ? null : expected.getDistance(), distanceOf(world.closestHit(ray)));
+        }
+    }
+
+    private static Double distanceOf(Intersection intersection) {
+        return intersection == null ? null : intersection.getDistance();
+    }
+}
@@ -0,0 +1,106 @@
+package org.schakalacka.java.raytracing.world;
+
+import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.Color;
+import org.schakalacka.java.raytracing.scene.PointLight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightIndexTest {
+
+    private static List<PointLight> randomLights(int count) {
+        var random = new Random(42);
+        var lights = new ArrayList<PointLight>();
+        for (int i = 0; i < count; i++) {
+            lights.add(new PointLight(Tuple.point(random.nextDouble() * 100 - 50, random.nextDouble() * 10, random.nextDouble() * 100 - 50),
+                    new Color(random.nextDouble(), random.nextDouble(), random.nextDouble()), 0.5 + random.nextDouble()));
+        }
+        return lights;
+    }
+
+    private static Set<Integer> selected(LightIndex index, Tuple point) {
+        var selection = index.select(point);
+        var result = new TreeSet<Integer>();
+        for (int i = 0; i < selection.size(); i++) {
+            result.add(selection.lightIndex(i));
+            assertSame(selection.get(i), selection.get(i));
+        }
+        assertEquals(selection.size(), result.size(), "every light only once");
+        return result;
+    }
+
+    @Test
+    void emptyIndex() {
+        var index = LightIndex.build(List.of(), World.DEFAULT_LIGHT_CUTOFF);
+
+        assertEquals(0, index.select(Tuple.point(0, 0, 0)).size());
+    }
+
+    @Test
+    void lightsWithoutFalloffAreAlwaysSelectedInOrder() {
+        var lights = List.of(
+                new PointLight(Tuple.point(-1000, 0, 0), Color.WHITE),
+                new PointLight(Tuple.point(0, 0, 0), Color.WHITE, 1),
+                new PointLight(Tuple.point(1000, 0, 0), Color.WHITE));
+        var index = LightIndex.build(lights, World.DEFAULT_LIGHT_CUTOFF);
+
+        var selection = index.select(Tuple.point(500, 0, 0));
+
+        assertEquals(List.of(lights.get(0), lights.get(2)), selection);
+        assertEquals(2, selection.lightIndex(1));
+    }
+
+    @Test
+    void selectsLightsWithinTheirInfluenceRadius() {
+        var light = new PointLight(Tuple.point(0, 0, 0), Color.WHITE, 1);
+        var index = LightIndex.build(List.of(light), 0.01);
+        double radius = light.influenceRadius(0.01);
+
+        assertEquals(1, index.select(Tuple.point(radius - 0.01, 0, 0)).size());
+        assertEquals(0, index.select(Tuple.point(radius + 0.01, 0, 0)).size());
+        // inside the bounding box, but outside the sphere
+        assertEquals(0, index.select(Tuple.point(radius * 0.8, radius * 0.8, 0)).size());
+    }
+
+    @Test
+    void sameLightsAsCheckingEveryLight() {
+        var lights = randomLights(500);
+        var index = LightIndex.build(lights, World.DEFAULT_LIGHT_CUTOFF);
+        var random = new Random(7);
+
+        assertTrue(index.getDepth() > 1);
+        for (int p = 0; p < 200; p++) {
+            var point = Tuple.point(random.nextDouble() * 100 - 50, random.nextDouble() * 10, random.nextDouble() * 100 - 50);
+            var expected = new TreeSet<Integer>();
+            for (int i = 0; i < lights.size(); i++) {
+                if (lights.get(i).position().sub(point).magnitude() < lights.get(i).influenceRadius(World.DEFAULT_LIGHT_CUTOFF)) {
+                    expected.add(i);
+                }
+            }
+            assertEquals(expected, selected(index, point));
+        }
+    }
+
+    @Test
+    void cutoffZeroSelectsEverything() {
+        var lights = randomLights(20);
+        var index = LightIndex.build(lights, 0);
+
+        assertEquals(lights, index.select(Tuple.point(1000, 1000, 1000)));
+    }
+
+    @Test
+    void lightsTooDimForTheCutoffAreNeverSelected() {
+        var dim = new PointLight(Tuple.point(0, 0, 0), new Color(0.001, 0.001, 0.001), 1);
+        var index = LightIndex.build(List.of(dim), World.DEFAULT_LIGHT_CUTOFF);
+
+        assertEquals(0, index.select(Tuple.point(0, 0, 0)).size());
+    }
+}
@@ -1,7 +1,11 @@
 package org.schakalacka.java.raytracing.world;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.schakalacka.java.raytracing.Metrics;
+import org.schakalacka.java.raytracing.geometry.objects.Group;
 import org.schakalacka.java.raytracing.geometry.objects.Plane;
+import org.schakalacka.java.raytracing.geometry.objects.Shape;
 import org.schakalacka.java.raytracing.geometry.objects.Sphere;
 import org.schakalacka.java.raytracing.geometry.patterns.PatternTest;
 import org.schakalacka.java.raytracing.geometry.tracing.Intersection;
@@ -12,6 +16,7 @@ import org.schakalacka.java.raytracing.math.MatrixProvider;
 import org.schakalacka.java.raytracing.math.RTPoint;
 import org.schakalacka.java.raytracing.math.RTVector;
 import org.schakalacka.java.raytracing.math.Tuple;
+import org.schakalacka.java.raytracing.scene.AreaLight;
 import org.schakalacka.java.raytracing.scene.Color;
 import org.schakalacka.java.raytracing.scene.Material;
 import org.schakalacka.java.raytracing.scene.PointLight;
@@ -176,6 +181,32 @@ class WorldTest {
         assertFalse(world.getShadowResult(point).isShadowed());
     }
 
+    @Test
+    void surfaceWithoutShadowDoesNotHideShadowCasterBehindIt() {
+        var world = World.getDefault();
+        // a glass pane between the point and the default spheres, which don't create shadows
+        var pane = new Plane();
+        pane.setTransformationMatrix(MatrixProvider.translation(0, 0, 5).mulM(MatrixProvider.rotationX(Math.PI / 2)));
+        pane.setMaterial(Material.newMaterial().createsShadow(false).create());
+        world.addObjects(pane);
+        var point = Tuple.point(10, -10, 10);
+
+        assertTrue(world.isShadowed(point));
+        assertTrue(world.getShadowResult(point).isShadowed());
+        assertNotSame(pane, world.getShadowResult(point).distance().getIntersectedObject());
+    }
+
+    @Test
+    void occluderIsOnlySearchedUpToTheLight() {
+        var world = World.getDefault();
+        world.setLightSource(new PointLight(Tuple.point(0, 0, -5), new Color(1, 1, 1)));
+
+        // the spheres are behind the point, the light in front of it
+        assertFalse(world.isShadowed(Tuple.point(0, 0, -3)));
+        // the spheres are between the point and the light
+        assertTrue(world.isShadowed(Tuple.point(0, 0, 3)));
+    }
+
     @Test
     void reflectedColorForNonReflectiveMaterial() {
         var world = World.getDefault();
@@ -412,4 +443,220 @@ class WorldTest {
         assertEquals(new Color(0.93391, 0.69643, 0.69243), color);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void dividedWorldRendersLikeFlatWorld() {
+        var flat = World.getDefault();
+        var divided = World.getDefault();
+        var floor = new Plane();
+        floor.setTransformationMatrix(MatrixProvider.translation(0, -1, 0));
+        divided.addObjects(floor);
+        var flatFloor = new Plane();
+        flatFloor.setTransformationMatrix(MatrixProvider.translation(0, -1, 0));
+        flat.addObjects(flatFloor);
+        for (int i = 0; i < 10; i++) {
+            var s1 = new Sphere();
+            s1.setTransformationMatrix(MatrixProvider.translation(i * 3 - 15, 0, 5));
+            flat.addObjects(s1);
+            var s2 = new Sphere();
+            s2.setTransformationMatrix(MatrixProvider.translation(i * 3 - 15, 0, 5));
+            divided.addObjects(s2);
+        }
+
+        divided.divide(2);
+
+        assertTrue(divided.getObjects().contains(floor));
+        assertTrue(divided.getObjects().size() < flat.getObjects().size());
+
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+        assertEquals(flat.color_at(ray), divided.color_at(ray));
+        ray = new Ray(Tuple.point(-6, 0.5, -5), Tuple.vector(0, 0, 1));
+        assertEquals(flat.color_at(ray), divided.color_at(ray));
+    }
+
+    @Test
+    void shadeHitSumsAllLights() {
+        var world = World.getDefault();
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+        var shape = world.getObjects().get(0);
+        var precalc = new Precalc(new Intersection(shape, 4), ray);
+        var first = world.shade_hit(precalc);
+
+        var second = new PointLight(Tuple.point(10, 10, -10), new Color(0.5, 0.5, 0.5));
+        world.addLights(second);
+        var both = world.shade_hit(precalc);
+
+        var onlySecond = shape.material().lighting(second, shape, precalc.getOverPoint(), precalc.getEyeVector(), precalc.getNormalVector(), false);
+        assertEquals(2, world.getLights().size());
+        assertEquals(first.add(onlySecond), both);
+    }
+
+    @Test
+    void shadowIsCheckedPerLight() {
+        var world = World.getDefault();
+        world.addLights(new PointLight(Tuple.point(10, -10, 10), Color.WHITE));
+        // the spheres are between the point and the first light, but not the second one
+        var point = Tuple.point(5, -5, 5);
+
+        assertTrue(world.isShadowed(Tuple.point(10, -10, 10), 0));
+        assertFalse(world.isShadowed(point, 1));
+    }
+
+    @Test
+    void setLightSourceReplacesAllLights() {
+        var world = World.getDefault();
+        world.addLights(new PointLight(Tuple.point(10, 10, -10), Color.WHITE));
+        var light = new PointLight(Tuple.point(0, 0, -10), Color.WHITE);
+
+        world.setLightSource(light);
+
+        assertEquals(List.of(light), world.getLights());
+        assertEquals(light, world.getLightSource());
+    }
+
+    // what was counted while running the action
+    private static Metrics.Snapshot counting(Runnable action) {
+        var before = Metrics.snapshot();
+        action.run();
+        return Metrics.snapshot().minus(before);
+    }
+
+    @Test
+    @Tag("metrics")
+    void cachedOccluderIsTriedFirst() {
+        var world = World.getDefault();
+        var point = Tuple.point(10, -10, 10);
+
+        var first = counting(() -> assertTrue(world.isShadowed(point)));
+        assertEquals(0, first.get(Metrics.Event.SHADOW_CACHE_LOOKUP));
+        // the neighbour is blocked by the same sphere
+        var neighbours = counting(() -> {
+            assertTrue(world.isShadowed(Tuple.point(10.1, -10, 10)));
+            assertTrue(world.isShadowed(Tuple.point(10, -10.1, 10)));
+        });
+
+        assertEquals(2, neighbours.get(Metrics.Event.SHADOW_CACHE_LOOKUP));
+        assertEquals(1, neighbours.shadowCacheHitRate());
+    }
+
+    @Test
+    @Tag("metrics")
+    void releasingThreadStateForgetsTheOccluders() {
+        var world = World.getDefault();
+
+        assertTrue(world.isShadowed(Tuple.point(10, -10, 10)));
+        World.releaseThreadState();
+        // nothing cached to try: no lookup
+        assertEquals(0, counting(() -> assertTrue(world.isShadowed(Tuple.point(10.1, -10, 10)))).get(Metrics.Event.SHADOW_CACHE_LOOKUP));
+        assertEquals(1, counting(() -> assertTrue(world.isShadowed(Tuple.point(10, -10.1, 10)))).shadowCacheHitRate());
+    }
+
+    @Test
+    @Tag("metrics")
+    void cachedOccluderInTransformedGroupGivesSameShadows() {
+        var cached = new World();
+        var uncached = new World();
+        for (var world : List.of(cached, uncached)) {
+            world.setLightSource(new PointLight(Tuple.point(0, 10, 0), Color.WHITE));
+            var group = new Group();
+            group.setTransformationMatrix(MatrixProvider.translation(0, 3, 0).mulM(MatrixProvider.scaling(2, 1, 2)));
+            var sphere = new Sphere();
+            sphere.setTransformationMatrix(MatrixProvider.translation(1, 0, 0));
+            group.addChild(sphere);
+            world.addObjects(group);
+        }
+
+        var counts = counting(() -> {
+            for (int i = -20; i <= 20; i++) {
+                var point = Tuple.point(i * 0.25, 0, 0);
+                // a fresh world per point never has an occluder cached
+                var fresh = new World();
+                fresh.setLightSource(uncached.getLightSource());
+                fresh.addObjects(uncached.getObjects().toArray(new Shape[0]));
+                assertEquals(fresh.isShadowed(point), cached.isShadowed(point), "x = " + i * 0.25);
+            }
+        });
+        assertTrue(counts.get(Metrics.Event.SHADOW_CACHE_HIT) > 0);
+    }
+
+    @Test
+    void staleOccluderFallsBackToTheScene() {
+        var world = World.getDefault();
+        var wall = new Plane();
+        wall.setTransformationMatrix(MatrixProvider.translation(0, 0, 20).mulM(MatrixProvider.rotationX(Math.PI / 2)));
+        world.addObjects(wall);
+        world.setLightSource(new PointLight(Tuple.point(0, 0, 30), Color.WHITE));
+
+        // blocked by the spheres first, then only by the wall
+        assertTrue(world.isShadowed(Tuple.point(0, 0, -5)));
+        assertTrue(world.isShadowed(Tuple.point(5, 0, -5)));
+        assertFalse(world.isShadowed(Tuple.point(5, 0, 25)));
+    }
+
+    @Test
+    void lightsBelowTheCutoffAreSkipped() {
+        var world = World.getDefault();
+        var shape = world.getObjects().get(0);
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+        var precalc = new Precalc(new Intersection(shape, 4), ray);
+        for (int i = 0; i < 100; i++) {
+            // a row of small lights far to the right, only the first ones reach the sphere
+            world.addLights(new PointLight(Tuple.point(3 + i, 0, -3), new Color(0.2, 0.2, 0.2), 0.5));
+        }
+
+        var culled = world.shade_hit(precalc);
+        int reaching = world.getLightIndex().select(precalc.getOverPoint()).size();
+        world.setLightCutoff(0);
+        var everything = world.shade_hit(precalc);
+
+        assertTrue(reaching > 1 && reaching < 20, "reaching lights: " + reaching);
+        assertEquals(101, world.getLightIndex().select(precalc.getOverPoint()).size());
+        // every skipped light adds less than the cutoff
+        assertEquals(everything.r(), culled.r(), 100 * World.DEFAULT_LIGHT_CUTOFF);
+        assertTrue(culled.r() <= everything.r());
+    }
+
+    @Test
+    void areaLightSoftShadows() {
+        var world = World.getDefault();
+        var light = new AreaLight(Tuple.point(-0.5, -0.5, -5), Tuple.vector(1, 0, 0), 2, Tuple.vector(0, 1, 0), 2, Color.WHITE, false, false);
+
+        var expected = new double[]{0.0, 0.25, 0.5, 0.75, 1.0};
+        var points = List.of(Tuple.point(0, 0, 2), Tuple.point(1, -1, 2), Tuple.point(1.5, 0, 2), Tuple.point(1.25, 1.25, 3), Tuple.point(0, 0, -2));
+        for (int i = 0; i < points.size(); i++) {
+            var point = points.get(i);
+            assertEquals(expected[i], light.lightFraction(sample -> world.getShadowResult(point, sample).isShadowed()), "point " + i);
+        }
+    }
+
+    @Test
+    @Tag("metrics")
+    void shadowModePerCall() {
+        var world = World.getDefault();
+        world.setLightSource(null);
+        world.addAreaLights(new AreaLight(Tuple.point(-11, 9, -10), Tuple.vector(2, 0, 0), 4, Tuple.vector(0, 2, 0), 4, Color.WHITE, false, false));
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+
+        assertEquals(1, counting(() -> world.color_at(ray, 5, false)).get(Metrics.Event.SHADOW_RAY));
+        // the world keeps its own mode
+        assertTrue(world.isSoftShadows());
+        assertEquals(16, counting(() -> world.color_at(ray)).get(Metrics.Event.SHADOW_RAY));
+    }
+
+    @Test
+    @Tag("metrics")
+    void fullyLitAreaLightShadesLikeAPointLightInItsCenter() {
+        var area = World.getDefault();
+        var areaLight = new AreaLight(Tuple.point(-11, 9, -10), Tuple.vector(2, 0, 0), 4, Tuple.vector(0, 2, 0), 4, Color.WHITE);
+        area.setLightSource(null);
+        area.addAreaLights(areaLight);
+        var point = World.getDefault();
+        point.setLightSource(areaLight.asPointLight());
+
+        var ray = new Ray(Tuple.point(0, 0, -5), Tuple.vector(0, 0, 1));
+        var counts = counting(() -> assertEquals(point.color_at(ray), area.color_at(ray)));
+
+        // adaptive: only the corners, plus the one shadow ray of the point light
+        assertEquals(4 + 1, counts.get(Metrics.Event.SHADOW_RAY));
+    }
+}